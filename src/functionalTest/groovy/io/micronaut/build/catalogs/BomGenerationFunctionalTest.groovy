@@ -2,6 +2,7 @@ package io.micronaut.build.catalogs
 
 import groovy.xml.XmlSlurper
 import io.micronaut.build.AbstractFunctionalTest
+import org.gradle.testkit.runner.TaskOutcome
 import spock.lang.Issue
 import spock.lang.Unroll
 
@@ -336,6 +337,45 @@ class BomGenerationFunctionalTest extends AbstractFunctionalTest {
         ]
     }
 
+    def "reuses the configuration cache and the version inference when publishing a BOM"() {
+        given:
+        withSample("test-bom-external-inlining")
+        buildFile << """
+            micronautBom {
+                inlineRegularBOMs = true
+                inferredManagedDependencies(['org.opentest4j:opentest4j'])
+            }
+        """
+        def mavenLocal = file("m2").absolutePath
+
+        when:
+        run 'publishToMavenLocal', '--configuration-cache', "-Dmaven.repo.local=$mavenLocal"
+
+        then:
+        tasks {
+            succeeded ':inferBomVersions', ':generateBomPomFragment', ':generateCatalogAsToml'
+        }
+
+        when:
+        run 'publishToMavenLocal', '--configuration-cache', "-Dmaven.repo.local=$mavenLocal"
+
+        then:
+        outputContains 'Reusing configuration cache.'
+        result.task(':inferBomVersions').outcome == TaskOutcome.UP_TO_DATE
+        result.task(':generateBomPomFragment').outcome == TaskOutcome.UP_TO_DATE
+        result.task(':generateCatalogAsToml').outcome == TaskOutcome.UP_TO_DATE
+
+        and:
+        def moduleDir = file("m2/io/micronaut/dummy/micronaut-test-bom-external-inlining/1.2.3")
+        def catalogFile = new File(moduleDir, "micronaut-test-bom-external-inlining-1.2.3.toml")
+        catalogFile.text.contains('opentest4j = {group = "org.opentest4j", name = "opentest4j", version.ref = "opentest4j" }')
+        def bom = new XmlSlurper().parse(new File(moduleDir, "micronaut-test-bom-external-inlining-1.2.3.pom"))
+        bom.properties.'opentest4j.version'.text() == '1.3.0'
+        bom.dependencyManagement.dependencies.dependency.find {
+            it.groupId[0].text() == 'org.opentest4j' && it.version[0].text() == '${opentest4j.version}'
+        }
+    }
+
     @Unroll
     def "can exclude an alias when inlining Micronaut catalogs into the generated catalog"() {
         given:
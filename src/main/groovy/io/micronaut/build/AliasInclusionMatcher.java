@@ -0,0 +1,220 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Decides if an alias of an inlined catalog or BOM should be included
+ * in the generated catalog. Include and exclude entries are compiled
+ * once into a prefix trie, so that a decision is made in a single walk
+ * over the alias. Entries ending with a wildcard match all aliases
+ * starting with the prefix, other entries match aliases exactly.
+ *
+ * When an alias is both included and excluded, exclusion wins.
+ */
+final class AliasInclusionMatcher {
+    private static final int INCLUDED = 1;
+    private static final int INCLUDED_PREFIX = 2;
+    private static final int EXCLUDED = 4;
+    private static final int EXCLUDED_PREFIX = 8;
+
+    private final TrieNode root;
+    private final boolean hasIncludes;
+
+    private AliasInclusionMatcher(TrieNode root, boolean hasIncludes) {
+        this.root = root;
+        this.hasIncludes = hasIncludes;
+    }
+
+    static AliasInclusionMatcher of(Set<String> includes, Set<String> excludes) {
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return new AliasInclusionMatcher(null, false);
+        }
+        var root = new TrieNode();
+        includes.forEach(entry -> root.add(entry, INCLUDED, INCLUDED_PREFIX));
+        excludes.forEach(entry -> root.add(entry, EXCLUDED, EXCLUDED_PREFIX));
+        return new AliasInclusionMatcher(root, !includes.isEmpty());
+    }
+
+    Decision match(String alias) {
+        if (root == null) {
+            return Decision.NO_PATTERN;
+        }
+        String includedPrefix = null;
+        String excludedPrefix = null;
+        TrieNode node = root;
+        int i = 0;
+        while (node != null) {
+            if (includedPrefix == null && (node.flags & INCLUDED_PREFIX) != 0) {
+                includedPrefix = node.prefix;
+            }
+            if (excludedPrefix == null && (node.flags & EXCLUDED_PREFIX) != 0) {
+                excludedPrefix = node.prefix;
+            }
+            if (i == alias.length()) {
+                break;
+            }
+            node = node.child(alias.charAt(i++));
+        }
+        int exactFlags = node == null ? 0 : node.flags;
+        boolean included = (exactFlags & INCLUDED) != 0;
+        boolean excluded = (exactFlags & EXCLUDED) != 0;
+        if (!hasIncludes) {
+            if (excluded) {
+                return Decision.EXPLICITLY_EXCLUDED;
+            }
+            if (excludedPrefix != null) {
+                return new Decision(Reason.MATCHES_EXCLUDED_PREFIX, null, excludedPrefix);
+            }
+            return Decision.NOT_EXCLUDED;
+        }
+        if (included) {
+            if (excluded) {
+                return Decision.INCLUDED_BUT_EXCLUDED;
+            }
+            if (excludedPrefix != null) {
+                return new Decision(Reason.INCLUDED_BUT_MATCHES_EXCLUDED_PREFIX, null, excludedPrefix);
+            }
+            return Decision.EXPLICITLY_INCLUDED;
+        }
+        if (includedPrefix != null) {
+            if (excluded) {
+                return new Decision(Reason.MATCHES_INCLUDED_PREFIX_BUT_EXCLUDED, includedPrefix, null);
+            }
+            if (excludedPrefix != null) {
+                return new Decision(Reason.MATCHES_INCLUDED_AND_EXCLUDED_PREFIXES, includedPrefix, excludedPrefix);
+            }
+            return new Decision(Reason.MATCHES_INCLUDED_PREFIX, includedPrefix, null);
+        }
+        if (excluded) {
+            return Decision.EXPLICITLY_EXCLUDED;
+        }
+        if (excludedPrefix != null) {
+            return new Decision(Reason.MATCHES_EXCLUDED_PREFIX, null, excludedPrefix);
+        }
+        return Decision.NOT_INCLUDED;
+    }
+
+    private static final class TrieNode {
+        private static final char[] NO_KEYS = new char[0];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        private char[] keys = NO_KEYS;
+        private TrieNode[] children = NO_CHILDREN;
+        private int flags;
+        private String prefix;
+
+        void add(String entry, int exactFlag, int prefixFlag) {
+            boolean wildcard = entry.endsWith("*");
+            var value = wildcard ? entry.substring(0, entry.length() - 1) : entry;
+            var node = this;
+            for (int i = 0; i < value.length(); i++) {
+                node = node.getOrCreateChild(value.charAt(i));
+            }
+            if (wildcard) {
+                node.flags |= prefixFlag;
+                node.prefix = value;
+            } else {
+                node.flags |= exactFlag;
+            }
+        }
+
+        TrieNode child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private TrieNode getOrCreateChild(char c) {
+            var existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            var node = new TrieNode();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = node;
+            return node;
+        }
+    }
+
+    enum Reason {
+        NO_PATTERN(true),
+        EXPLICITLY_EXCLUDED(false),
+        MATCHES_EXCLUDED_PREFIX(false),
+        NOT_EXCLUDED(true),
+        INCLUDED_BUT_EXCLUDED(false),
+        INCLUDED_BUT_MATCHES_EXCLUDED_PREFIX(false),
+        EXPLICITLY_INCLUDED(true),
+        MATCHES_INCLUDED_PREFIX_BUT_EXCLUDED(false),
+        MATCHES_INCLUDED_AND_EXCLUDED_PREFIXES(false),
+        MATCHES_INCLUDED_PREFIX(true),
+        NOT_INCLUDED(false);
+
+        private final boolean included;
+
+        Reason(boolean included) {
+            this.included = included;
+        }
+    }
+
+    /**
+     * The result of matching an alias. The human readable reason
+     * is only computed when requested.
+     *
+     * @param kind the kind of decision
+     * @param includedPrefix the included prefix the alias matched, if any
+     * @param excludedPrefix the excluded prefix the alias matched, if any
+     */
+    record Decision(
+        Reason kind,
+        String includedPrefix,
+        String excludedPrefix
+    ) {
+        private static final Decision NO_PATTERN = new Decision(Reason.NO_PATTERN, null, null);
+        private static final Decision EXPLICITLY_EXCLUDED = new Decision(Reason.EXPLICITLY_EXCLUDED, null, null);
+        private static final Decision NOT_EXCLUDED = new Decision(Reason.NOT_EXCLUDED, null, null);
+        private static final Decision INCLUDED_BUT_EXCLUDED = new Decision(Reason.INCLUDED_BUT_EXCLUDED, null, null);
+        private static final Decision EXPLICITLY_INCLUDED = new Decision(Reason.EXPLICITLY_INCLUDED, null, null);
+        private static final Decision NOT_INCLUDED = new Decision(Reason.NOT_INCLUDED, null, null);
+
+        boolean included() {
+            return kind.included;
+        }
+
+        String reason() {
+            return switch (kind) {
+                case NO_PATTERN -> "no include or exclude pattern provided";
+                case EXPLICITLY_EXCLUDED -> "alias is explicitly excluded.";
+                case MATCHES_EXCLUDED_PREFIX -> "alias matches excluded prefix: " + excludedPrefix;
+                case NOT_EXCLUDED -> "alias is not explicitly excluded and does not match any excluded prefix.";
+                case INCLUDED_BUT_EXCLUDED -> "alias is explicitly included but also explicitly excluded.";
+                case INCLUDED_BUT_MATCHES_EXCLUDED_PREFIX -> "alias is explicitly included but matches excluded prefix: " + excludedPrefix;
+                case EXPLICITLY_INCLUDED -> "alias is explicitly included.";
+                case MATCHES_INCLUDED_PREFIX_BUT_EXCLUDED -> "alias matches included prefix: " + includedPrefix + " but is also explicitly excluded.";
+                case MATCHES_INCLUDED_AND_EXCLUDED_PREFIXES -> "alias matches included prefix: " + includedPrefix + " but also matches excluded prefix: " + excludedPrefix;
+                case MATCHES_INCLUDED_PREFIX -> "alias matches included prefix: " + includedPrefix;
+                case NOT_INCLUDED -> "alias is not included and does not match any included prefix.";
+            };
+        }
+    }
+}
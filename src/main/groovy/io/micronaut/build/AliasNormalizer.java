@@ -0,0 +1,158 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Converts artifact ids and catalog aliases to the names used in the
+ * generated catalogs and BOMs. The conversions are implemented as single
+ * passes over the input, without regular expressions, and an instance
+ * memoizes the results, since the same names are converted again and
+ * again while inlining nested catalogs and BOMs.
+ *
+ * Instances are thread-safe.
+ */
+final class AliasNormalizer {
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final Map<String, String> propertyNames = new ConcurrentHashMap<>();
+    private final Map<String, String> baseNames = new ConcurrentHashMap<>();
+
+    String alias(String artifactId) {
+        return aliases.computeIfAbsent(artifactId, AliasNormalizer::toAlias);
+    }
+
+    String propertyName(String alias) {
+        return propertyNames.computeIfAbsent(alias, AliasNormalizer::toPropertyName);
+    }
+
+    String baseName(String fileName) {
+        return baseNames.computeIfAbsent(fileName, AliasNormalizer::toBaseName);
+    }
+
+    /**
+     * Converts an artifact id to a catalog alias: characters which are
+     * not ASCII letters, digits or dashes are replaced with a dash, a
+     * dash is inserted between a lowercase letter and a following
+     * uppercase letter, then the result is lowercased.
+     *
+     * @param artifactId the artifact id
+     * @return the alias
+     */
+    static String toAlias(String artifactId) {
+        int length = artifactId.length();
+        var sb = new StringBuilder(length + 4);
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = artifactId.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '-') {
+                c = '-';
+            }
+            if (isAsciiUpperCase(c)) {
+                if (isAsciiLowerCase(previous)) {
+                    sb.append('-');
+                }
+                sb.append((char) (c + ('a' - 'A')));
+            } else {
+                sb.append(c);
+            }
+            previous = c;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converts a camel case or dashed alias to a dotted property name,
+     * for example {@code someLib-core} is converted to {@code some.lib.core}.
+     *
+     * @param alias the alias
+     * @return the property name
+     */
+    static String toPropertyName(String alias) {
+        int length = alias.length();
+        var sb = new StringBuilder(length + 4);
+        for (int i = 0; i < length; i++) {
+            char c = alias.charAt(i);
+            if (c >= 0x80) {
+                // Non ASCII characters may not lowercase to a single character
+                return toPropertyNameSlow(alias);
+            }
+            if (isAsciiUpperCase(c)) {
+                if (i > 0) {
+                    sb.append('.');
+                }
+                sb.append((char) (c + ('a' - 'A')));
+            } else if (c == '-') {
+                sb.append('.');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String toPropertyNameSlow(String alias) {
+        return Arrays.stream(alias.split("(?=[A-Z])"))
+            .map(s -> s.toLowerCase(Locale.US))
+            .collect(Collectors.joining("-"))
+            .replace('-', '.');
+    }
+
+    /**
+     * Extracts the module name from the name of a file in a
+     * Maven repository, for example {@code micronaut-aws-bom}
+     * for {@code micronaut-aws-bom-4.0.1.toml}. The base name is
+     * the shortest prefix made of ASCII letters, digits and dashes
+     * which is followed by a dash, a digit and at least one more
+     * character. If there is no such prefix, the file name is returned.
+     *
+     * @param fileName the file name
+     * @return the base name
+     */
+    static String toBaseName(String fileName) {
+        int length = fileName.length();
+        for (int i = 1; i + 2 < length; i++) {
+            char c = fileName.charAt(i - 1);
+            if (!isAsciiLetterOrDigit(c) && c != '-') {
+                break;
+            }
+            if (fileName.charAt(i) == '-' && isAsciiDigit(fileName.charAt(i + 1))) {
+                return fileName.substring(0, i);
+            }
+        }
+        return fileName;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLowerCase(c) || isAsciiUpperCase(c) || isAsciiDigit(c);
+    }
+
+    private static boolean isAsciiLowerCase(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isAsciiUpperCase(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
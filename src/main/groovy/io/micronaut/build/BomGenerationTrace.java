@@ -0,0 +1,167 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build;
+
+import groovy.json.JsonOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the time spent in the different phases of the BOM and
+ * catalog generation, as well as for each inlined catalog or BOM,
+ * and writes them as a structured JSON trace next to the inlining
+ * log. The trace can optionally be exported in the Chrome trace
+ * event format, which can be opened in {@code chrome://tracing}
+ * or Perfetto.
+ *
+ * A trace may contain several recordings, each with its own origin:
+ * spans recorded during configuration and spans recorded when the
+ * POM file is generated don't necessarily happen in the same build,
+ * since the latter may run from the configuration cache.
+ */
+final class BomGenerationTrace {
+    static final String PHASE = "phase";
+    static final String ARTIFACT = "artifact";
+    static final String MODEL = "model";
+
+    private long origin = System.nanoTime();
+    private int recording = 1;
+    private final List<Span> spans = new ArrayList<>();
+    private final String traceFile;
+    private final String chromeTraceFile;
+
+    /**
+     * Creates a trace.
+     * @param traceFile the JSON trace file
+     * @param chromeTraceFile the Chrome trace file, or null if the trace shouldn't be exported
+     */
+    BomGenerationTrace(Path traceFile, Path chromeTraceFile) {
+        this.traceFile = traceFile.toString();
+        this.chromeTraceFile = chromeTraceFile == null ? null : chromeTraceFile.toString();
+    }
+
+    synchronized Span start(String category, String name) {
+        return new Span(category, name, recording, origin, System.nanoTime(), Thread.currentThread().getName());
+    }
+
+    /**
+     * Starts a new recording, which origin is the current time. Spans
+     * recorded before keep the origin of their own recording.
+     */
+    synchronized void restart() {
+        origin = System.nanoTime();
+        recording++;
+    }
+
+    private synchronized void record(Span span) {
+        spans.add(span);
+    }
+
+    /**
+     * Writes the spans recorded so far. This method can be called
+     * several times, each call rewriting the trace files.
+     */
+    synchronized void write() {
+        var json = new ArrayList<Map<String, Object>>(spans.size());
+        for (Span span : spans) {
+            var entry = new LinkedHashMap<String, Object>();
+            entry.put("category", span.category);
+            entry.put("name", span.name);
+            entry.put("thread", span.thread);
+            entry.put("recording", span.recording);
+            entry.put("startMs", toMillis(span.start - span.origin));
+            entry.put("durationMs", toMillis(span.end - span.start));
+            entry.put("attributes", span.attributes);
+            json.add(entry);
+        }
+        writeJson(traceFile, Map.of("spans", json));
+        if (chromeTraceFile != null) {
+            // Each recording is exported as a separate process, since they have different origins
+            var threadIds = new LinkedHashMap<String, Integer>();
+            var events = new ArrayList<Map<String, Object>>(spans.size());
+            for (Span span : spans) {
+                var event = new LinkedHashMap<String, Object>();
+                event.put("name", span.name);
+                event.put("cat", span.category);
+                event.put("ph", "X");
+                event.put("ts", (span.start - span.origin) / 1000);
+                event.put("dur", (span.end - span.start) / 1000);
+                event.put("pid", span.recording);
+                event.put("tid", threadIds.computeIfAbsent(span.recording + ":" + span.thread, t -> threadIds.size() + 1));
+                event.put("args", span.attributes);
+                events.add(event);
+            }
+            threadIds.forEach((thread, id) -> events.add(Map.of(
+                "name", "thread_name",
+                "ph", "M",
+                "pid", Integer.parseInt(thread.substring(0, thread.indexOf(':'))),
+                "tid", id,
+                "args", Map.of("name", thread.substring(thread.indexOf(':') + 1))
+            )));
+            writeJson(chromeTraceFile, Map.of("traceEvents", events));
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    private static void writeJson(String file, Object model) {
+        try {
+            Files.writeString(Path.of(file), JsonOutput.prettyPrint(JsonOutput.toJson(model)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    final class Span implements AutoCloseable {
+        private final String category;
+        private final String name;
+        private final int recording;
+        private final long origin;
+        private final long start;
+        private final String thread;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private long end;
+
+        private Span(String category, String name, int recording, long origin, long start, String thread) {
+            this.category = category;
+            this.name = name;
+            this.recording = recording;
+            this.origin = origin;
+            this.start = start;
+            this.thread = thread;
+        }
+
+        Span attribute(String key, Object value) {
+            attributes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            end = System.nanoTime();
+            record(this);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build;
+
+import groovy.util.Node;
+import groovy.xml.XmlNodePrinter;
+import groovy.xml.XmlParser;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Generates the fragment of the BOM POM file which contains the
+ * properties and dependencies coming from inlined catalogs and BOMs
+ * and from inferred versions. The fragment is merged into the POM
+ * file when it is generated.
+ */
+@CacheableTask
+public abstract class GenerateBomPomFragmentTask extends DefaultTask {
+    /**
+     * The versions of the inlined libraries, indexed by alias.
+     * @return the inlined versions
+     */
+    @Input
+    public abstract MapProperty<String, String> getInlinedVersions();
+
+    /**
+     * The inlined dependencies, in the {@code group:artifact:versionProperty} format.
+     * @return the inlined dependencies
+     */
+    @Input
+    public abstract ListProperty<String> getInlinedDependencies();
+
+    @Input
+    public abstract MapProperty<String, String> getPropertyNameOverrides();
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getInferredVersions();
+
+    @OutputFile
+    public abstract RegularFileProperty getFragment();
+
+    @TaskAction
+    public void generate() throws IOException {
+        var properties = new TreeMap<String, String>();
+        getInlinedVersions().get().forEach((alias, version) ->
+            properties.putIfAbsent(MicronautBomPlugin.bomPropertyName(getPropertyNameOverrides(), alias), version)
+        );
+        var dependencies = new LinkedHashSet<>(getInlinedDependencies().get());
+        for (var inferred : InferBomVersionsTask.read(getInferredVersions().get().getAsFile().toPath())) {
+            var propertyName = AliasNormalizer.toPropertyName(inferred.alias());
+            properties.putIfAbsent(MicronautBomPlugin.bomPropertyName(getPropertyNameOverrides(), propertyName), inferred.version());
+            dependencies.add(inferred.group() + ":" + inferred.module() + ":" + propertyName + ".version");
+        }
+        var project = new Node(null, "project");
+        var propertiesNode = project.appendNode("properties");
+        properties.forEach(propertiesNode::appendNode);
+        var dependenciesNode = project.appendNode("dependencyManagement").appendNode("dependencies");
+        for (String dependency : dependencies) {
+            var coordinates = dependency.split(":");
+            var dependencyNode = dependenciesNode.appendNode("dependency");
+            dependencyNode.appendNode("groupId", coordinates[0]);
+            dependencyNode.appendNode("artifactId", coordinates[1]);
+            dependencyNode.appendNode("version", "${" + coordinates[2] + "}");
+        }
+        try (var writer = new PrintWriter(Files.newBufferedWriter(getFragment().get().getAsFile().toPath()))) {
+            var printer = new XmlNodePrinter(writer);
+            printer.setPreserveWhitespace(true);
+            printer.print(project);
+        }
+    }
+
+    /**
+     * Reads a fragment generated by this task.
+     * @param fragment the fragment file
+     * @return the properties and dependency nodes of the fragment
+     */
+    static Fragment read(Path fragment) {
+        try {
+            var project = new XmlParser().parse(fragment.toFile());
+            return new Fragment(children(project, "properties"), children(MicronautBomPlugin.childOf(project, "dependencyManagement"), "dependencies"));
+        } catch (IOException | SAXException | ParserConfigurationException e) {
+            throw new RuntimeException("Unable to read POM fragment " + fragment, e);
+        }
+    }
+
+    private static List<Node> children(Node parent, String name) {
+        var children = new ArrayList<Node>();
+        for (Object child : MicronautBomPlugin.childOf(parent, name).children()) {
+            if (child instanceof Node node) {
+                children.add(node);
+            }
+        }
+        return children;
+    }
+
+    record Fragment(List<Node> properties, List<Node> dependencies) {
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Infers the versions of the dependencies which are declared as
+ * inferred managed dependencies of a BOM, from the dependency graph
+ * of the libraries of the BOM. The result is written in a file which
+ * is then used to complete the generated version catalog and the
+ * POM file.
+ */
+@CacheableTask
+public abstract class InferBomVersionsTask extends DefaultTask {
+    /**
+     * The dependencies which versions must be inferred, as a map
+     * from the module identifier to the alias to use in the catalog.
+     * @return the inferred dependencies
+     */
+    @Input
+    public abstract MapProperty<String, String> getInferredManagedDependencies();
+
+    /**
+     * The modules which are already declared in the catalog.
+     * @return the known libraries
+     */
+    @Input
+    public abstract SetProperty<String> getKnownLibraries();
+
+    /**
+     * The root of the dependency graph of the libraries of the BOM.
+     * @return the root component
+     */
+    @Input
+    public abstract Property<ResolvedComponentResult> getRootComponent();
+
+    @OutputFile
+    public abstract RegularFileProperty getInferredVersions();
+
+    /**
+     * The file where the version inference span is written, next
+     * to the inlining trace.
+     * @return the trace file
+     */
+    @Internal
+    public abstract RegularFileProperty getTraceFile();
+
+    @TaskAction
+    public void inferVersions() throws IOException {
+        var traceFile = getTraceFile().get().getAsFile().toPath();
+        Files.createDirectories(traceFile.getParent());
+        var trace = new BomGenerationTrace(traceFile, null);
+        try (var span = trace.start(BomGenerationTrace.PHASE, "Version inference")) {
+            var inferred = inferVersions(span);
+            span.attribute("aliases", inferred.size());
+            write(getInferredVersions().get().getAsFile().toPath(), inferred);
+        } finally {
+            trace.write();
+        }
+    }
+
+    private List<InferredVersion> inferVersions(BomGenerationTrace.Span span) {
+        var inferredLibraries = getInferredManagedDependencies().get();
+        var knownLibraries = getKnownLibraries().get();
+        var inferred = new TreeMap<String, InferredVersion>();
+        var found = new HashSet<String>();
+        var seen = new HashSet<String>();
+        var queue = new ArrayDeque<ResolvedComponentResult>();
+        queue.add(getRootComponent().get());
+        int resolved = 0;
+        while (!queue.isEmpty()) {
+            var component = queue.poll();
+            for (var dependency : component.getDependencies()) {
+                if (dependency instanceof ResolvedDependencyResult result
+                    && result.getSelected().getId() instanceof ModuleComponentIdentifier mid) {
+                    var module = mid.getModuleIdentifier().toString();
+                    if (!seen.add(module)) {
+                        continue;
+                    }
+                    resolved++;
+                    queue.add(result.getSelected());
+                    if (inferredLibraries.containsKey(module)) {
+                        found.add(module);
+                        if (knownLibraries.contains(module)) {
+                            getLogger().warn("Library {} is already present in the catalog, remove it from the inferred versions list", module);
+                        } else {
+                            var alias = inferredLibraries.get(module);
+                            inferred.put(alias, new InferredVersion(alias, mid.getGroup(), mid.getModule(), mid.getVersion()));
+                        }
+                    }
+                }
+            }
+        }
+        // The graph is resolved once by Gradle, so the count is the number of modules it contains
+        span.attribute("resolutions", resolved);
+        // throw an error if an inferred module cannot be found
+        var missing = new ArrayList<>(inferredLibraries.keySet());
+        missing.removeAll(found);
+        if (!missing.isEmpty()) {
+            throw new InvalidUserDataException("Some dependencies were declared as inferred, but they don't appear in the dependency graph. You must use an explicit version for these : " + missing);
+        }
+        return new ArrayList<>(inferred.values());
+    }
+
+    static void write(Path file, Iterable<InferredVersion> versions) throws IOException {
+        var lines = new ArrayList<String>();
+        for (InferredVersion version : versions) {
+            lines.add(String.join("\t", version.alias(), version.group(), version.module(), version.version()));
+        }
+        Files.write(file, lines);
+    }
+
+    static List<InferredVersion> read(Path file) throws IOException {
+        var versions = new ArrayList<InferredVersion>();
+        for (String line : Files.readAllLines(file)) {
+            if (!line.isEmpty()) {
+                var parts = line.split("\t");
+                versions.add(new InferredVersion(parts[0], parts[1], parts[2], parts[3]));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Adds the inferred versions to a TOML file generated by Gradle,
+     * keeping the entries of each table sorted by alias. Aliases which
+     * are already declared in the catalog are left untouched.
+     * @param toml the generated version catalog
+     * @param versions the inferred versions
+     * @throws IOException if the catalog cannot be read or written
+     */
+    static void mergeIntoCatalog(Path toml, List<InferredVersion> versions) throws IOException {
+        if (versions.isEmpty()) {
+            return;
+        }
+        var sections = new LinkedHashMap<String, List<String>>();
+        List<String> current = sections.computeIfAbsent("", k -> new ArrayList<>());
+        for (String line : Files.readAllLines(toml)) {
+            if (line.startsWith("[")) {
+                current = sections.computeIfAbsent(line, k -> new ArrayList<>());
+            } else if (!line.isBlank()) {
+                current.add(line);
+            }
+        }
+        var versionsTable = new TreeMap<String, String>();
+        var librariesTable = new TreeMap<String, String>();
+        for (InferredVersion version : versions) {
+            versionsTable.put(version.alias(), version.alias() + " = \"" + version.version() + "\"");
+            librariesTable.put(version.alias(), version.alias() + " = {group = \"" + version.group() + "\", name = \"" + version.module() + "\", version.ref = \"" + version.alias() + "\" }");
+        }
+        var merged = new LinkedHashMap<String, List<String>>();
+        merged.put("", sections.getOrDefault("", List.of()));
+        merged.put("[metadata]", sections.getOrDefault("[metadata]", List.of()));
+        merged.put("[versions]", mergeTable(sections.get("[versions]"), versionsTable));
+        merged.put("[libraries]", mergeTable(sections.get("[libraries]"), librariesTable));
+        sections.forEach(merged::putIfAbsent);
+        var out = new ArrayList<String>();
+        merged.forEach((header, entries) -> {
+            if (header.isEmpty()) {
+                out.addAll(entries);
+            } else if (!entries.isEmpty()) {
+                if (!header.equals("[metadata]")) {
+                    out.add("");
+                }
+                out.add(header);
+                out.addAll(entries);
+            }
+        });
+        Files.write(toml, out);
+    }
+
+    private static List<String> mergeTable(List<String> entries, Map<String, String> additions) {
+        var table = entries == null ? new ArrayList<String>() : new ArrayList<>(entries);
+        additions.forEach((alias, addition) -> {
+            int index = 0;
+            while (index < table.size()) {
+                int cmp = keyOf(table.get(index)).compareTo(alias);
+                if (cmp == 0) {
+                    return;
+                }
+                if (cmp > 0) {
+                    break;
+                }
+                index++;
+            }
+            table.add(index, addition);
+        });
+        return table;
+    }
+
+    private static String keyOf(String entry) {
+        int separator = entry.indexOf(" = ");
+        return separator < 0 ? entry : entry.substring(0, separator);
+    }
+
+    record InferredVersion(String alias, String group, String module, String version) {
+    }
+}
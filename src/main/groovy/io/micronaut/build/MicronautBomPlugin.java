@@ -67,12 +67,12 @@ import org.gradle.api.artifacts.VersionConstraint;
 import org.gradle.api.artifacts.component.ComponentSelector;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.result.ResolvedArtifactResult;
-import org.gradle.api.artifacts.result.ResolvedDependencyResult;
 import org.gradle.api.artifacts.result.ResolvedVariantResult;
 import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
 import org.gradle.api.attributes.Category;
 import org.gradle.api.attributes.Usage;
 import org.gradle.api.component.AdhocComponentWithVariants;
+import org.gradle.api.file.RegularFile;
 import org.gradle.api.initialization.dsl.VersionCatalogBuilder;
 import org.gradle.api.plugins.JavaPlatformExtension;
 import org.gradle.api.plugins.JavaPlatformPlugin;
@@ -86,6 +86,7 @@ import org.gradle.api.publish.PublishingExtension;
 import org.gradle.api.publish.maven.MavenPublication;
 import org.gradle.api.publish.maven.tasks.GenerateMavenPom;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.TaskProvider;
 import org.jetbrains.annotations.NotNull;
@@ -96,6 +97,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -106,11 +108,13 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -128,14 +132,14 @@ import java.util.stream.Stream;
 public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
     private static final Logger LOGGER = LoggerFactory.getLogger(MicronautBomPlugin.class);
 
-    private static final Pattern BASENAME_EXTRACTOR = Pattern.compile("^([a-zA-Z0-9-]+?)-\\d[\\d.-]*(-[a-zA-Z0-9]+)?.+$");
     public static final List<String> DEPENDENCY_PATH = Arrays.asList("dependencyManagement", "dependencies", "dependency");
     public static final String BOM_VERSION_INFERENCE_CONFIGURATION_NAME = "bomVersionInference";
     public static final String EXTRA_BOMS_INLINING_CONFIGURATION_NAME = "extraBomsInlining";
     public static final String ALL_BOMS_CONFIGURATION_NAME = "allBoms";
     public static final String CATALOGS_INLINING_CONFIGURATION_NAME = "inlinedCatalogs";
 
-    private ModelResolver mavenModelResolver;
+    private SimpleMavenModelResolver mavenModelResolver;
+    private final AliasNormalizer aliasNormalizer = new AliasNormalizer();
 
     @Override
     public void apply(Project project) {
@@ -156,6 +160,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
         bomExtension.getInlineNestedCatalogs().convention(true);
         bomExtension.getExcludedInlinedAliases().convention(Set.of());
         bomExtension.getInlineRegularBOMs().convention(false);
+        bomExtension.getExportChromeTrace().convention(false);
         bomExtension.getInferProjectsToInclude().convention(true);
         bomExtension.getCatalogName().convention("libs");
         configureBOM(project, bomExtension);
@@ -213,8 +218,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
     }
 
     @SuppressWarnings("unchecked")
-
-    private Node childOf(Node node, String name) {
+    static Node childOf(Node node, String name) {
         List<Node> children = (List<Node>) node.children();
         return children.stream().filter(n -> nameOf(n).equals(name))
             .findFirst()
@@ -229,16 +233,13 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
     }
 
     private static String toPropertyName(String alias) {
-        return Arrays.stream(alias.split("(?=[A-Z])"))
-            .map(s -> s.toLowerCase(Locale.US))
-            .collect(Collectors.joining("-"))
-            .replace('-', '.');
+        return AliasNormalizer.toPropertyName(alias);
     }
 
-    private String bomPropertyName(MicronautBomExtension ext, String alias) {
+    static String bomPropertyName(Provider<Map<String, String>> catalogToPropertyNameOverrides, String alias) {
         alias = removePrefix(alias, "managed.");
         alias = removePrefix(alias, "boms.");
-        String baseName = ext.getCatalogToPropertyNameOverrides().getting(alias).getOrElse(toPropertyName(alias));
+        String baseName = catalogToPropertyNameOverrides.get().getOrDefault(alias, toPropertyName(alias));
         return baseName + ".version";
     }
 
@@ -289,7 +290,6 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
         );
         var libraryDefinitions = new ArrayList<InterceptedVersionCatalogBuilder.LibraryDefinition>();
         modelConverter.onLibrary(libraryDefinitions::add);
-        tasks.named("generateCatalogAsToml", task -> modelConverter.populateModel());
         if (bomExtension.getPublishCatalog().get()) {
             configureVersionCatalog(project, bomExtension, publishedName, group, mainProjectId);
         }
@@ -302,76 +302,139 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
         Map<String, String> inlinedPomProperties = new LinkedHashMap<>();
         List<InlinedDependency> inlinedMavenDependencies = new ArrayList<>();
         var logFile = prepareLogFile(project);
+        var knownLibraries = new ArrayList<String>();
+        modelConverter.onLibrary(l -> knownLibraries.add(l.groupId() + ":" + l.artifactId()));
+        var dependencyHandler = project.getDependencies();
+        var versionInferenceConfiguration = project.getConfigurations().getByName(BOM_VERSION_INFERENCE_CONFIGURATION_NAME);
+        var inferredManagedDependencies = bomExtension.getInferredManagedDependencies();
+        // The libraries of the BOM are only known once the model is populated
+        versionInferenceConfiguration.getDependencies().addAllLater(project.provider(() -> {
+            if (inferredManagedDependencies.get().isEmpty()) {
+                return List.of();
+            }
+            modelConverter.populateModel();
+            return libraryDefinitions.stream()
+                .filter(lib -> lib.version() != null)
+                .map(lib -> dependencyHandler.create(lib.toString()))
+                .toList();
+        }));
+        var inferVersions = tasks.register("inferBomVersions", InferBomVersionsTask.class, task -> {
+            task.setDescription("Infers the versions of the dependencies declared as inferred managed dependencies");
+            task.getInferredManagedDependencies().set(inferredManagedDependencies);
+            task.getKnownLibraries().set(project.provider(() -> {
+                modelConverter.populateModel();
+                return Set.copyOf(knownLibraries);
+            }));
+            task.getRootComponent().set(versionInferenceConfiguration.getIncoming().getResolutionResult().getRootComponent());
+            task.getInferredVersions().set(project.getLayout().getBuildDirectory().file("bom/inferred-versions.txt"));
+            task.getTraceFile().set(siblingFile(logFile, "-inference.json").toFile());
+        });
+        var inferredVersionsFile = inferVersions.flatMap(InferBomVersionsTask::getInferredVersions);
+        tasks.named("generateCatalogAsToml", task -> {
+            modelConverter.populateModel();
+            task.getInputs().file(inferredVersionsFile)
+                .withPropertyName("inferredVersions")
+                .withPathSensitivity(PathSensitivity.NONE);
+            task.doLast(new MergeInferredVersions(inferredVersionsFile));
+        });
+        // The POM customization runs when the POM is generated, so it must only capture
+        // values which can be stored in the configuration cache (no project, no extension)
+        MapProperty<String, String> propertyNameOverrides = bomExtension.getCatalogToPropertyNameOverrides();
+        var pomFragment = tasks.register("generateBomPomFragment", GenerateBomPomFragmentTask.class, task -> {
+            task.setDescription("Generates the properties and dependencies of the BOM coming from inlining and version inference");
+            task.getInlinedVersions().set(project.provider(() -> {
+                modelConverter.populateModel();
+                return inlinedPomProperties;
+            }));
+            task.getInlinedDependencies().set(project.provider(() -> {
+                modelConverter.populateModel();
+                return inlinedMavenDependencies.stream()
+                    .map(dep -> dep.groupId() + ":" + dep.artifactId() + ":" + dep.versionProperty())
+                    .toList();
+            }));
+            task.getPropertyNameOverrides().set(propertyNameOverrides);
+            task.getInferredVersions().set(inferredVersionsFile);
+            task.getFragment().set(project.getLayout().getBuildDirectory().file("bom/pom-fragment.xml"));
+        });
+        var pomFragmentFile = pomFragment.flatMap(GenerateBomPomFragmentTask::getFragment);
+        var trace = new BomGenerationTrace(
+            siblingFile(logFile, ".json"),
+            Boolean.TRUE.equals(bomExtension.getExportChromeTrace().get()) ? siblingFile(logFile, ".trace.json") : null
+        );
+        var logFileName = logFile.toString();
+        var traceFileName = siblingFile(logFile, ".json").toString();
         publishing.getPublications().named("maven", MavenPublication.class, pub -> {
             pub.setArtifactId(publishedName);
             pub.from(project.getComponents().getByName("javaPlatform"));
             pub.pom(pom -> {
                 pom.setPackaging("pom");
                 pom.withXml(xml -> {
-                    Node node = xml.asNode();
-                    modelProvider.get().getLibrariesTable().forEach(library -> {
-                        String alias = Optional.ofNullable(library.getVersion().getReference()).map(a -> a.replace('-', '.')).orElse("");
-                        String libraryAlias = Optional.ofNullable(library.getAlias()).map(a -> a.replace('-', '.')).orElse("");
-                        if (libraryAlias.startsWith("managed.") || libraryAlias.startsWith("boms.")) {
+                    // The POM may be generated from the configuration cache, in a later build
+                    trace.restart();
+                    try (var pomGenerationSpan = trace.start(BomGenerationTrace.PHASE, "POM generation")) {
+                        Node node = xml.asNode();
+                        modelProvider.get().getLibrariesTable().forEach(library -> {
+                            String alias = Optional.ofNullable(library.getVersion().getReference()).map(a -> a.replace('-', '.')).orElse("");
+                            String libraryAlias = Optional.ofNullable(library.getAlias()).map(a -> a.replace('-', '.')).orElse("");
+                            if (libraryAlias.startsWith("managed.") || libraryAlias.startsWith("boms.")) {
+                                Optional<Node> pomDep = forEachNode(node, DEPENDENCY_PATH)
+                                    .filter(n ->
+                                        childOf(n, "artifactId").text().equals(library.getName()) &&
+                                        childOf(n, "groupId").text().equals(library.getGroup()))
+                                    .findFirst();
+                                if (pomDep.isPresent()) {
+                                    String bomPropertyName = bomPropertyName(propertyNameOverrides, alias);
+                                    childOf(pomDep.get(), "version").setValue("${" + bomPropertyName + "}");
+                                } else {
+                                    System.err.println("[WARNING] Didn't find library " + library.getGroup() + ":" + library.getName() + " in BOM file");
+                                }
+                            }
+                        });
+                        // Add individual module versions as properties
+                        projectDescriptors.get().forEach(p -> {
+                            String propertyName = "micronaut." + mainProjectId + ".version";
+                            String projectGroup = p.getGroupId();
+                            String moduleName = p.getArtifactId();
                             Optional<Node> pomDep = forEachNode(node, DEPENDENCY_PATH)
-                                .filter(n ->
-                                    childOf(n, "artifactId").text().equals(library.getName()) &&
-                                    childOf(n, "groupId").text().equals(library.getGroup()))
+                                .filter(n -> childOf(n, "artifactId").text().equals(moduleName) &&
+                                             childOf(n, "groupId").text().equals(projectGroup))
                                 .findFirst();
                             if (pomDep.isPresent()) {
-                                String bomPropertyName = bomPropertyName(bomExtension, alias);
-                                childOf(pomDep.get(), "version").setValue("${" + bomPropertyName + "}");
+                                childOf(pomDep.get(), "version").setValue("${" + propertyName + "}");
                             } else {
-                                System.err.println("[WARNING] Didn't find library " + library.getGroup() + ":" + library.getName() + " in BOM file");
+                                System.err.println("[WARNING] Didn't find dependency " + projectGroup + ":" + moduleName + " in BOM file");
                             }
-                        }
-                    });
-                    // Add individual module versions as properties
-                    projectDescriptors.get().forEach(p -> {
-                        String propertyName = "micronaut." + mainProjectId + ".version";
-                        String projectGroup = p.getGroupId();
-                        String moduleName = p.getArtifactId();
-                        Optional<Node> pomDep = forEachNode(node, DEPENDENCY_PATH)
-                            .filter(n -> childOf(n, "artifactId").text().equals(moduleName) &&
-                                         childOf(n, "groupId").text().equals(projectGroup))
-                            .findFirst();
-                        if (pomDep.isPresent()) {
-                            childOf(pomDep.get(), "version").setValue("${" + propertyName + "}");
-                        } else {
-                            System.err.println("[WARNING] Didn't find dependency " + projectGroup + ":" + moduleName + " in BOM file");
-                        }
-                    });
-                    // Add extra versions as properties
-                    var propertiesNode = childOf(node, "properties");
-                    var dependencyManagementNode = childOf(node, "dependencyManagement");
-                    var dependencyManagementDependenciesNode = childOf(dependencyManagementNode, "dependencies");
-                    inlinedPomProperties.forEach((moduleName, version) -> {
-                        String propertyName = bomPropertyName(bomExtension, moduleName);
-                        var existingProperty = childOf(propertiesNode, propertyName);
-                        if (existingProperty == null) {
-                            propertiesNode.appendNode(propertyName, version);
-                        }
-                    });
-                    propertiesNode.children().sort((o1, o2) -> {
-                        String name1 = nameOf((Node) o1);
-                        String name2 = nameOf((Node) o2);
-                        return name1.compareTo(name2);
-                    });
-                    // add inlined Maven dependencies (issue #689)
-                    inlinedMavenDependencies.forEach(dep -> {
-                        var dependencyNode = new Node(null, "dependency");
-                        dependencyNode.append(new Node(null, "groupId", dep.groupId));
-                        dependencyNode.append(new Node(null, "artifactId", dep.artifactId));
-                        dependencyNode.append(new Node(null, "version", "${" + dep.versionProperty + "}"));
-                        dependencyManagementDependenciesNode.append(dependencyNode);
-                    });
-                    // then sort nodes so that these which have <import> scope appear last
-                    makeImportedBOMsLast(dependencyManagementDependenciesNode);
+                        });
+                        // Add extra versions as properties
+                        var propertiesNode = childOf(node, "properties");
+                        var dependencyManagementNode = childOf(node, "dependencyManagement");
+                        var dependencyManagementDependenciesNode = childOf(dependencyManagementNode, "dependencies");
+                        var fragment = GenerateBomPomFragmentTask.read(pomFragmentFile.get().getAsFile().toPath());
+                        fragment.properties().forEach(property -> {
+                            String propertyName = nameOf(property);
+                            var existingProperty = childOf(propertiesNode, propertyName);
+                            if (existingProperty == null) {
+                                propertiesNode.appendNode(propertyName, property.text());
+                            }
+                        });
+                        propertiesNode.children().sort((o1, o2) -> {
+                            String name1 = nameOf((Node) o1);
+                            String name2 = nameOf((Node) o2);
+                            return name1.compareTo(name2);
+                        });
+                        // add inlined Maven dependencies (issue #689)
+                        fragment.dependencies().forEach(dependencyManagementDependenciesNode::append);
+                        // then sort nodes so that these which have <import> scope appear last
+                        makeImportedBOMsLast(dependencyManagementDependenciesNode);
+                        pomGenerationSpan.attribute("inlinedProperties", fragment.properties().size())
+                            .attribute("inlinedDependencies", fragment.dependencies().size());
+                    }
+                    trace.write();
                 });
                 versionCatalog.ifPresent(libsCatalog -> libsCatalog.getVersionAliases().forEach(alias -> {
                     if (alias.startsWith("managed.")) {
                         libsCatalog.findVersion(alias).ifPresent(version -> {
-                            String propertyName = bomPropertyName(bomExtension, alias);
+                            String propertyName = bomPropertyName(propertyNameOverrides, alias);
                             pom.getProperties().put(propertyName, version.getRequiredVersion());
                         });
                     }
@@ -383,6 +446,9 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
                 });
 
                 tasks.withType(GenerateMavenPom.class).configureEach(pomTask -> {
+                    pomTask.getInputs().file(pomFragmentFile)
+                        .withPropertyName("bomPomFragment")
+                        .withPathSensitivity(PathSensitivity.NONE);
                     //noinspection Convert2Lambda
                     pomTask.doLast(new Action<Task>() {
                         @Override
@@ -397,7 +463,8 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
                                     .collect(Collectors.joining("\n"))
                                 );
                             }
-                            System.out.println("Inlining log file: " + logFile);
+                            System.out.println("Inlining log file: " + logFileName);
+                            System.out.println("Inlining trace file: " + traceFileName);
                         }
                     });
                 });
@@ -444,14 +511,24 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
                 return result;
             });
         var includedAliases = bomExtension.getInlinedAliases();
-        var knownLibraries = new ArrayList<String>();
-        modelConverter.onLibrary(l -> knownLibraries.add(l.groupId() + ":" + l.artifactId()));
+        var extraBoms = project.getConfigurations().getByName(EXTRA_BOMS_INLINING_CONFIGURATION_NAME);
+        Function<List<String>, Set<ResolvedArtifactResult>> extraBomsResolver = boms -> {
+            extraBoms.getDependencies().addAll(boms.stream()
+                .map(bom -> dependencyHandler.create(bom + "@pom"))
+                .toList());
+            return extraBoms.getIncoming().getArtifacts().getArtifacts();
+        };
         modelConverter.afterBuildingModel(builderState -> {
             api.getAllDependencyConstraints().forEach(MicronautBomPlugin::checkVersionConstraint);
             runtime.getAllDependencyConstraints().forEach(MicronautBomPlugin::checkVersionConstraint);
             try (var log = new PrintWriter(Files.newBufferedWriter(logFile))) {
-                maybeInlineNestedCatalogs(log, catalogArtifacts, bomArtifacts, builderState, inlineNestedCatalogs, inlineNestedBOMs, excludedInlinedAliases, includedAliases, inlinedPomProperties, inlinedMavenDependencies, project);
-                performVersionInference(log, project, bomExtension, builderState, libraryDefinitions, inlinedPomProperties, inlinedMavenDependencies, project.getConfigurations().findByName(BOM_VERSION_INFERENCE_CONFIGURATION_NAME), knownLibraries);
+                try (var span = trace.start(BomGenerationTrace.PHASE, "Nested catalogs and BOMs inlining")) {
+                    int aliases = aliasCount(builderState);
+                    int resolutions = mavenModelResolver.getResolutionCount();
+                    maybeInlineNestedCatalogs(log, trace, catalogArtifacts, bomArtifacts, builderState, inlineNestedCatalogs, inlineNestedBOMs, excludedInlinedAliases, includedAliases, inlinedPomProperties, inlinedMavenDependencies, extraBomsResolver);
+                    span.attribute("aliases", aliasCount(builderState) - aliases)
+                        .attribute("resolutions", mavenModelResolver.getResolutionCount() - resolutions);
+                }
                 var unresolvedDependencies = new LinkedHashSet<ComponentSelector>();
                 catalogs.getIncoming()
                     .getResolutionResult()
@@ -476,6 +553,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+            trace.write();
         });
         projectDescriptors.get().forEach(p -> {
             String moduleGroup = p.getGroupId();
@@ -494,67 +572,13 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
         });
     }
 
-    private static void performVersionInference(PrintWriter log,
-                                                Project project,
-                                                MicronautBomExtension bomExtension,
-                                                VersionCatalogConverter.BuilderState builderState,
-                                                List<InterceptedVersionCatalogBuilder.LibraryDefinition> libraryDefinitions,
-                                                Map<String, String> inlinedPomProperties,
-                                                List<InlinedDependency> inlinedMavenDependencies,
-                                                Configuration versionInferenceConfiguration,
-                                                List<String> knownLibrariesList) {
-        // This copy serves both optimization (search in set instead of list) but also because the
-        // list which is passed as an input will be augmented by this very method, so we have to
-        // create a defensive copy.
-        var knownLibraries = knownLibrariesList.stream().collect(Collectors.toUnmodifiableSet());
-        var inferredLibraries = bomExtension.getInferredManagedDependencies().getOrElse(Map.of());
-        if (!inferredLibraries.isEmpty()) {
-            Set<String> found = new HashSet<>();
-            libraryDefinitions.forEach(lib -> {
-                if (lib.version() != null) {
-                    versionInferenceConfiguration.getDependencies().add(project.getDependencies().create(lib.toString()));
-                }
-            });
-            var seen = new HashSet<String>();
-            versionInferenceConfiguration.getIncoming()
-                .getResolutionResult()
-                .allDependencies(dep -> {
-                    if (dep instanceof ResolvedDependencyResult resolved) {
-                        if (resolved.getSelected().getId() instanceof ModuleComponentIdentifier mid) {
-                            var module = mid.getModuleIdentifier().toString();
-                            if (seen.add(module) && inferredLibraries.containsKey(module)) {
-                                if (knownLibraries.contains(module)) {
-                                    found.add(module);
-                                    log.println("Library " + module + " is already present in the catalog, remove it from the inferred versions list");
-                                    return;
-                                }
-                                found.add(module);
-                                var alias = inferredLibraries.get(module);
-                                if (!builderState.getKnownVersionAliases().containsKey(alias)) {
-                                    builderState.getBuilder().version(alias, mid.getVersion());
-                                }
-                                var mavenPropertyName = toPropertyName(alias);
-                                if (!inlinedPomProperties.containsKey(alias)) {
-                                    inlinedPomProperties.put(mavenPropertyName, mid.getVersion());
-                                }
-                                if (!builderState.getKnownAliases().containsKey(alias)) {
-                                    builderState.getBuilder().library(alias, mid.getGroup(), mid.getModule()).versionRef(alias);
-                                }
-                                var inlinedMavenDep = new InlinedDependency(mid.getGroup(), mid.getModule(), mavenPropertyName + ".version");
-                                if (!inlinedMavenDependencies.contains(inlinedMavenDep)) {
-                                    inlinedMavenDependencies.add(inlinedMavenDep);
-                                }
-                            }
-                        }
-                    }
-                });
-            // throw an error if an inferred module cannot be found
-            var missing = new ArrayList<>(inferredLibraries.keySet());
-            missing.removeAll(found);
-            if (!missing.isEmpty()) {
-                throw new RuntimeException("Some dependencies were declared as inferred, but they don't appear in the dependency graph. You must use an explicit version for these : " + missing);
-            }
-        }
+    private static int aliasCount(VersionCatalogConverter.BuilderState builderState) {
+        return builderState.getKnownAliases().size() + builderState.getKnownPluginAliases().size();
+    }
+
+    private static Path siblingFile(Path logFile, String extension) {
+        var fileName = logFile.getFileName().toString();
+        return logFile.resolveSibling(fileName.substring(0, fileName.lastIndexOf('.')) + extension);
     }
 
     private static @NotNull Path prepareLogFile(Project project) {
@@ -570,7 +594,29 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
         return logFile;
     }
 
-    private void makeImportedBOMsLast(Node dependencyManagementDependenciesNode) {
+    /**
+     * Adds the inferred versions to the generated version catalog, which
+     * is generated from the catalog builder before inference runs.
+     */
+    private static final class MergeInferredVersions implements Action<Task> {
+        private final Provider<RegularFile> inferredVersions;
+
+        private MergeInferredVersions(Provider<RegularFile> inferredVersions) {
+            this.inferredVersions = inferredVersions;
+        }
+
+        @Override
+        public void execute(Task task) {
+            try {
+                var versions = InferBomVersionsTask.read(inferredVersions.get().getAsFile().toPath());
+                InferBomVersionsTask.mergeIntoCatalog(task.getOutputs().getFiles().getSingleFile().toPath(), versions);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void makeImportedBOMsLast(Node dependencyManagementDependenciesNode) {
         dependencyManagementDependenciesNode.children().sort((o1, o2) -> {
             var scope1 = childOf((Node) o1, "scope");
             var scope2 = childOf((Node) o2, "scope");
@@ -588,6 +634,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
     }
 
     private void maybeInlineNestedCatalogs(PrintWriter log,
+                                           BomGenerationTrace trace,
                                            Set<ResolvedArtifactResult> catalogs,
                                            Set<ResolvedArtifactResult> bomArtifacts,
                                            VersionCatalogConverter.BuilderState builderState,
@@ -597,8 +644,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
                                            MapProperty<String, Set<String>> inlinedAliases,
                                            Map<String, String> inlinedPomProperties,
                                            List<InlinedDependency> inlinedMavenDependencies,
-                                           // This last argument breaks configuration cache but for now we have no choice :(
-                                           Project p) {
+                                           Function<List<String>, Set<ResolvedArtifactResult>> extraBomsResolver) {
         if (Boolean.TRUE.equals(inlineNestedCatalogs.get())) {
             VersionCatalogBuilder builder = builderState.getBuilder();
             Map<String, VersionCatalogConverter.AliasRecord> knownAliases = builderState.getKnownAliases();
@@ -618,53 +664,61 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
                 .map(mci -> mci.getModuleIdentifier().toString())
                 .collect(Collectors.toSet());
             List<String> extraBomsToResolve = new ArrayList<>();
-            catalogs.forEach(catalogArtifact -> {
-                    var catalogFile = catalogArtifact.getFile();
-                    var excludes = determineExcludes(excludedInlinedAliases, catalogFile);
-                    var includes = inlinedAliases.get().getOrDefault(baseNameOf(catalogFile), Set.of());
-                    var excludedAliases = findRegularEntries(excludes);
-                    var excludedAliasesPrefixes = findWildcardEntries(excludes);
-                    var includeAliases = findRegularEntries(includes);
-                    var includedAliasesPrefixes = findWildcardEntries(includes);
-
-                    performSingleCatalogFileInclusion(
-                        log,
-                        inlinedPomProperties,
-                        catalogFile,
-                        ignoredBomFiles,
-                        includeAliases,
-                        includedAliasesPrefixes,
-                        excludedAliases,
-                        excludedAliasesPrefixes,
-                        knownAliases,
-                        knownVersionAliases,
-                        builder,
-                        knownPluginAliases,
-                        inlinedMavenDependencies,
-                        knownCatalogModules,
-                        extraBomsToResolve);
-                }
-            );
+            // Include and exclude patterns are compiled once per inlined module
+            Map<String, AliasInclusionMatcher> matchers = new HashMap<>();
+            Function<File, AliasInclusionMatcher> matcherForFile = file -> matchers.computeIfAbsent(aliasNormalizer.baseName(file.getName()), baseName -> AliasInclusionMatcher.of(
+                inlinedAliases.get().getOrDefault(baseName, Set.of()),
+                determineExcludes(excludedInlinedAliases, baseName)
+            ));
+            try (var catalogsSpan = trace.start(BomGenerationTrace.PHASE, "Catalogs inlining")) {
+                catalogs.forEach(catalogArtifact -> {
+                        var catalogFile = catalogArtifact.getFile();
+                        try (var span = trace.start(BomGenerationTrace.ARTIFACT, catalogFile.getName())) {
+                            int aliasCount = aliasCount(builderState);
+                            int resolutions = mavenModelResolver.getResolutionCount();
+                            performSingleCatalogFileInclusion(
+                                log,
+                                inlinedPomProperties,
+                                catalogFile,
+                                ignoredBomFiles,
+                                matcherForFile.apply(catalogFile),
+                                knownAliases,
+                                knownVersionAliases,
+                                builder,
+                                knownPluginAliases,
+                                inlinedMavenDependencies,
+                                knownCatalogModules,
+                                extraBomsToResolve);
+                            span.attribute("aliases", aliasCount(builderState) - aliasCount)
+                                .attribute("resolutions", mavenModelResolver.getResolutionCount() - resolutions);
+                        }
+                    }
+                );
+                catalogsSpan.attribute("catalogs", catalogs.size());
+            }
             if (Boolean.TRUE.equals(inlineNestedBOMs.get())) {
                 log.println("Regular BOMs (without version catalog) inlining is enabled");
-                inlineRegularBoms(log, bomArtifacts, excludedInlinedAliases, inlinedAliases, inlinedPomProperties, inlinedMavenDependencies, ignoredBomFiles, knownAliases, knownVersionAliases, builder);
+                try (var span = trace.start(BomGenerationTrace.PHASE, "Regular BOMs inlining")) {
+                    inlineRegularBoms(log, trace, bomArtifacts, matcherForFile, inlinedPomProperties, inlinedMavenDependencies, ignoredBomFiles, knownAliases, knownVersionAliases, builder);
+                    span.attribute("boms", bomArtifacts.size());
+                }
                 if (!extraBomsToResolve.isEmpty()) {
                     log.println("Found the following BOMs to be recursively included: ");
                     extraBomsToResolve.forEach(bom -> log.println("    - " + bom));
-                    var extraBoms = p.getConfigurations().getByName(EXTRA_BOMS_INLINING_CONFIGURATION_NAME);
-                    extraBoms.getDependencies().addAll(extraBomsToResolve.stream()
-                        .map(bom -> p.getDependencies().create(bom + "@pom"))
-                        .toList());
-                    inlineRegularBoms(log, extraBoms.getIncoming().getArtifacts().getArtifacts(), excludedInlinedAliases, inlinedAliases, inlinedPomProperties, inlinedMavenDependencies, ignoredBomFiles, knownAliases, knownVersionAliases,
-                        builder);
+                    try (var span = trace.start(BomGenerationTrace.PHASE, "Extra BOMs inlining")) {
+                        var extraBomArtifacts = extraBomsResolver.apply(extraBomsToResolve);
+                        inlineRegularBoms(log, trace, extraBomArtifacts, matcherForFile, inlinedPomProperties, inlinedMavenDependencies, ignoredBomFiles, knownAliases, knownVersionAliases,
+                            builder);
+                        span.attribute("boms", extraBomArtifacts.size());
+                    }
                 }
             }
 
         }
     }
 
-    private static Set<String> determineExcludes(Provider<Map<String, Set<String>>> excludedInlinedAliases, File catalogFile) {
-        var moduleExcludes = excludedInlinedAliases.get().getOrDefault(baseNameOf(catalogFile), Set.of());
+    private static Set<String> determineExcludes(Provider<Map<String, Set<String>>> excludedInlinedAliases, String baseName) {
+        var moduleExcludes = excludedInlinedAliases.get().getOrDefault(baseName, Set.of());
         var starExcludes = excludedInlinedAliases.get().getOrDefault("*", Set.of());
         return Stream.concat(
                 moduleExcludes.stream(),
@@ -674,53 +728,110 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
     }
 
     private void inlineRegularBoms(PrintWriter log,
+                                   BomGenerationTrace trace,
                                    Set<ResolvedArtifactResult> bomArtifacts,
-                                   Provider<Map<String, Set<String>>> excludedInlinedAliases,
-                                   MapProperty<String, Set<String>> inlinedAliases,
+                                   Function<File, AliasInclusionMatcher> matcherForFile,
                                    Map<String, String> inlinedPomProperties,
                                    List<InlinedDependency> inlinedMavenDependencies,
                                    Set<String> ignoredBomFiles,
                                    Map<String, VersionCatalogConverter.AliasRecord> knownAliases,
                                    Map<String, VersionCatalogConverter.AliasRecord> knownVersionAliases,
                                    VersionCatalogBuilder builder) {
+        var bomFilesToInline = bomArtifacts.stream()
+            .map(ResolvedArtifactResult::getFile)
+            .filter(f -> !ignoredBomFiles.contains(f.getName()))
+            .toList();
+        // Parents and imported BOMs are resolved in batch, instead of once per model builder lookup
+        try (var span = trace.start(BomGenerationTrace.PHASE, "POM prefetching")) {
+            int resolutions = mavenModelResolver.getResolutionCount();
+            mavenModelResolver.prefetch(bomFilesToInline);
+            span.attribute("resolutions", mavenModelResolver.getResolutionCount() - resolutions);
+        }
+        // Effective models are independent of each other, so they are computed in parallel,
+        // but they are merged into the catalog sequentially, in order, below
+        Map<File, EffectiveBom> effectiveModels;
+        try (var span = trace.start(BomGenerationTrace.PHASE, "Effective models")) {
+            int resolutions = mavenModelResolver.getResolutionCount();
+            effectiveModels = computeEffectiveModels(trace, bomFilesToInline);
+            span.attribute("resolutions", mavenModelResolver.getResolutionCount() - resolutions);
+        }
         bomArtifacts.forEach(bomArtifact -> {
             var bomFile = bomArtifact.getFile();
-            var excludes = determineExcludes(excludedInlinedAliases, bomFile);
-            var includes = inlinedAliases.get().getOrDefault(baseNameOf(bomFile), Set.of());
-            Set<String> excludedAliases = findRegularEntries(excludes);
-            Set<String> excludedAliasesPrefixes = findWildcardEntries(excludes);
-            Set<String> includeAliases = findRegularEntries(includes);
-            Set<String> includedAliasesPrefixes = findWildcardEntries(includes);
-
-            performNestedBomsInclusion(log, bomFile, includeAliases, includedAliasesPrefixes, excludedAliases, excludedAliasesPrefixes, ignoredBomFiles, knownAliases, knownVersionAliases, builder, inlinedMavenDependencies, inlinedPomProperties);
+            try (var span = trace.start(BomGenerationTrace.ARTIFACT, bomFile.getName())) {
+                int aliasCount = knownAliases.size();
+                int resolutions = mavenModelResolver.getResolutionCount();
+                performNestedBomsInclusion(log, bomFile, effectiveModels.get(bomFile), matcherForFile.apply(bomFile), ignoredBomFiles, knownAliases, knownVersionAliases, builder, inlinedMavenDependencies, inlinedPomProperties);
+                span.attribute("aliases", knownAliases.size() - aliasCount)
+                    .attribute("resolutions", mavenModelResolver.getResolutionCount() - resolutions);
+            }
         });
     }
 
-    private static @NotNull Set<String> findWildcardEntries(Set<String> excludes) {
-        return excludes.stream().filter(a -> a.endsWith("*")).map(a -> a.substring(0, a.length() - 1)).collect(Collectors.toSet());
-    }
-
-    private static Set<String> findRegularEntries(Set<String> items) {
-        return items.stream().filter(a -> !a.endsWith("*")).collect(Collectors.toSet());
+    private Map<File, EffectiveBom> computeEffectiveModels(BomGenerationTrace trace, List<File> bomFiles) {
+        if (bomFiles.isEmpty()) {
+            return Map.of();
+        }
+        var cachedOnlyResolver = mavenModelResolver.cachedOnly();
+        var executor = Executors.newFixedThreadPool(Math.min(bomFiles.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            var futures = new LinkedHashMap<File, Future<EffectiveBom>>();
+            for (File bomFile : bomFiles) {
+                futures.put(bomFile, executor.submit(() -> computeEffectiveModel(trace, bomFile, cachedOnlyResolver)));
+            }
+            var result = new HashMap<File, EffectiveBom>();
+            for (var entry : futures.entrySet()) {
+                var effectiveBom = entry.getValue().get();
+                if (effectiveBom.failure() != null) {
+                    // The model may need POM files which couldn't be prefetched, and
+                    // these can only be resolved from the thread managed by Gradle
+                    effectiveBom = computeEffectiveModel(trace, entry.getKey(), mavenModelResolver);
+                }
+                result.put(entry.getKey(), effectiveBom);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private static String baseNameOf(File file) {
-        var matcher = BASENAME_EXTRACTOR.matcher(file.getName());
-        var baseName = file.getName();
-        if (matcher.find()) {
-            baseName = matcher.group(1);
+    private EffectiveBom computeEffectiveModel(BomGenerationTrace trace, File bomFile, ModelResolver resolver) {
+        var request = new DefaultModelBuildingRequest();
+        request.setProcessPlugins(false);
+        request.setPomFile(bomFile);
+        request.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
+        request.setModelResolver(resolver);
+        try (var span = trace.start(BomGenerationTrace.MODEL, bomFile.getName())) {
+            // Parallel computations use a cached only resolver, so the count only
+            // changes when the model is computed again from the Gradle thread
+            int resolutions = mavenModelResolver.getResolutionCount();
+            try {
+                var model = createMavenModelBuilder().build(request).getEffectiveModel();
+                var entries = model.getDependencyManagement()
+                    .getDependencies()
+                    .stream()
+                    .map(dep -> new BomEntry(aliasNormalizer.alias(dep.getArtifactId()), dep.getGroupId(), dep.getArtifactId(), dep.getVersion()))
+                    .toList();
+                span.attribute("entries", entries.size())
+                    .attribute("resolutions", mavenModelResolver.getResolutionCount() - resolutions);
+                return new EffectiveBom(entries, null);
+            } catch (ModelBuildingException e) {
+                span.attribute("failure", e.getMessage())
+                    .attribute("resolutions", mavenModelResolver.getResolutionCount() - resolutions);
+                return new EffectiveBom(List.of(), e);
+            }
         }
-        return baseName;
     }
 
     private static void performSingleCatalogFileInclusion(PrintWriter log,
                                                           Map<String, String> inlinedPomProperties,
                                                           File catalogFile,
                                                           Set<String> ignoredBomFiles,
-                                                          Set<String> includeAliases,
-                                                          Set<String> includeAliasesPrefixes,
-                                                          Set<String> excludeFromInlining,
-                                                          Set<String> excludeFromInliningPrefixes,
+                                                          AliasInclusionMatcher inclusionMatcher,
                                                           Map<String, VersionCatalogConverter.AliasRecord> knownAliases,
                                                           Map<String, VersionCatalogConverter.AliasRecord> knownVersionAliases,
                                                           VersionCatalogBuilder builder,
@@ -740,10 +851,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
             performLibrariesInlining(log,
                 catalogFile.getName(),
                 inlinedPomProperties,
-                includeAliases,
-                includeAliasesPrefixes,
-                excludeFromInlining,
-                excludeFromInliningPrefixes,
+                inclusionMatcher,
                 knownAliases,
                 knownVersionAliases,
                 builder,
@@ -756,10 +864,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
             performPluginsInlining(log,
                 catalogFile.getName(),
                 inlinedPomProperties,
-                includeAliases,
-                includeAliasesPrefixes,
-                excludeFromInlining,
-                excludeFromInliningPrefixes,
+                inclusionMatcher,
                 knownVersionAliases,
                 builder,
                 knownPluginAliases,
@@ -774,10 +879,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
     private static void performLibrariesInlining(PrintWriter log,
                                                  String catalogName,
                                                  Map<String, String> inlinedPomProperties,
-                                                 Set<String> includeAliases,
-                                                 Set<String> includeAliasesPrefixes,
-                                                 Set<String> excludeFromInlining,
-                                                 Set<String> excludeFromInliningPrefixes,
+                                                 AliasInclusionMatcher inclusionMatcher,
                                                  Map<String, VersionCatalogConverter.AliasRecord> knownAliases,
                                                  Map<String, VersionCatalogConverter.AliasRecord> knownVersionAliases,
                                                  VersionCatalogBuilder builder,
@@ -789,7 +891,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
                                                  List<String> extraBomsToResolve) {
         librariesTable.forEach(library -> {
             String alias = library.getAlias();
-            var includeExcludeReason = shouldInclude(alias, includeAliases, includeAliasesPrefixes, excludeFromInlining, excludeFromInliningPrefixes);
+            var includeExcludeReason = inclusionMatcher.match(alias);
             if (includeExcludeReason.included()) {
                 if (!knownAliases.containsKey(alias)) {
                     String reference = library.getVersion().getReference();
@@ -845,10 +947,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
     private static void performPluginsInlining(PrintWriter log,
                                                String catalogName,
                                                Map<String, String> inlinedPomProperties,
-                                               Set<String> includeAliases,
-                                               Set<String> includeAliasesPrefixes,
-                                               Set<String> excludeFromInlining,
-                                               Set<String> excludeFromInliningPrefixes,
+                                               AliasInclusionMatcher inclusionMatcher,
                                                Map<String, VersionCatalogConverter.AliasRecord> knownVersionAliases,
                                                VersionCatalogBuilder builder,
                                                Map<String, VersionCatalogConverter.AliasRecord> knownPluginAliases,
@@ -857,7 +956,7 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
                                                String source) {
         pluginsTable.forEach(plugin -> {
             String alias = plugin.alias();
-            var includeExcludeReason = shouldInclude(alias, includeAliases, includeAliasesPrefixes, excludeFromInlining, excludeFromInliningPrefixes);
+            var includeExcludeReason = inclusionMatcher.match(alias);
             if (includeExcludeReason.included()) {
                 if (!knownPluginAliases.containsKey(alias)) {
                     String reference = plugin.version().getReference();
@@ -898,10 +997,8 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
 
     private void performNestedBomsInclusion(PrintWriter log,
                                             File bomFile,
-                                            Set<String> includeAliases,
-                                            Set<String> includeAliasesPrefixes,
-                                            Set<String> excludeFromInlining,
-                                            Set<String> excludeFromInliningPrefixes,
+                                            EffectiveBom effectiveBom,
+                                            AliasInclusionMatcher inclusionMatcher,
                                             Set<String> ignoredBomFiles,
                                             Map<String, VersionCatalogConverter.AliasRecord> knownAliases,
                                             Map<String, VersionCatalogConverter.AliasRecord> knownVersionAliases,
@@ -912,116 +1009,50 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
         var bomFileName = bomFile.getName();
         if (!ignoredBomFiles.contains(bomFileName)) {
             log.println("Inlining external BOM: " + bomFileName);
-            var request = new DefaultModelBuildingRequest();
-            request.setProcessPlugins(false);
-            request.setPomFile(bomFile);
-            request.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
-            request.setModelResolver(mavenModelResolver);
-            try {
-                var knownAliasesSnakeCase = knownAliases.keySet()
-                    .stream()
-                    .map(MicronautBomPlugin::convertToAlias)
-                    .collect(Collectors.toSet());
-                var knownVersionAliasesSnakeCase = knownVersionAliases.keySet()
-                    .stream()
-                    .map(MicronautBomPlugin::convertToAlias)
-                    .collect(Collectors.toSet());
-                var modelBuilder = createMavenModelBuilder();
-                var model = modelBuilder.build(request).getEffectiveModel();
-                model.getDependencyManagement()
-                    .getDependencies()
-                    .forEach(dep -> {
-                        var alias = convertToAlias(dep.getArtifactId());
-                        var includeExcludeReason = shouldInclude(alias, includeAliases, includeAliasesPrefixes, excludeFromInlining, excludeFromInliningPrefixes);
-                        if (includeExcludeReason.included()) {
-                            if (knownAliasesSnakeCase.contains(alias) || knownAliases.containsKey(alias)) {
-                                maybeWarn(knownAliases, alias, bomFileName);
-                            } else {
-                                if (knownVersionAliasesSnakeCase.contains(alias)) {
-                                    maybeWarn(knownVersionAliases, alias, bomFileName);
-                                } else {
-                                    builder.library(alias, dep.getGroupId(), dep.getArtifactId())
-                                        .versionRef(alias);
-                                    builder.version(alias, dep.getVersion());
-                                    knownAliases.get(alias).addSource(bomFileName);
-                                    knownVersionAliases.get(alias).addSource(bomFileName);
-                                    var versionProperty = toPropertyName(alias) + ".version";
-                                    inlinedMavenDependencies.add(new InlinedDependency(dep.getGroupId(), dep.getArtifactId(), versionProperty));
-                                    inlinedPomProperties.putIfAbsent(toPropertyName(alias), dep.getVersion());
-                                    log.println("    [" + bomFileName + "] Inlining " + alias + " because " + includeExcludeReason.reason());
-                                }
-                            }
+            if (effectiveBom.failure() != null) {
+                log.println("Unable to inline POM file " + bomFile + ": " + effectiveBom.failure().getMessage());
+                return;
+            }
+            var knownAliasesSnakeCase = knownAliases.keySet()
+                .stream()
+                .map(aliasNormalizer::alias)
+                .collect(Collectors.toSet());
+            var knownVersionAliasesSnakeCase = knownVersionAliases.keySet()
+                .stream()
+                .map(aliasNormalizer::alias)
+                .collect(Collectors.toSet());
+            effectiveBom.entries().forEach(dep -> {
+                var alias = dep.alias();
+                var includeExcludeReason = inclusionMatcher.match(alias);
+                if (includeExcludeReason.included()) {
+                    if (knownAliasesSnakeCase.contains(alias) || knownAliases.containsKey(alias)) {
+                        maybeWarn(knownAliases, alias, bomFileName);
+                    } else {
+                        if (knownVersionAliasesSnakeCase.contains(alias)) {
+                            maybeWarn(knownVersionAliases, alias, bomFileName);
                         } else {
-                            log.println("    [" + bomFileName + "] Excluding " + alias + " from regular BOM inlining because " + includeExcludeReason.reason());
+                            builder.library(alias, dep.groupId(), dep.artifactId())
+                                .versionRef(alias);
+                            builder.version(alias, dep.version());
+                            knownAliases.get(alias).addSource(bomFileName);
+                            knownVersionAliases.get(alias).addSource(bomFileName);
+                            var propertyName = aliasNormalizer.propertyName(alias);
+                            inlinedMavenDependencies.add(new InlinedDependency(dep.groupId(), dep.artifactId(), propertyName + ".version"));
+                            inlinedPomProperties.putIfAbsent(propertyName, dep.version());
+                            log.println("    [" + bomFileName + "] Inlining " + alias + " because " + includeExcludeReason.reason());
                         }
-                    });
-            } catch (ModelBuildingException e) {
-                log.println("Unable to inline POM file " + bomFile + ": " + e.getMessage());
-            }
-        } else {
-            log.println("Ignoring BOM file: " + bomFileName + " because we've already found a catalog for it");
-        }
-    }
-
-    private static IncludeExcludeReason shouldInclude(String alias, Set<String> included, Set<String> includedPrefixes, Set<String> excluded, Set<String> excludePrefixes) {
-        if (included.isEmpty() && excluded.isEmpty() && includedPrefixes.isEmpty() && excludePrefixes.isEmpty()) {
-            return new IncludeExcludeReason(true, "no include or exclude pattern provided");
-        }
-        if (included.isEmpty() && includedPrefixes.isEmpty()) {
-            if (excluded.contains(alias)) {
-                return new IncludeExcludeReason(false, "alias is explicitly excluded.");
-            }
-            for (String prefix : excludePrefixes) {
-                if (alias.startsWith(prefix)) {
-                    return new IncludeExcludeReason(false, "alias matches excluded prefix: " + prefix);
-                }
-            }
-            return new IncludeExcludeReason(true, "alias is not explicitly excluded and does not match any excluded prefix.");
-        }
-
-        if (included.contains(alias)) {
-            if (excluded.contains(alias)) {
-                return new IncludeExcludeReason(false, "alias is explicitly included but also explicitly excluded.");
-            }
-            for (String prefix : excludePrefixes) {
-                if (alias.startsWith(prefix)) {
-                    return new IncludeExcludeReason(false, "alias is explicitly included but matches excluded prefix: " + prefix);
-                }
-            }
-            return new IncludeExcludeReason(true, "alias is explicitly included.");
-        }
-
-        for (String prefix : includedPrefixes) {
-            if (alias.startsWith(prefix)) {
-                if (excluded.contains(alias)) {
-                    return new IncludeExcludeReason(false, "alias matches included prefix: " + prefix + " but is also explicitly excluded.");
-                }
-                for (String excludePrefix : excludePrefixes) {
-                    if (alias.startsWith(excludePrefix)) {
-                        return new IncludeExcludeReason(false, "alias matches included prefix: " + prefix + " but also matches excluded prefix: " + excludePrefix);
                     }
+                } else {
+                    log.println("    [" + bomFileName + "] Excluding " + alias + " from regular BOM inlining because " + includeExcludeReason.reason());
                 }
-                return new IncludeExcludeReason(true, "alias matches included prefix: " + prefix);
-            }
-        }
-
-        if (excluded.contains(alias)) {
-            return new IncludeExcludeReason(false, "alias is explicitly excluded.");
-        }
-        for (String prefix : excludePrefixes) {
-            if (alias.startsWith(prefix)) {
-                return new IncludeExcludeReason(false, "alias matches excluded prefix: " + prefix);
-            }
+            });
+        } else {
+            log.println("Ignoring BOM file: " + bomFileName + " because we've already found a catalog for it");
         }
-
-        return new IncludeExcludeReason(false, "alias is not included and does not match any included prefix.");
     }
 
-
     public static String convertToAlias(String artifactId) {
-        return artifactId.replaceAll("[^a-zA-Z0-9-]", "-")
-            .replaceAll("([a-z])([A-Z]+)", "$1-$2")
-            .toLowerCase();
+        return AliasNormalizer.toAlias(artifactId);
     }
 
     private ModelBuilder createMavenModelBuilder() {
@@ -1094,6 +1125,9 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
         });
         // Add a convenience task to so that we can run `checkPom` and it will run `checkBom` as well
         project.getTasks().register("checkPom", task -> task.dependsOn(checkBom));
+        PomCheckerUtils.registerMultiRootPomChecker("checkBoms", project, publishing, task -> {
+            task.getSuppressions().convention(bomExtension.getSuppressions());
+        });
     }
 
     private static Optional<VersionCatalog> findVersionCatalog(Project project, MicronautBomExtension bomExtension) {
@@ -1178,10 +1212,20 @@ public abstract class MicronautBomPlugin implements MicronautPlugin<Project> {
 
     }
 
-    private record IncludeExcludeReason(
-        boolean included,
-        String reason
+    private record EffectiveBom(
+        List<BomEntry> entries,
+        ModelBuildingException failure
+    ) {
+
+    }
+
+    private record BomEntry(
+        String alias,
+        String groupId,
+        String artifactId,
+        String version
     ) {
 
     }
+
 }
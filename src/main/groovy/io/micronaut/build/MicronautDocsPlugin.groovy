@@ -1,5 +1,6 @@
 package io.micronaut.build
 
+import io.micronaut.build.docs.AsciidoctorService
 import io.micronaut.build.docs.ConfigurationPropertiesPlugin
 import io.micronaut.build.docs.CreateReleasesDropdownTask
 import io.micronaut.build.docs.JavadocAggregatorPlugin
@@ -98,9 +99,13 @@ abstract class MicronautDocsPlugin implements Plugin<Project> {
                 into(processConfigPropsOutputDir)
             }
 
+            def asciidoctorService = AsciidoctorService.registerOn(project)
+
             def publishGuide = tasks.register('publishGuide', PublishGuideTask) {
                 group = DOCUMENTATION_GROUP
                 description = 'Generate Guide'
+                usesService(asciidoctorService)
+                it.asciidoctorService = asciidoctorService
 
                 def kafkaVersion = rootProject.hasProperty('kafkaVersion') ? rootProject.properties['kafkaVersion'] : 'N/A'
 
@@ -143,6 +148,8 @@ abstract class MicronautDocsPlugin implements Plugin<Project> {
             }
 
             tasks.register('publishConfigurationReference', PublishConfigurationReferenceTask) { task ->
+                task.usesService(asciidoctorService)
+                task.asciidoctorService = asciidoctorService
                 propertyReferenceFile = mergeConfigurationReference.flatMap { it.outputFile }
                 destinationFile = layout.buildDir.file("working/03-property-ref/html/${CONFIGURATION_REFERENCE_HTML}")
                 version = projectVersion
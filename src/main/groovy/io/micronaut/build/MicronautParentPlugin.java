@@ -28,5 +28,6 @@ public class MicronautParentPlugin implements Plugin<Project> {
         pluginManager.apply("io.micronaut.build.internal.docs");
         pluginManager.apply("io.micronaut.build.internal.quality-reporting");
         pluginManager.apply("io.micronaut.build.internal.parent-pulishing");
+        pluginManager.apply("io.micronaut.build.internal.binary-compatibility-report");
     }
 }
@@ -1,10 +1,21 @@
 package io.micronaut.build;
 
 import io.github.gradlenexus.publishplugin.InitializeNexusStagingRepository;
+import io.micronaut.build.compat.ApiFingerprint;
+import io.micronaut.build.compat.ApiFingerprintTask;
 import io.micronaut.build.utils.ProviderUtils;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.attributes.Bundling;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.DocsType;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.component.AdhocComponentWithVariants;
+import org.gradle.api.component.ConfigurationVariantDetails;
 import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.plugins.ExtraPropertiesExtension;
 import org.gradle.api.plugins.JavaPluginExtension;
@@ -16,6 +27,7 @@ import org.gradle.api.publish.VariantVersionMappingStrategy;
 import org.gradle.api.publish.maven.MavenPublication;
 import org.gradle.api.publish.maven.plugins.MavenPublishPlugin;
 import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.bundling.Jar;
 import org.gradle.api.tasks.javadoc.Javadoc;
 import org.gradle.plugins.signing.Sign;
@@ -34,6 +46,7 @@ import static io.micronaut.build.MicronautPlugin.moduleNameOf;
  * Micronaut internal Gradle plugin. Not intended to be used in user's projects.
  */
 public abstract class MicronautPublishingPlugin implements Plugin<Project> {
+    public static final String API_FINGERPRINT_TASK_NAME = "apiFingerprint";
     private static final String[] EXTRA_JAR_TASKS = {"javadocJar", "sourcesJar"};
     private static final Set<String> JARS_TO_EMBED_POM = new HashSet<>(Arrays.asList("jar", "shadowJar"));
 
@@ -148,6 +161,8 @@ public abstract class MicronautPublishingPlugin implements Plugin<Project> {
                 });
             });
 
+            plugins.withPlugin("java", unused -> configureApiFingerprint(project));
+
             // Include a pom.xml file into the jar
             // so that automated vulnerability scanners are happy
             tasks.withType(Jar.class).configureEach(jar -> {
@@ -188,6 +203,59 @@ public abstract class MicronautPublishingPlugin implements Plugin<Project> {
         }
     }
 
+    /**
+     * Publishes the API fingerprint of the module as an optional variant
+     * of the Java component, so that the binary compatibility of the next
+     * versions can be checked without downloading the jar and its
+     * dependencies.
+     */
+    private static void configureApiFingerprint(Project project) {
+        ObjectFactory objects = project.getObjects();
+        TaskProvider<ApiFingerprintTask> fingerprintTask = registerApiFingerprintTask(project);
+        Configuration fingerprintElements = project.getConfigurations().create("apiFingerprintElements", conf -> {
+            conf.setCanBeConsumed(true);
+            conf.setCanBeResolved(false);
+            conf.attributes(attrs -> {
+                attrs.attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.class, Usage.JAVA_RUNTIME));
+                attrs.attribute(Category.CATEGORY_ATTRIBUTE, objects.named(Category.class, Category.DOCUMENTATION));
+                attrs.attribute(Bundling.BUNDLING_ATTRIBUTE, objects.named(Bundling.class, Bundling.EXTERNAL));
+                attrs.attribute(DocsType.DOCS_TYPE_ATTRIBUTE, objects.named(DocsType.class, ApiFingerprint.CLASSIFIER));
+            });
+            conf.getOutgoing().artifact(fingerprintTask.flatMap(ApiFingerprintTask::getFingerprint), artifact -> {
+                artifact.setClassifier(ApiFingerprint.CLASSIFIER);
+                artifact.setExtension(ApiFingerprint.EXTENSION);
+            });
+        });
+        AdhocComponentWithVariants java = (AdhocComponentWithVariants) project.getComponents().getByName("java");
+        java.addVariantsFromConfiguration(fingerprintElements, ConfigurationVariantDetails::mapToOptional);
+    }
+
+    /**
+     * Registers the task which generates the API fingerprint of the jar
+     * of a module. The fingerprint of modules which aren't published is
+     * still used to check their binary compatibility.
+     * @param project the project
+     * @return the fingerprint task
+     */
+    public static TaskProvider<ApiFingerprintTask> registerApiFingerprintTask(Project project) {
+        TaskContainer tasks = project.getTasks();
+        TaskProvider<ApiFingerprintTask> fingerprintTask = tasks.register(API_FINGERPRINT_TASK_NAME, ApiFingerprintTask.class, task -> {
+            task.setDescription("Generates the public API fingerprint of this module");
+            task.getFingerprint().convention(project.getLayout().getBuildDirectory().file(
+                "api-fingerprint/" + moduleNameOf(project.getName()) + "-" + ApiFingerprint.CLASSIFIER + "." + ApiFingerprint.EXTENSION
+            ));
+        });
+        project.afterEvaluate(p -> {
+            Task jar = tasks.findByName("shadowJar");
+            if (jar == null) {
+                jar = tasks.getByName("jar");
+            }
+            Task effectiveJar = jar;
+            fingerprintTask.configure(task -> task.getArchives().from(effectiveJar));
+        });
+        return fingerprintTask;
+    }
+
     private static boolean isPublishingDisabledFor(Project project) {
         Object p = project.findProperty("micronautPublish");
         // add option to skip publishing
@@ -15,21 +15,57 @@
  */
 package io.micronaut.build;
 
+import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
 import org.apache.maven.model.Repository;
 import org.apache.maven.model.building.FileModelSource;
 import org.apache.maven.model.building.ModelSource;
+import org.apache.maven.model.io.DefaultModelReader;
 import org.apache.maven.model.resolution.InvalidRepositoryException;
 import org.apache.maven.model.resolution.ModelResolver;
 import org.apache.maven.model.resolution.UnresolvableModelException;
 import org.gradle.api.artifacts.ConfigurationContainer;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * A Maven model resolver which resolves POM files using Gradle
+ * dependency resolution.
+ *
+ * In order to avoid paying the cost of a detached configuration
+ * resolution for every parent or imported BOM that the Maven model
+ * builder asks for, the POM files which are reachable from a set
+ * of BOMs can be {@link #prefetch(Collection) prefetched} in a few
+ * batched resolutions. Lookups are then served from memory, and
+ * a single POM resolution is only performed on a miss.
+ */
 class SimpleMavenModelResolver implements ModelResolver {
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+    private static final int MAX_INTERPOLATION_DEPTH = 10;
+
     private final ConfigurationContainer configurations;
     private final DependencyHandler dependencies;
+    private final Map<String, File> resolvedPoms = new ConcurrentHashMap<>();
+    private final Set<String> prefetchedModels = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger resolutionCount = new AtomicInteger();
 
     SimpleMavenModelResolver(ConfigurationContainer configurations, DependencyHandler dependencies) {
         this.configurations = configurations;
@@ -37,10 +73,201 @@ class SimpleMavenModelResolver implements ModelResolver {
     }
 
     private File resolvePomFile(String groupId, String artifactId, String version, String classifier) {
-        var conf = configurations.detachedConfiguration();
         var classy = classifier == null ? "" : (":" + classifier);
-        conf.getDependencies().add(dependencies.create(groupId + ":" + artifactId + ":" + version + classy + "@pom"));
-        return conf.getSingleFile();
+        var coordinates = groupId + ":" + artifactId + ":" + version + classy;
+        var pomFile = resolvedPoms.get(coordinates);
+        if (pomFile != null) {
+            return pomFile;
+        }
+        var conf = configurations.detachedConfiguration();
+        conf.getDependencies().add(dependencies.create(coordinates + "@pom"));
+        resolutionCount.incrementAndGet();
+        pomFile = conf.getSingleFile();
+        resolvedPoms.put(coordinates, pomFile);
+        return pomFile;
+    }
+
+    /**
+     * Returns the number of detached configurations resolved so far,
+     * either for a batch or for a single POM file.
+     *
+     * @return the number of resolutions
+     */
+    int getResolutionCount() {
+        return resolutionCount.get();
+    }
+
+    /**
+     * Returns a resolver which only serves POM files which have already been
+     * resolved by this resolver, and fails on a miss. Unlike this resolver,
+     * it is safe to use from threads which are not managed by Gradle.
+     *
+     * @return a resolver backed by the already resolved POM files
+     */
+    ModelResolver cachedOnly() {
+        return new CachedOnlyModelResolver();
+    }
+
+    /**
+     * Prefetches all the POM files which are reachable from the supplied
+     * POM files, that is to say their parents and the BOMs they import,
+     * transitively. Each level of the graph is resolved in as few detached
+     * configurations as possible: since Gradle would perform conflict
+     * resolution between several versions of the same module, each batch
+     * contains at most one version of a given module.
+     * Coordinates which cannot be determined statically (for example because
+     * they use a property defined in a parent POM) are not prefetched, and
+     * will be resolved individually if the model builder asks for them.
+     *
+     * @param pomFiles the POM files to start from
+     */
+    void prefetch(Collection<File> pomFiles) {
+        var toVisit = new ArrayList<>(pomFiles);
+        while (!toVisit.isEmpty()) {
+            var missing = new LinkedHashSet<String>();
+            for (File pomFile : toVisit) {
+                for (String coordinates : referencedModelsOf(pomFile)) {
+                    if (prefetchedModels.add(coordinates) && !resolvedPoms.containsKey(coordinates)) {
+                        missing.add(coordinates);
+                    }
+                }
+            }
+            toVisit = new ArrayList<>();
+            for (List<String> batch : partitionByModule(missing)) {
+                toVisit.addAll(resolveBatch(batch));
+            }
+        }
+    }
+
+    private List<File> resolveBatch(List<String> batch) {
+        var conf = configurations.detachedConfiguration();
+        // A batch contains at most one version of each module, so that the
+        // resolved artifacts can be mapped back to the requested coordinates,
+        // which may differ from the resolved ones (e.g. for version ranges)
+        var requestedByModule = new HashMap<String, String>();
+        for (String coordinates : batch) {
+            requestedByModule.put(moduleOf(coordinates), coordinates);
+            conf.getDependencies().add(dependencies.create(coordinates + "@pom"));
+        }
+        resolutionCount.incrementAndGet();
+        var artifacts = conf.getIncoming()
+            .artifactView(spec -> spec.lenient(true))
+            .getArtifacts()
+            .getArtifacts();
+        var files = new ArrayList<File>(artifacts.size());
+        for (ResolvedArtifactResult artifact : artifacts) {
+            if (artifact.getId().getComponentIdentifier() instanceof ModuleComponentIdentifier mci) {
+                var module = mci.getGroup() + ":" + mci.getModule();
+                var requested = requestedByModule.getOrDefault(module, module + ":" + mci.getVersion());
+                resolvedPoms.put(requested, artifact.getFile());
+                files.add(artifact.getFile());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Splits coordinates into batches which contain at most one version
+     * of each module, preserving their order.
+     */
+    static List<List<String>> partitionByModule(Set<String> coordinates) {
+        var batches = new ArrayList<List<String>>();
+        var modulesPerBatch = new ArrayList<Set<String>>();
+        for (String gav : coordinates) {
+            var module = moduleOf(gav);
+            int i = 0;
+            while (i < batches.size() && modulesPerBatch.get(i).contains(module)) {
+                i++;
+            }
+            if (i == batches.size()) {
+                batches.add(new ArrayList<>());
+                modulesPerBatch.add(new HashSet<>());
+            }
+            batches.get(i).add(gav);
+            modulesPerBatch.get(i).add(module);
+        }
+        return batches;
+    }
+
+    private static String moduleOf(String coordinates) {
+        return coordinates.substring(0, coordinates.lastIndexOf(':'));
+    }
+
+    private static Set<String> referencedModelsOf(File pomFile) {
+        Model model;
+        try {
+            model = new DefaultModelReader().read(pomFile, Map.of());
+        } catch (IOException e) {
+            // Unreadable POMs will be reported by the model builder
+            return Set.of();
+        }
+        var result = new LinkedHashSet<String>();
+        var properties = propertiesOf(model);
+        var parent = model.getParent();
+        if (parent != null) {
+            addIfResolved(result, properties, parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+        }
+        var dependencyManagement = model.getDependencyManagement();
+        if (dependencyManagement != null) {
+            dependencyManagement.getDependencies()
+                .stream()
+                .filter(dep -> "import".equals(dep.getScope()) && "pom".equals(dep.getType()))
+                .forEach(dep -> addIfResolved(result, properties, dep.getGroupId(), dep.getArtifactId(), dep.getVersion()));
+        }
+        return result;
+    }
+
+    private static Map<String, String> propertiesOf(Model model) {
+        var properties = new LinkedHashMap<String, String>();
+        Properties modelProperties = model.getProperties();
+        modelProperties.stringPropertyNames().forEach(name -> properties.put(name, modelProperties.getProperty(name)));
+        var parent = model.getParent();
+        var groupId = model.getGroupId() != null ? model.getGroupId() : (parent != null ? parent.getGroupId() : null);
+        var version = model.getVersion() != null ? model.getVersion() : (parent != null ? parent.getVersion() : null);
+        putIfNotNull(properties, "project.groupId", groupId);
+        putIfNotNull(properties, "project.artifactId", model.getArtifactId());
+        putIfNotNull(properties, "project.version", version);
+        if (parent != null) {
+            putIfNotNull(properties, "project.parent.groupId", parent.getGroupId());
+            putIfNotNull(properties, "project.parent.version", parent.getVersion());
+        }
+        return properties;
+    }
+
+    private static void putIfNotNull(Map<String, String> properties, String key, String value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    private static void addIfResolved(Set<String> result, Map<String, String> properties, String groupId, String artifactId, String version) {
+        var g = interpolate(groupId, properties);
+        var a = interpolate(artifactId, properties);
+        var v = interpolate(version, properties);
+        if (g != null && a != null && v != null) {
+            result.add(g + ":" + a + ":" + v);
+        }
+    }
+
+    private static String interpolate(String value, Map<String, String> properties) {
+        if (value == null) {
+            return null;
+        }
+        var current = value;
+        for (int i = 0; i < MAX_INTERPOLATION_DEPTH && current.contains("${"); i++) {
+            Matcher matcher = PROPERTY_REFERENCE.matcher(current);
+            var sb = new StringBuilder();
+            while (matcher.find()) {
+                var replacement = properties.get(matcher.group(1));
+                if (replacement == null) {
+                    return null;
+                }
+                matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+            }
+            matcher.appendTail(sb);
+            current = sb.toString();
+        }
+        return current.contains("${") ? null : current;
     }
 
     @Override
@@ -74,4 +301,45 @@ class SimpleMavenModelResolver implements ModelResolver {
     public ModelResolver newCopy() {
         return this;
     }
+
+    private final class CachedOnlyModelResolver implements ModelResolver {
+        private ModelSource cachedModel(String groupId, String artifactId, String version, String classifier) throws UnresolvableModelException {
+            var classy = classifier == null ? "" : (":" + classifier);
+            var pomFile = resolvedPoms.get(groupId + ":" + artifactId + ":" + version + classy);
+            if (pomFile == null) {
+                throw new UnresolvableModelException("POM file wasn't prefetched", groupId, artifactId, version);
+            }
+            return new FileModelSource(pomFile);
+        }
+
+        @Override
+        public ModelSource resolveModel(String groupId, String artifactId, String version) throws UnresolvableModelException {
+            return cachedModel(groupId, artifactId, version, null);
+        }
+
+        @Override
+        public ModelSource resolveModel(Parent parent) throws UnresolvableModelException {
+            return cachedModel(parent.getGroupId(), parent.getArtifactId(), parent.getVersion(), null);
+        }
+
+        @Override
+        public ModelSource resolveModel(org.apache.maven.model.Dependency dependency) throws UnresolvableModelException {
+            return cachedModel(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion(), dependency.getClassifier());
+        }
+
+        @Override
+        public void addRepository(Repository repository) throws InvalidRepositoryException {
+
+        }
+
+        @Override
+        public void addRepository(Repository repository, boolean b) throws InvalidRepositoryException {
+
+        }
+
+        @Override
+        public ModelResolver newCopy() {
+            return this;
+        }
+    }
 }
@@ -16,11 +16,13 @@
 package io.micronaut.build.compat;
 
 import java.io.Serializable;
+import java.util.regex.Pattern;
 
 public class AcceptedApiChange implements Serializable {
     private final String type;
     private final String member;
     private final String reason;
+    private transient Pattern memberPattern;
 
     public AcceptedApiChange(String type, String member, String reason) {
         this.type = type;
@@ -28,8 +30,44 @@ public class AcceptedApiChange implements Serializable {
         this.reason = reason;
     }
 
+    /**
+     * Returns true if the member of this change is a pattern, where
+     * {@code *} matches any sequence of characters, for example
+     * {@code Method io.micronaut.foo.Bar.*}.
+     * @return true if the member is a pattern
+     */
+    public boolean isPattern() {
+        return member.indexOf('*') >= 0;
+    }
+
     public boolean matches(String type, String member) {
-        return this.type.equals(type) && this.member.equals(member);
+        if (!this.type.equals(type)) {
+            return false;
+        }
+        if (!isPattern()) {
+            return this.member.equals(member);
+        }
+        if (memberPattern == null) {
+            memberPattern = compile(this.member);
+        }
+        return memberPattern.matcher(member).matches();
+    }
+
+    private static Pattern compile(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        int star;
+        while ((star = glob.indexOf('*', start)) >= 0) {
+            if (star > start) {
+                regex.append(Pattern.quote(glob.substring(start, star)));
+            }
+            regex.append(".*");
+            start = star + 1;
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString());
     }
 
     public String getType() {
@@ -22,45 +22,65 @@ import org.gradle.api.GradleException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static io.micronaut.build.compat.AcceptanceHelper.formatAcceptance;
 
 public class AcceptedApiChangesRule implements ViolationTransformer {
     public static final String CHANGES_FILE = "changesFile";
 
-    private final Map<String, List<AcceptedApiChange>> changes;
+    // Accepted changes, indexed by type then by member
+    private final Map<String, Map<String, AcceptedApiChange>> changes;
+    // Accepted changes which member is a pattern, by type
+    private final Map<String, List<AcceptedApiChange>> patternChanges;
 
     public AcceptedApiChangesRule(Map<String, String> params) {
         String filePath = params.get(CHANGES_FILE);
         File changesFile = new File(filePath);
         if (changesFile.exists()) {
             try (FileInputStream fis = new FileInputStream(filePath)) {
-                this.changes = AcceptedApiChangesParser.parse(fis)
-                        .stream()
-                        .collect(Collectors.groupingBy(AcceptedApiChange::getType));
+                this.changes = new HashMap<>();
+                this.patternChanges = new HashMap<>();
+                for (AcceptedApiChange change : AcceptedApiChangesParser.parse(fis)) {
+                    if (change.isPattern()) {
+                        patternChanges.computeIfAbsent(change.getType(), t -> new ArrayList<>()).add(change);
+                    } else {
+                        // Like the first matching entry, the first declaration wins
+                        changes.computeIfAbsent(change.getType(), t -> new HashMap<>()).putIfAbsent(change.getMember(), change);
+                    }
+                }
             } catch (IOException e) {
                 throw new GradleException("Unable to parse accepted regressions file", e);
             }
         } else {
             this.changes = Collections.emptyMap();
+            this.patternChanges = Collections.emptyMap();
         }
     }
 
     @Override
     public Optional<Violation> transform(String type, Violation violation) {
-        List<AcceptedApiChange> apiChanges = changes.get(type);
-        String violationDescription = Violation.describe(violation.getMember());
-        if (apiChanges != null) {
-            Optional<AcceptedApiChange> any = apiChanges.stream()
-                    .filter(c -> c.matches(type, violationDescription))
-                    .findAny();
-            if (any.isPresent()) {
-                return Optional.of(violation.acceptWithDescription(any.get().getReason()));
+        Map<String, AcceptedApiChange> apiChanges = changes.get(type);
+        List<AcceptedApiChange> apiChangePatterns = patternChanges.get(type);
+        String violationDescription = null;
+        if (apiChanges != null || apiChangePatterns != null) {
+            violationDescription = Violation.describe(violation.getMember());
+            AcceptedApiChange accepted = apiChanges != null ? apiChanges.get(violationDescription) : null;
+            if (accepted == null && apiChangePatterns != null) {
+                for (AcceptedApiChange change : apiChangePatterns) {
+                    if (change.matches(type, violationDescription)) {
+                        accepted = change;
+                        break;
+                    }
+                }
+            }
+            if (accepted != null) {
+                return Optional.of(violation.acceptWithDescription(accepted.getReason()));
             }
         }
         switch (violation.getSeverity()) {
@@ -69,6 +89,9 @@ public class AcceptedApiChangesRule implements ViolationTransformer {
             case warning:
                 return Optional.of(violation);
             default:
+                if (violationDescription == null) {
+                    violationDescription = Violation.describe(violation.getMember());
+                }
                 return Optional.of(violation.withDescription(
                     violation.getHumanExplanation() + formatAcceptance(type, violationDescription))
             );
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The key of a japicmp comparison of a module: the baseline version, the
+ * API fingerprint of the current version, the accepted changes relevant
+ * to the module and the components of its runtime classpath. The jars
+ * given to japicmp change whenever the implementation of the module or
+ * of the projects it depends on changes, so the result of the previous
+ * comparison is reused as long as this key doesn't change.
+ */
+final class ApiComparisonKey {
+    private ApiComparisonKey() {
+    }
+
+    /**
+     * Computes the key of a comparison.
+     * @param baseline the baseline version
+     * @param currentFingerprint the API fingerprint of the current version
+     * @param acceptedChanges the accepted changes relevant to the module
+     * @param runtimeClasspath the root of the runtime classpath of the module
+     * @return the key
+     */
+    static String of(String baseline, File currentFingerprint, List<String> acceptedChanges, ResolvedComponentResult runtimeClasspath) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(baseline.getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(currentFingerprint.toPath()));
+            for (String change : acceptedChanges) {
+                digest.update(change.getBytes(StandardCharsets.UTF_8));
+            }
+            // Project dependencies are only identified by their path, their implementation doesn't matter
+            for (String component : componentsOf(runtimeClasspath)) {
+                digest.update(component.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the accepted changes for the types of the current or of
+     * the baseline version of a module, so that accepting a change in
+     * another module doesn't invalidate the comparison of this module.
+     * The types of the baseline version are read from its fingerprint,
+     * or from its jar if it was published without a fingerprint.
+     * @param changesFile the accepted changes file, which may not exist
+     * @param currentFingerprint the API fingerprint of the current version
+     * @param baselineFingerprint the fingerprint of the baseline version, if it has one
+     * @param baselineJars the jar of the baseline version
+     * @return the relevant accepted changes
+     */
+    static List<String> relevantAcceptedChanges(File changesFile, File currentFingerprint, Iterable<File> baselineFingerprint, Iterable<File> baselineJars) {
+        try {
+            if (!changesFile.exists()) {
+                return List.of();
+            }
+            Set<String> types = new HashSet<>(ApiFingerprint.read(currentFingerprint.toPath()).getTypes());
+            if (ApiFingerprintCompatibilityCheck.hasReadableFingerprint(baselineFingerprint)) {
+                for (File file : baselineFingerprint) {
+                    if (ApiFingerprint.isReadable(file.toPath())) {
+                        types.addAll(ApiFingerprint.read(file.toPath()).getTypes());
+                    }
+                }
+            } else {
+                for (File jar : baselineJars) {
+                    types.addAll(typesOf(jar));
+                }
+            }
+            List<String> relevant = new ArrayList<>();
+            for (AcceptedApiChange change : ApiFingerprintCompatibilityCheck.acceptedChangesFor(changesFile, types)) {
+                relevant.add(change.getType() + "\t" + change.getMember() + "\t" + change.getReason());
+            }
+            return relevant;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static boolean matches(File keyFile, String key) {
+        try {
+            return keyFile.exists() && Files.readString(keyFile.toPath(), StandardCharsets.UTF_8).equals(key);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Set<String> componentsOf(ResolvedComponentResult root) {
+        Set<String> components = new TreeSet<>();
+        Set<ResolvedComponentResult> seen = new HashSet<>();
+        ArrayDeque<ResolvedComponentResult> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            for (var dependency : queue.poll().getDependencies()) {
+                if (dependency instanceof ResolvedDependencyResult resolved && seen.add(resolved.getSelected())) {
+                    components.add(resolved.getSelected().getId().getDisplayName());
+                    queue.add(resolved.getSelected());
+                }
+            }
+        }
+        return components;
+    }
+
+    private static Set<String> typesOf(File jar) throws IOException {
+        Set<String> types = new HashSet<>();
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(jar.toPath()))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zis.getNextEntry()) != null) {
+                String name = zipEntry.getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                    types.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+        return types;
+    }
+}
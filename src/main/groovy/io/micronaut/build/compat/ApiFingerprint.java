@@ -0,0 +1,476 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A compact representation of the public API of a module: the public
+ * and protected classes, methods and fields found in its jar, with their
+ * modifiers, generic signatures and thrown exceptions, and whether they
+ * are annotated with {@code @Internal}. Like
+ * in the japicmp rules, classes which belong to a package annotated with
+ * {@code @Internal}, or which are nested in an annotated class, are
+ * recorded as internal too.
+ *
+ * A fingerprint is published next to the jar of a module, so that the
+ * binary compatibility of the next versions can be checked without
+ * downloading the baseline jar and its dependencies.
+ *
+ * The file format is a line based, tab separated format, which first
+ * line is a header declaring the format version. Entries are sorted,
+ * so that fingerprints of the same API are identical.
+ */
+public final class ApiFingerprint {
+    public static final String CLASSIFIER = "api-fingerprint";
+    public static final String EXTENSION = "txt";
+    public static final int FORMAT_VERSION = 3;
+
+    static final String INTERNAL_ANNOTATION = "Lio/micronaut/core/annotation/Internal;";
+    private static final String HEADER = "micronaut-api-fingerprint\t";
+
+    // Entries, by type name
+    private final Map<String, List<Entry>> entries;
+
+    private ApiFingerprint(Map<String, List<Entry>> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Computes the fingerprint of the classes found in jars.
+     * @param jars the jar files
+     * @return the fingerprint
+     * @throws IOException if a jar cannot be read
+     */
+    public static ApiFingerprint of(Iterable<Path> jars) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Set<String> internalPackages = new HashSet<>();
+        Set<String> internalTypes = new HashSet<>();
+        for (Path jar : jars) {
+            try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(jar))) {
+                ZipEntry zipEntry;
+                while ((zipEntry = zis.getNextEntry()) != null) {
+                    String name = zipEntry.getName();
+                    if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) {
+                        collect(zis, entries, internalPackages, internalTypes);
+                    }
+                }
+            }
+        }
+        List<Entry> resolved = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (entry.kind() == Kind.CLASS && !entry.internal()
+                && (internalPackages.contains(InternalApiIndex.packageOf(entry.type())) || InternalApiIndex.isNestedInAnnotatedType(entry.type(), internalTypes))) {
+                entry = entry.asInternal();
+            }
+            resolved.add(entry);
+        }
+        return fromEntries(resolved);
+    }
+
+    static ApiFingerprint fromEntries(Collection<Entry> entries) {
+        Map<String, List<Entry>> byType = new LinkedHashMap<>();
+        entries.stream()
+            .sorted(Comparator.comparing(Entry::toLine))
+            .forEach(entry -> byType.computeIfAbsent(entry.type(), t -> new ArrayList<>()).add(entry));
+        return new ApiFingerprint(byType);
+    }
+
+    /**
+     * Returns true if the file is a fingerprint which format can be read
+     * by this version of the plugin.
+     * @param file the fingerprint file
+     * @return true if the fingerprint can be read
+     */
+    public static boolean isReadable(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return (HEADER + FORMAT_VERSION).equals(reader.readLine());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static ApiFingerprint read(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    static ApiFingerprint parse(List<String> lines) {
+        if (lines.isEmpty() || !(HEADER + FORMAT_VERSION).equals(lines.get(0))) {
+            throw new IllegalArgumentException("Unsupported API fingerprint format: " + (lines.isEmpty() ? "empty file" : lines.get(0)));
+        }
+        List<Entry> entries = new ArrayList<>(lines.size());
+        for (String line : lines.subList(1, lines.size())) {
+            if (!line.isEmpty()) {
+                entries.add(Entry.fromLine(line));
+            }
+        }
+        return fromEntries(entries);
+    }
+
+    public void write(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER + FORMAT_VERSION);
+        for (List<Entry> typeEntries : entries.values()) {
+            for (Entry entry : typeEntries) {
+                lines.add(entry.toLine());
+            }
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    Set<String> getTypes() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Returns the entries of a type, the type itself being the first one.
+     * @param type the fully qualified name of the type
+     * @return the entries, or an empty list if the type isn't part of the API
+     */
+    List<Entry> entriesOf(String type) {
+        return entries.getOrDefault(type, Collections.emptyList());
+    }
+
+    private static void collect(InputStream classFile, List<Entry> entries, Set<String> internalPackages, Set<String> internalTypes) throws IOException {
+        ClassReader reader = new ClassReader(classFile);
+        reader.accept(new FingerprintVisitor(entries, internalPackages, internalTypes), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+
+    private static boolean isApi(int access) {
+        return (access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0
+               && (access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) == 0;
+    }
+
+    private static Set<String> modifiersOf(int access) {
+        Set<String> modifiers = new TreeSet<>();
+        if ((access & Opcodes.ACC_PUBLIC) != 0) {
+            modifiers.add("public");
+        }
+        if ((access & Opcodes.ACC_PROTECTED) != 0) {
+            modifiers.add("protected");
+        }
+        if ((access & Opcodes.ACC_STATIC) != 0) {
+            modifiers.add("static");
+        }
+        if ((access & Opcodes.ACC_FINAL) != 0) {
+            modifiers.add("final");
+        }
+        if ((access & Opcodes.ACC_ABSTRACT) != 0) {
+            modifiers.add("abstract");
+        }
+        if ((access & Opcodes.ACC_INTERFACE) != 0) {
+            modifiers.add("interface");
+        }
+        if ((access & Opcodes.ACC_ANNOTATION) != 0) {
+            modifiers.add("annotation");
+        }
+        if ((access & Opcodes.ACC_ENUM) != 0) {
+            modifiers.add("enum");
+        }
+        return modifiers;
+    }
+
+    private static String signatureOf(String signature) {
+        return signature == null ? "" : signature;
+    }
+
+    private static String javaName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    enum Kind {
+        CLASS, CONSTRUCTOR, METHOD, FIELD
+    }
+
+    /**
+     * An element of the API.
+     * @param kind the kind of element
+     * @param type the fully qualified name of the declaring type
+     * @param name the name of the member, empty for classes
+     * @param descriptor the JVM descriptor of the member, or the space separated
+     * super class and interfaces of a class
+     * @param signature the generic signature, empty if the element isn't generic
+     * @param exceptions the comma separated exceptions declared by a method or constructor
+     * @param modifiers the modifiers
+     * @param internal whether the element is annotated with {@code @Internal}, or,
+     * for a class, whether its package or one of its enclosing classes is
+     */
+    record Entry(Kind kind, String type, String name, String descriptor, String signature, String exceptions, Set<String> modifiers, boolean internal) {
+        boolean is(String modifier) {
+            return modifiers.contains(modifier);
+        }
+
+        Entry asInternal() {
+            return new Entry(kind, type, name, descriptor, signature, exceptions, modifiers, true);
+        }
+
+        /**
+         * Returns the supertypes of a class entry.
+         * @return the super class and interfaces
+         */
+        List<String> supertypes() {
+            return descriptor.isEmpty() ? List.of() : Arrays.asList(descriptor.split(" "));
+        }
+
+        /**
+         * Returns the exceptions declared by a method or constructor entry.
+         * @return the declared exceptions
+         */
+        List<String> declaredExceptions() {
+            return exceptions.isEmpty() ? List.of() : Arrays.asList(exceptions.split(","));
+        }
+
+        /**
+         * Returns the kind of a class entry, as written in the Java language.
+         * @return the kind of class
+         */
+        String classKind() {
+            if (is("annotation")) {
+                return "annotation";
+            }
+            if (is("interface")) {
+                return "interface";
+            }
+            return is("enum") ? "enum" : "class";
+        }
+
+        /**
+         * Returns the key of a member, which identifies it in its declaring type.
+         * @return the member key
+         */
+        String memberKey() {
+            return name + descriptor;
+        }
+
+        /**
+         * Describes this element the way japicmp does, so that accepted
+         * changes can be declared the same way whatever the check which
+         * reported them.
+         * @return the description
+         */
+        String describe() {
+            return switch (kind) {
+                case CLASS -> "Class " + type;
+                case CONSTRUCTOR -> "Constructor " + type + parameters();
+                case METHOD -> "Method " + type + "." + name + parameters();
+                case FIELD -> "Field " + name;
+            };
+        }
+
+        /**
+         * Describes a supertype of a class entry the way japicmp does.
+         * @param supertype the super class or one of the interfaces of the class
+         * @return the description
+         */
+        String describeSupertype(String supertype) {
+            if (!is("interface") && supertypes().indexOf(supertype) == 0) {
+                return "Superclass " + supertype;
+            }
+            return "Implemented interface " + supertype;
+        }
+
+        /**
+         * Returns the key of a method or constructor without its return type,
+         * which identifies it in its declaring type whatever its return type is.
+         * @return the key
+         */
+        String signatureKey() {
+            return name + descriptor.substring(0, descriptor.indexOf(')') + 1);
+        }
+
+        private String parameters() {
+            return Arrays.stream(Type.getArgumentTypes(descriptor))
+                .map(Type::getClassName)
+                .collect(Collectors.joining(",", "(", ")"));
+        }
+
+        String toLine() {
+            return kind.name().toLowerCase(Locale.ROOT) + "\t" + type + "\t" + name + "\t" + descriptor + "\t" + signature + "\t" + exceptions + "\t" + String.join(",", modifiers) + "\t" + (internal ? "internal" : "-");
+        }
+
+        static Entry fromLine(String line) {
+            String[] parts = line.split("\t", -1);
+            if (parts.length != 8) {
+                throw new IllegalArgumentException("Invalid API fingerprint entry: " + line);
+            }
+            Set<String> modifiers = parts[6].isEmpty() ? Set.of() : new TreeSet<>(Arrays.asList(parts[6].split(",")));
+            return new Entry(Kind.valueOf(parts[0].toUpperCase(Locale.ROOT)), parts[1], parts[2], parts[3], parts[4], parts[5], modifiers, "internal".equals(parts[7]));
+        }
+    }
+
+    private static final class FingerprintVisitor extends ClassVisitor {
+        private final List<Entry> entries;
+        private final Set<String> internalPackages;
+        private final Set<String> internalTypes;
+        private final List<MemberVisitor> members = new ArrayList<>();
+        private String type;
+        private boolean packageInfo;
+        private String supertypes;
+        private String signature;
+        private int access;
+        private boolean internal;
+        private boolean api;
+
+        private FingerprintVisitor(List<Entry> entries, Set<String> internalPackages, Set<String> internalTypes) {
+            super(Opcodes.ASM9);
+            this.entries = entries;
+            this.internalPackages = internalPackages;
+            this.internalTypes = internalTypes;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.type = javaName(name);
+            this.packageInfo = name.endsWith("/package-info");
+            this.access = access;
+            this.api = isApi(access);
+            this.signature = signatureOf(signature);
+            Set<String> supertypes = new LinkedHashSet<>();
+            if (superName != null) {
+                supertypes.add(javaName(superName));
+            }
+            if (interfaces != null) {
+                for (String itf : interfaces) {
+                    supertypes.add(javaName(itf));
+                }
+            }
+            this.supertypes = String.join(" ", supertypes);
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (type.equals(javaName(name))) {
+                // Nested classes have their declared visibility in the InnerClasses attribute only
+                this.access = access;
+                this.api = isApi(access);
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (INTERNAL_ANNOTATION.equals(descriptor)) {
+                if (packageInfo) {
+                    internalPackages.add(InternalApiIndex.packageOf(type));
+                } else {
+                    // Non API types are recorded too, since their nested types may be public
+                    internalTypes.add(type);
+                    internal = true;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if (isApi(access)) {
+                MemberVisitor member = new MemberVisitor(Kind.FIELD, access, name, descriptor, signature, null);
+                members.add(member);
+                return new FieldVisitor(Opcodes.ASM9) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                        member.annotated(annotation);
+                        return null;
+                    }
+                };
+            }
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (isApi(access) && !"<clinit>".equals(name)) {
+                MemberVisitor member = new MemberVisitor("<init>".equals(name) ? Kind.CONSTRUCTOR : Kind.METHOD, access, name, descriptor, signature, exceptions);
+                members.add(member);
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                        member.annotated(annotation);
+                        return null;
+                    }
+                };
+            }
+            return null;
+        }
+
+        @Override
+        public void visitEnd() {
+            if (!api || packageInfo) {
+                return;
+            }
+            entries.add(new Entry(Kind.CLASS, type, "", supertypes, signature, "", modifiersOf(access), internal));
+            for (MemberVisitor member : members) {
+                entries.add(new Entry(member.kind, type, member.name, member.descriptor, member.signature, member.exceptions, modifiersOf(member.access), member.internal));
+            }
+        }
+    }
+
+    private static final class MemberVisitor {
+        private final Kind kind;
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final String signature;
+        private final String exceptions;
+        private boolean internal;
+
+        private MemberVisitor(Kind kind, int access, String name, String descriptor, String signature, String[] exceptions) {
+            this.kind = kind;
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.signature = signatureOf(signature);
+            this.exceptions = exceptions == null ? "" : Arrays.stream(exceptions).map(ApiFingerprint::javaName).sorted().collect(Collectors.joining(","));
+        }
+
+        void annotated(String annotation) {
+            if (INTERNAL_ANNOTATION.equals(annotation)) {
+                internal = true;
+            }
+        }
+    }
+}
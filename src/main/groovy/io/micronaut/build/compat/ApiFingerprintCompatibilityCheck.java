@@ -0,0 +1,225 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the API fingerprint published with the baseline version of
+ * a module with the fingerprint of the current version. Unlike the
+ * japicmp check, this doesn't need the baseline jar nor its dependencies.
+ *
+ * The comparison doesn't replace the japicmp check, which also knows
+ * the supertypes coming from the dependencies of the module: it records
+ * whether the current API preserves the baseline API, in which case the
+ * japicmp check is skipped, and reports the changes it found, so that
+ * they are known before the japicmp check runs.
+ *
+ * This task is cacheable: its inputs are the baseline fingerprint, the
+ * current fingerprint, which only depends on the public API of the
+ * module, and the accepted changes for the types of the module.
+ */
+@CacheableTask
+public abstract class ApiFingerprintCompatibilityCheck extends DefaultTask {
+    static final String BASELINE_PRESERVED = "baselinePreserved";
+
+    /**
+     * The fingerprint of the baseline version. It is a file collection
+     * because the fingerprint is resolved leniently: it is empty if the
+     * baseline version wasn't published with a fingerprint.
+     * @return the baseline fingerprint
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract ConfigurableFileCollection getBaseline();
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getCurrent();
+
+    /**
+     * The name of the module, written to the violations file so that
+     * results of several modules can be aggregated.
+     * @return the module name
+     */
+    @Input
+    public abstract Property<String> getModuleName();
+
+    /**
+     * The accepted API changes file. This file is shared by all the
+     * modules of a build, so only the changes relevant to this module
+     * are an input of the task: see {@link #getRelevantAcceptedChanges()}.
+     * @return the accepted API changes file
+     */
+    @Internal
+    public abstract RegularFileProperty getAcceptedApiChanges();
+
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    @OutputFile
+    public abstract RegularFileProperty getViolationsFile();
+
+    /**
+     * Returns true if the comparison found that the current API preserves
+     * the baseline API, in which case the japicmp check can be skipped.
+     * @param violationsFile the violations file written by this task
+     * @return true if the baseline API is preserved
+     */
+    @SuppressWarnings("unchecked")
+    static boolean isBaselinePreserved(File violationsFile) {
+        if (!violationsFile.exists()) {
+            return false;
+        }
+        Map<String, Object> result = (Map<String, Object>) new JsonSlurper().parse(violationsFile);
+        return Boolean.TRUE.equals(result.get(BASELINE_PRESERVED));
+    }
+
+    /**
+     * Returns true if one of the files is a fingerprint which can be
+     * compared with the current fingerprint.
+     * @param files the candidate files
+     * @return true if a fingerprint can be read
+     */
+    static boolean hasReadableFingerprint(Iterable<File> files) {
+        for (File file : files) {
+            if (ApiFingerprint.isReadable(file.toPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the accepted changes for the types of the baseline version
+     * of this module, so that accepting a change in another module
+     * doesn't invalidate the result of this task.
+     * @return the relevant accepted changes
+     */
+    @Input
+    protected List<String> getRelevantAcceptedChanges() {
+        try {
+            List<String> relevant = new ArrayList<>();
+            for (AcceptedApiChange change : relevantAcceptedChanges(readBaseline())) {
+                relevant.add(change.getType() + "\t" + change.getMember() + "\t" + change.getReason());
+            }
+            return relevant;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TaskAction
+    public void checkCompatibility() throws IOException {
+        ApiFingerprint baseline = readBaseline();
+        if (baseline == null) {
+            throw new GradleException("No readable API fingerprint found for the baseline version in " + getBaseline().getFiles());
+        }
+        ApiFingerprint current = ApiFingerprint.read(getCurrent().get().getAsFile().toPath());
+        List<ApiFingerprintDiff.Change> changes = ApiFingerprintDiff.compare(baseline, current, relevantAcceptedChanges(baseline));
+        List<String> report = new ArrayList<>();
+        List<Map<String, String>> violations = new ArrayList<>();
+        for (ApiFingerprintDiff.Change change : changes) {
+            String line = "[" + change.severity() + "] " + change.type() + ": " + change.member() + " - " + change.explanation();
+            if (change.acceptance() != null) {
+                line += " (accepted: " + change.acceptance() + ")";
+            }
+            report.add(line);
+            Map<String, String> violation = new LinkedHashMap<>();
+            violation.put("type", change.type());
+            violation.put("member", change.member());
+            violation.put("explanation", change.explanation());
+            violation.put("severity", change.severity().name());
+            if (change.acceptance() != null) {
+                violation.put("acceptance", change.acceptance());
+            }
+            violations.add(violation);
+        }
+        Files.write(getReportFile().get().getAsFile().toPath(), report, StandardCharsets.UTF_8);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("module", getModuleName().get());
+        result.put(BASELINE_PRESERVED, ApiFingerprintDiff.preservesApi(baseline, current));
+        result.put("changes", violations);
+        Files.writeString(getViolationsFile().get().getAsFile().toPath(), JsonOutput.toJson(result), StandardCharsets.UTF_8);
+    }
+
+    private ApiFingerprint readBaseline() throws IOException {
+        for (File file : getBaseline().getFiles()) {
+            if (ApiFingerprint.isReadable(file.toPath())) {
+                return ApiFingerprint.read(file.toPath());
+            }
+        }
+        return null;
+    }
+
+    private List<AcceptedApiChange> relevantAcceptedChanges(ApiFingerprint baseline) throws IOException {
+        if (baseline == null || !getAcceptedApiChanges().isPresent()) {
+            return Collections.emptyList();
+        }
+        File changesFile = getAcceptedApiChanges().get().getAsFile();
+        if (!changesFile.exists()) {
+            return Collections.emptyList();
+        }
+        return acceptedChangesFor(changesFile, baseline.getTypes());
+    }
+
+    /**
+     * Reads the accepted changes declared for some types.
+     * @param changesFile the accepted changes file
+     * @param types the fully qualified names of the types
+     * @return the accepted changes for these types
+     * @throws IOException if the file cannot be read
+     */
+    static List<AcceptedApiChange> acceptedChangesFor(File changesFile, Set<String> types) throws IOException {
+        List<AcceptedApiChange> relevant = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(changesFile.toPath())) {
+            for (AcceptedApiChange change : AcceptedApiChangesParser.parse(in)) {
+                if (types.contains(change.getType())) {
+                    relevant.add(change);
+                }
+            }
+        }
+        return relevant;
+    }
+}
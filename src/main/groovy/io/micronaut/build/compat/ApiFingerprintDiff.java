@@ -0,0 +1,289 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import me.champeau.gradle.japicmp.report.Severity;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the API fingerprint of a baseline version of a module with
+ * the fingerprint of the current version. It reports the changes which
+ * may break compatibility: removed types and members, reduced visibility,
+ * removed supertypes, changed kinds of types, changed return, field and
+ * generic types, new declared exceptions, added abstract methods, and
+ * members or types which became final, abstract or changed from static
+ * to instance or the other way around.
+ *
+ * The fingerprint doesn't know the supertypes which are not part of the
+ * module, so the comparison is not authoritative: japicmp remains the
+ * binary compatibility check, and is only skipped when the current API
+ * {@link #preservesApi(ApiFingerprint, ApiFingerprint) preserves} the
+ * baseline API. Changes on internal types and members are reported as
+ * warnings, the same way as the japicmp rules of the binary compatibility
+ * plugin do.
+ */
+final class ApiFingerprintDiff {
+    private final ApiFingerprint baseline;
+    private final ApiFingerprint current;
+    private final List<AcceptedApiChange> acceptedChanges;
+    private final List<Change> changes = new ArrayList<>();
+    private final Map<String, Set<String>> currentSupertypes = new HashMap<>();
+
+    private ApiFingerprintDiff(ApiFingerprint baseline, ApiFingerprint current, List<AcceptedApiChange> acceptedChanges) {
+        this.baseline = baseline;
+        this.current = current;
+        this.acceptedChanges = acceptedChanges;
+    }
+
+    static List<Change> compare(ApiFingerprint baseline, ApiFingerprint current, List<AcceptedApiChange> acceptedChanges) {
+        ApiFingerprintDiff diff = new ApiFingerprintDiff(baseline, current, acceptedChanges);
+        for (String type : baseline.getTypes()) {
+            diff.compareType(type);
+        }
+        return diff.changes;
+    }
+
+    /**
+     * Returns true if the current API contains every element of the baseline
+     * API unchanged, and doesn't add abstract methods to the types of the
+     * baseline API. Such an API only adds types and concrete members, so
+     * japicmp cannot find a breaking change in it.
+     * @param baseline the fingerprint of the baseline version
+     * @param current the fingerprint of the current version
+     * @return true if the baseline API is preserved
+     */
+    static boolean preservesApi(ApiFingerprint baseline, ApiFingerprint current) {
+        for (String type : baseline.getTypes()) {
+            Set<ApiFingerprint.Entry> baselineEntries = new HashSet<>(baseline.entriesOf(type));
+            List<ApiFingerprint.Entry> currentEntries = current.entriesOf(type);
+            if (!currentEntries.containsAll(baselineEntries)) {
+                return false;
+            }
+            for (ApiFingerprint.Entry entry : currentEntries) {
+                if (entry.is("abstract") && !baselineEntries.contains(entry)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void compareType(String type) {
+        List<ApiFingerprint.Entry> baselineEntries = baseline.entriesOf(type);
+        ApiFingerprint.Entry baselineClass = classEntryOf(baselineEntries);
+        if (baselineClass == null) {
+            return;
+        }
+        boolean internalType = baselineClass.internal() || isInternalPackage(type);
+        ApiFingerprint.Entry currentClass = classEntryOf(current.entriesOf(type));
+        if (currentClass == null) {
+            report(baselineClass, internalType, "Class was removed or is no longer public");
+            return;
+        }
+        if (baselineClass.is("public") && !currentClass.is("public")) {
+            report(baselineClass, internalType, "Class visibility was reduced");
+        }
+        if (!baselineClass.classKind().equals(currentClass.classKind())) {
+            report(baselineClass, internalType, "Class kind changed from " + baselineClass.classKind() + " to " + currentClass.classKind());
+        } else if (!baselineClass.is("final") && currentClass.is("final")) {
+            report(baselineClass, internalType, "Class is now final");
+        } else if (!baselineClass.is("abstract") && currentClass.is("abstract")) {
+            report(baselineClass, internalType, "Class is now abstract");
+        }
+        if (!baselineClass.signature().equals(currentClass.signature())) {
+            report(baselineClass, internalType, "Generic signature changed");
+        }
+        Set<String> supertypes = supertypesOf(type);
+        for (String supertype : baselineClass.supertypes()) {
+            if (!supertypes.contains(supertype)) {
+                String description = baselineClass.describeSupertype(supertype);
+                report(type, description, internalType, description.startsWith("Superclass") ? "Superclass was removed" : "Interface was removed");
+            }
+        }
+        Set<String> baselineMethods = new HashSet<>();
+        for (ApiFingerprint.Entry member : baselineEntries) {
+            if (member.kind() != ApiFingerprint.Kind.CLASS) {
+                if (member.kind() == ApiFingerprint.Kind.METHOD) {
+                    baselineMethods.add(member.signatureKey());
+                }
+                compareMember(member, currentClass, internalType || member.internal());
+            }
+        }
+        for (ApiFingerprint.Entry member : current.entriesOf(type)) {
+            if (member.kind() == ApiFingerprint.Kind.METHOD && member.is("abstract") && !baselineMethods.contains(member.signatureKey())) {
+                report(member, internalType || member.internal(), "Abstract method was added");
+            }
+        }
+    }
+
+    private void compareMember(ApiFingerprint.Entry member, ApiFingerprint.Entry currentClass, boolean internal) {
+        ApiFingerprint.Entry currentMember = findMember(member.type(), member.memberKey());
+        if (currentMember == null && member.kind() != ApiFingerprint.Kind.CONSTRUCTOR) {
+            // The member may have been pulled up to a supertype
+            for (String supertype : supertypesOf(member.type())) {
+                currentMember = findMember(supertype, member.memberKey());
+                if (currentMember != null) {
+                    break;
+                }
+            }
+        }
+        if (currentMember == null) {
+            ApiFingerprint.Entry retyped = findRetypedMember(member);
+            if (retyped != null) {
+                report(member, internal, (member.kind() == ApiFingerprint.Kind.FIELD ? "Field type" : "Return type") + " changed from "
+                                         + typeOf(member) + " to " + typeOf(retyped));
+            } else {
+                report(member, internal, kindOf(member) + " was removed or is no longer accessible");
+            }
+            return;
+        }
+        if (member.is("public") && !currentMember.is("public")) {
+            report(member, internal, kindOf(member) + " visibility was reduced");
+        }
+        if (member.is("static") != currentMember.is("static")) {
+            report(member, internal, kindOf(member) + (member.is("static") ? " is no longer static" : " is now static"));
+        }
+        if (!member.is("final") && currentMember.is("final") && (member.kind() == ApiFingerprint.Kind.FIELD || !currentClass.is("final"))) {
+            report(member, internal, kindOf(member) + " is now final");
+        }
+        if (!member.is("abstract") && currentMember.is("abstract")) {
+            report(member, internal, kindOf(member) + " is now abstract");
+        }
+        if (!member.signature().equals(currentMember.signature())) {
+            report(member, internal, "Generic signature changed");
+        }
+        for (String exception : currentMember.declaredExceptions()) {
+            if (!member.declaredExceptions().contains(exception)) {
+                report(member, internal, kindOf(member) + " now throws " + exception);
+            }
+        }
+    }
+
+    /**
+     * Finds a field with the same name, or a method with the same name and
+     * parameters as a member of the baseline, but a different type.
+     */
+    private ApiFingerprint.Entry findRetypedMember(ApiFingerprint.Entry member) {
+        for (ApiFingerprint.Entry entry : current.entriesOf(member.type())) {
+            if (entry.kind() == member.kind()) {
+                if (member.kind() == ApiFingerprint.Kind.FIELD && entry.name().equals(member.name())) {
+                    return entry;
+                }
+                if (member.kind() == ApiFingerprint.Kind.METHOD && entry.signatureKey().equals(member.signatureKey())) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String typeOf(ApiFingerprint.Entry member) {
+        if (member.kind() == ApiFingerprint.Kind.FIELD) {
+            return Type.getType(member.descriptor()).getClassName();
+        }
+        return Type.getReturnType(member.descriptor()).getClassName();
+    }
+
+    private ApiFingerprint.Entry findMember(String type, String memberKey) {
+        for (ApiFingerprint.Entry entry : current.entriesOf(type)) {
+            if (entry.kind() != ApiFingerprint.Kind.CLASS && entry.memberKey().equals(memberKey)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the direct and indirect supertypes of a type in the current
+     * fingerprint. Supertypes which are not part of the module are
+     * returned, but not their own supertypes, which are unknown.
+     */
+    private Set<String> supertypesOf(String type) {
+        return currentSupertypes.computeIfAbsent(type, t -> {
+            Set<String> result = new LinkedHashSet<>();
+            Deque<String> queue = new ArrayDeque<>();
+            queue.add(t);
+            while (!queue.isEmpty()) {
+                ApiFingerprint.Entry entry = classEntryOf(current.entriesOf(queue.poll()));
+                if (entry != null) {
+                    for (String supertype : entry.supertypes()) {
+                        if (result.add(supertype)) {
+                            queue.add(supertype);
+                        }
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    private void report(ApiFingerprint.Entry entry, boolean internal, String explanation) {
+        report(entry.type(), entry.describe(), internal, explanation);
+    }
+
+    private void report(String type, String member, boolean internal, String explanation) {
+        for (AcceptedApiChange accepted : acceptedChanges) {
+            if (accepted.matches(type, member)) {
+                changes.add(new Change(type, member, explanation, Severity.accepted, accepted.getReason()));
+                return;
+            }
+        }
+        changes.add(new Change(type, member, explanation, internal ? Severity.warning : Severity.error, null));
+    }
+
+    private static ApiFingerprint.Entry classEntryOf(List<ApiFingerprint.Entry> entries) {
+        for (ApiFingerprint.Entry entry : entries) {
+            if (entry.kind() == ApiFingerprint.Kind.CLASS) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static String kindOf(ApiFingerprint.Entry member) {
+        return switch (member.kind()) {
+            case CLASS -> "Class";
+            case CONSTRUCTOR -> "Constructor";
+            case METHOD -> "Method";
+            case FIELD -> "Field";
+        };
+    }
+
+    private static boolean isInternalPackage(String type) {
+        return type.startsWith("io.micronaut") && type.contains(".internal.");
+    }
+
+    /**
+     * A change found between the baseline and the current API.
+     * @param type the type on which the change was found
+     * @param member the description of the changed element
+     * @param explanation the explanation of the change
+     * @param severity the severity of the change
+     * @param acceptance the reason why the change was accepted, if it was
+     */
+    record Change(String type, String member, String explanation, Severity severity, String acceptance) {
+    }
+}
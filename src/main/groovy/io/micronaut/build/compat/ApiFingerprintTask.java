@@ -0,0 +1,52 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the API fingerprint of a module, which is published
+ * next to its jar.
+ */
+@CacheableTask
+public abstract class ApiFingerprintTask extends DefaultTask {
+    @Classpath
+    public abstract ConfigurableFileCollection getArchives();
+
+    @OutputFile
+    public abstract RegularFileProperty getFingerprint();
+
+    @TaskAction
+    public void generate() throws IOException {
+        List<Path> jars = new ArrayList<>();
+        for (File archive : getArchives().getFiles()) {
+            jars.add(archive.toPath());
+        }
+        ApiFingerprint.of(jars).write(getFingerprint().get().getAsFile().toPath());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import me.champeau.gradle.japicmp.report.Severity;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates the binary compatibility results of all the
+ * modules of a build into a single HTML and JSON report, with a section
+ * per module and a summary of the accepted and breaking changes.
+ */
+@CacheableTask
+public abstract class BinaryCompatibilityReportTask extends DefaultTask {
+    /**
+     * The result files written for each module by {@link BinaryCompatibilityResultTask}.
+     * Modules which were checked by japicmp instead of being compared with
+     * their API fingerprint, and modules which checks are disabled, are also
+     * listed separately.
+     * @return the result files
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract ConfigurableFileCollection getResults();
+
+    @OutputFile
+    public abstract RegularFileProperty getJsonReport();
+
+    @OutputFile
+    public abstract RegularFileProperty getHtmlReport();
+
+    @TaskAction
+    @SuppressWarnings("unchecked")
+    public void aggregate() throws IOException {
+        List<Map<String, Object>> modules = new ArrayList<>();
+        List<Map<String, Object>> notCompared = new ArrayList<>();
+        for (File file : getResults().getFiles()) {
+            if (file.exists()) {
+                Map<String, Object> module = (Map<String, Object>) new JsonSlurper().parse(file);
+                Object status = module.getOrDefault("status", BinaryCompatibilityResultTask.STATUS_COMPARED);
+                if (!BinaryCompatibilityResultTask.STATUS_DISABLED.equals(status)) {
+                    modules.add(module);
+                }
+                if (!BinaryCompatibilityResultTask.STATUS_COMPARED.equals(status)) {
+                    Map<String, Object> skipped = new LinkedHashMap<>();
+                    skipped.put("module", module.get("module"));
+                    skipped.put("status", status);
+                    skipped.put("reason", module.get("reason"));
+                    notCompared.add(skipped);
+                }
+            }
+        }
+        Comparator<Map<String, Object>> byName = Comparator.comparing(module -> String.valueOf(module.get("module")));
+        modules.sort(byName);
+        notCompared.sort(byName);
+        Map<String, Integer> summary = new LinkedHashMap<>();
+        for (Severity severity : Severity.values()) {
+            summary.put(severity.name(), 0);
+        }
+        for (Map<String, Object> module : modules) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Map<String, String> change : changesOf(module)) {
+                counts.merge(change.get("severity"), 1, Integer::sum);
+                summary.merge(change.get("severity"), 1, Integer::sum);
+            }
+            module.put("summary", counts);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("summary", summary);
+        report.put("modules", modules);
+        report.put("notCompared", notCompared);
+        Files.writeString(getJsonReport().get().getAsFile().toPath(), JsonOutput.toJson(report), StandardCharsets.UTF_8);
+        writeHtml(modules, notCompared, summary);
+    }
+
+    private void writeHtml(List<Map<String, Object>> modules, List<Map<String, Object>> notCompared, Map<String, Integer> summary) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(getHtmlReport().get().getAsFile().toPath(), StandardCharsets.UTF_8))) {
+            writer.println("<!DOCTYPE html>");
+            writer.println("<html><head><meta charset=\"UTF-8\"><title>Binary compatibility report</title>");
+            writer.println("<style>body{font-family:sans-serif}table{border-collapse:collapse}td,th{border:1px solid #ccc;padding:2px 6px;text-align:left}.error{color:#b00}.warning{color:#b60}.accepted{color:#070}</style>");
+            writer.println("</head><body>");
+            writer.println("<h1>Binary compatibility report</h1>");
+            writer.println("<p>" + modules.size() + " module(s) checked: " + summary.get(Severity.error.name()) + " breaking change(s), "
+                           + summary.get(Severity.accepted.name()) + " accepted change(s), " + summary.get(Severity.warning.name()) + " warning(s)</p>");
+            if (!notCompared.isEmpty()) {
+                writer.println("<p>" + notCompared.size() + " module(s) not compared with their API fingerprint:</p>");
+                writer.println("<table><tr><th>Module</th><th>Reason</th></tr>");
+                for (Map<String, Object> module : notCompared) {
+                    writer.println("<tr><td>" + escape(String.valueOf(module.get("module"))) + "</td><td>" + escape(String.valueOf(module.get("reason"))) + "</td></tr>");
+                }
+                writer.println("</table>");
+            }
+            writer.println("<table><tr><th>Module</th><th>Breaking</th><th>Accepted</th><th>Warnings</th></tr>");
+            for (Map<String, Object> module : modules) {
+                String name = String.valueOf(module.get("module"));
+                @SuppressWarnings("unchecked")
+                Map<String, Integer> counts = (Map<String, Integer>) module.get("summary");
+                int errors = counts.getOrDefault(Severity.error.name(), 0);
+                writer.println("<tr><td><a href=\"#" + escape(name) + "\">" + escape(name) + "</a></td><td" + (errors > 0 ? " class=\"error\"" : "") + ">" + errors
+                               + "</td><td>" + counts.getOrDefault(Severity.accepted.name(), 0) + "</td><td>" + counts.getOrDefault(Severity.warning.name(), 0) + "</td></tr>");
+            }
+            writer.println("</table>");
+            for (Map<String, Object> module : modules) {
+                String name = String.valueOf(module.get("module"));
+                writer.println("<h2 id=\"" + escape(name) + "\">" + escape(name) + "</h2>");
+                List<Map<String, String>> changes = changesOf(module);
+                if (changes.isEmpty()) {
+                    writer.println("<p>No changes</p>");
+                    continue;
+                }
+                writer.println("<table><tr><th>Severity</th><th>Type</th><th>Member</th><th>Change</th></tr>");
+                for (Map<String, String> change : changes) {
+                    String severity = change.get("severity");
+                    String explanation = change.get("explanation");
+                    if (change.get("acceptance") != null) {
+                        explanation += " (accepted: " + change.get("acceptance") + ")";
+                    }
+                    writer.println("<tr class=\"" + escape(severity) + "\"><td>" + escape(severity) + "</td><td>" + escape(change.get("type"))
+                                   + "</td><td>" + escape(change.get("member")) + "</td><td>" + escape(explanation) + "</td></tr>");
+                }
+                writer.println("</table>");
+            }
+            writer.println("</body></html>");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, String>> changesOf(Map<String, Object> module) {
+        return (List<Map<String, String>>) module.get("changes");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
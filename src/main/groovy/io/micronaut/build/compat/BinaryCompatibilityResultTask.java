@@ -0,0 +1,116 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the binary compatibility result of a module for the aggregated
+ * report. The changes are those found by japicmp, unless the API
+ * fingerprint comparison found that the baseline API is preserved, in
+ * which case japicmp is skipped. The violations files of the comparisons
+ * which were skipped are either missing or left over from a previous
+ * build, so this task records which comparison actually applies.
+ */
+@UntrackedTask(because = "It is cheap, and its result depends on which comparison ran in this build")
+public abstract class BinaryCompatibilityResultTask extends DefaultTask {
+    static final String STATUS_COMPARED = "compared";
+    static final String STATUS_JAPICMP = "japicmp";
+    static final String STATUS_DISABLED = "disabled";
+
+    @Internal
+    public abstract Property<String> getModuleName();
+
+    @Internal
+    public abstract Property<Boolean> getChecksEnabled();
+
+    /**
+     * The fingerprint of the baseline version, which is empty if the
+     * baseline version wasn't published with a fingerprint.
+     * @return the baseline fingerprint
+     */
+    @Internal
+    public abstract ConfigurableFileCollection getBaseline();
+
+    /**
+     * The violations file written by the API fingerprint comparison.
+     * @return the violations file
+     */
+    @Internal
+    public abstract RegularFileProperty getViolationsFile();
+
+    /**
+     * The violations file written by japicmp, see {@link JapicmpViolationsExportRule}.
+     * @return the japicmp violations file
+     */
+    @Internal
+    public abstract RegularFileProperty getJapicmpViolationsFile();
+
+    @OutputFile
+    public abstract RegularFileProperty getResultFile();
+
+    @TaskAction
+    @SuppressWarnings("unchecked")
+    public void writeResult() throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("module", getModuleName().get());
+        if (!getChecksEnabled().getOrElse(true)) {
+            result.put("status", STATUS_DISABLED);
+            result.put("reason", "Binary compatibility checks are disabled");
+            result.put("changes", List.of());
+        } else if (!ApiFingerprintCompatibilityCheck.hasReadableFingerprint(getBaseline())) {
+            result.put("status", STATUS_JAPICMP);
+            result.put("reason", "The baseline version has no API fingerprint, so the module was checked by japiCmp");
+            result.put("changes", japicmpChanges());
+        } else if (!ApiFingerprintCompatibilityCheck.isBaselinePreserved(getViolationsFile().get().getAsFile())) {
+            result.put("status", STATUS_JAPICMP);
+            result.put("reason", "The API changed since the baseline version, so the module was checked by japiCmp");
+            result.put("changes", japicmpChanges());
+        } else {
+            Map<String, Object> violations = (Map<String, Object>) new JsonSlurper().parse(getViolationsFile().get().getAsFile());
+            result.put("status", STATUS_COMPARED);
+            result.put("changes", violations.get("changes"));
+        }
+        Files.writeString(getResultFile().get().getAsFile().toPath(), JsonOutput.toJson(result), StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object japicmpChanges() {
+        File violationsFile = getJapicmpViolationsFile().get().getAsFile();
+        if (!violationsFile.exists()) {
+            return List.of();
+        }
+        Map<String, Object> violations = (Map<String, Object>) new JsonSlurper().parse(violationsFile);
+        return violations.get("changes");
+    }
+}
@@ -22,28 +22,42 @@ import me.champeau.gradle.japicmp.report.AbstractContextAwareViolationRule;
 import me.champeau.gradle.japicmp.report.Violation;
 
 import java.util.HashSet;
+import java.util.Map;
 
 public class InternalAnnotationCollectorRule extends AbstractContextAwareViolationRule {
     public static final String INTERNAL_TYPES = "micronaut.internal.types";
 
+    private final InternalApiIndex index;
+
+    public InternalAnnotationCollectorRule() {
+        this(null);
+    }
+
+    public InternalAnnotationCollectorRule(Map<String, String> params) {
+        this.index = InternalApiIndex.fromParams(params);
+    }
+
     @Override
     public Violation maybeViolation(JApiCompatibility member) {
         if (member instanceof JApiClass) {
             JApiClass jApiClass = (JApiClass) member;
-            maybeRecord((JApiHasAnnotations) member, jApiClass.getFullyQualifiedName());
+            String name = jApiClass.getFullyQualifiedName();
+            // Without an index, fall back to the annotations loaded by japicmp
+            boolean internal = index.isEmpty() ? isAnnotatedWithInternal(jApiClass) : index.isInternalType(name);
+            if (internal) {
+                record(name);
+            }
         }
         return null;
     }
 
-    private void maybeRecord(JApiHasAnnotations member, String name) {
-        if (isAnnotatedWithInternal(member)) {
-            HashSet<String> types = getContext().getUserData(INTERNAL_TYPES);
-            if (types == null) {
-                types = new HashSet<>();
-                getContext().putUserData(INTERNAL_TYPES, types);
-            }
-            types.add(name);
+    private void record(String name) {
+        HashSet<String> types = getContext().getUserData(INTERNAL_TYPES);
+        if (types == null) {
+            types = new HashSet<>();
+            getContext().putUserData(INTERNAL_TYPES, types);
         }
+        types.add(name);
     }
 
     static boolean isAnnotatedWithInternal(JApiHasAnnotations member) {
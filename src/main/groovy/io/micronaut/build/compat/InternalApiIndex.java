@@ -0,0 +1,265 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * An index of the types, members and packages annotated with
+ * {@code @Internal} in a set of jars. The index is computed by scanning
+ * the class files with ASM, so that the binary compatibility rules don't
+ * have to load the annotations of every element through japicmp. Types
+ * declared in an internal package, or nested in an internal type, are
+ * indexed as internal types.
+ */
+public final class InternalApiIndex {
+    public static final String INDEX_FILE = "internalApiIndex";
+
+    private static final InternalApiIndex EMPTY = new InternalApiIndex(Set.of(), Set.of(), Set.of());
+
+    private final Set<String> packages;
+    private final Set<String> types;
+    private final Set<String> members;
+
+    private InternalApiIndex(Set<String> packages, Set<String> types, Set<String> members) {
+        this.packages = packages;
+        this.types = types;
+        this.members = members;
+    }
+
+    public static InternalApiIndex scan(Iterable<Path> jars) throws IOException {
+        Set<String> packages = new TreeSet<>();
+        Set<String> annotatedTypes = new TreeSet<>();
+        Set<String> members = new TreeSet<>();
+        List<String> allTypes = new ArrayList<>();
+        for (Path jar : jars) {
+            try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(jar))) {
+                ZipEntry zipEntry;
+                while ((zipEntry = zis.getNextEntry()) != null) {
+                    String name = zipEntry.getName();
+                    if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) {
+                        collect(zis, packages, annotatedTypes, members, allTypes);
+                    }
+                }
+            }
+        }
+        Set<String> types = new TreeSet<>(annotatedTypes);
+        for (String type : allTypes) {
+            if (packages.contains(packageOf(type)) || isNestedInAnnotatedType(type, annotatedTypes)) {
+                types.add(type);
+            }
+        }
+        return new InternalApiIndex(packages, types, members);
+    }
+
+    /**
+     * Loads the index configured in the parameters of a rule.
+     * @param params the rule parameters
+     * @return the index, which is empty if it isn't configured
+     */
+    public static InternalApiIndex fromParams(Map<String, String> params) {
+        String indexFile = params == null ? null : params.get(INDEX_FILE);
+        if (indexFile == null || !Files.isRegularFile(Path.of(indexFile))) {
+            return EMPTY;
+        }
+        try {
+            return read(Path.of(indexFile));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read the internal API index " + indexFile, e);
+        }
+    }
+
+    public static InternalApiIndex read(Path file) throws IOException {
+        Set<String> packages = new TreeSet<>();
+        Set<String> types = new TreeSet<>();
+        Set<String> members = new TreeSet<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int idx = line.indexOf('\t');
+            if (idx < 0) {
+                continue;
+            }
+            String value = line.substring(idx + 1);
+            switch (line.substring(0, idx)) {
+                case "package" -> packages.add(value);
+                case "type" -> types.add(value);
+                case "member" -> members.add(value);
+                default -> throw new IllegalStateException("Invalid internal API index entry: " + line);
+            }
+        }
+        return new InternalApiIndex(packages, types, members);
+    }
+
+    public void write(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        packages.forEach(p -> lines.add("package\t" + p));
+        types.forEach(t -> lines.add("type\t" + t));
+        members.forEach(m -> lines.add("member\t" + m));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    public boolean isEmpty() {
+        return packages.isEmpty() && types.isEmpty() && members.isEmpty();
+    }
+
+    public Set<String> getTypes() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    public boolean isInternalType(String type) {
+        return types.contains(type);
+    }
+
+    /**
+     * Returns true if a member is annotated with {@code @Internal}.
+     * @param memberKey the key of the member, as returned by {@link #memberKey(String, String, List)}
+     * @return true if the member is internal
+     */
+    public boolean isInternalMember(String memberKey) {
+        return members.contains(memberKey);
+    }
+
+    /**
+     * Returns the key of a member in the index. Nested parameter types are
+     * keyed with a dot instead of a dollar sign, so that they match whether
+     * they are given with their binary or their canonical name.
+     * @param type the fully qualified name of the declaring type
+     * @param name the name of the member, {@code <init>} for constructors
+     * @param parameterTypes the names of the parameter types, as returned by
+     * {@link #parameterTypeName(String)}, or null for fields
+     * @return the member key
+     */
+    public static String memberKey(String type, String name, List<String> parameterTypes) {
+        if (parameterTypes == null) {
+            return type + "#" + name;
+        }
+        return type + "#" + name + parameterTypes.stream()
+            .map(parameterType -> parameterType.replace('$', '.'))
+            .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    /**
+     * Returns the name of a parameter type as returned by {@link Type#getClassName()},
+     * for example {@code java.lang.String[]}, whether the type is given as a
+     * class name, a varargs type, an internal name or a descriptor.
+     * @param type the parameter type
+     * @return the name of the type
+     */
+    public static String parameterTypeName(String type) {
+        if (type.endsWith("...")) {
+            return parameterTypeName(type.substring(0, type.length() - 3)) + "[]";
+        }
+        if (type.startsWith("[") || (type.startsWith("L") && type.endsWith(";"))) {
+            return Type.getType(type.replace('.', '/')).getClassName();
+        }
+        return type.replace('/', '.');
+    }
+
+    private static void collect(InputStream classFile, Set<String> packages, Set<String> types, Set<String> members, List<String> allTypes) throws IOException {
+        ClassReader reader = new ClassReader(classFile);
+        reader.accept(new ClassVisitor(Opcodes.ASM9) {
+            private String type;
+            private boolean packageInfo;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                type = name.replace('/', '.');
+                packageInfo = name.endsWith("/package-info");
+                if (!packageInfo) {
+                    allTypes.add(type);
+                }
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                if (ApiFingerprint.INTERNAL_ANNOTATION.equals(descriptor)) {
+                    if (packageInfo) {
+                        packages.add(packageOf(type));
+                    } else {
+                        types.add(type);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                return new FieldVisitor(Opcodes.ASM9) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                        if (ApiFingerprint.INTERNAL_ANNOTATION.equals(annotation)) {
+                            members.add(memberKey(type, name, null));
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                        if (ApiFingerprint.INTERNAL_ANNOTATION.equals(annotation)) {
+                            List<String> parameterTypes = Arrays.stream(Type.getArgumentTypes(descriptor))
+                                .map(Type::getClassName)
+                                .collect(Collectors.toList());
+                            members.add(memberKey(type, name, parameterTypes));
+                        }
+                        return null;
+                    }
+                };
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+
+    static boolean isNestedInAnnotatedType(String type, Set<String> annotatedTypes) {
+        int idx = type.lastIndexOf('$');
+        while (idx > 0) {
+            if (annotatedTypes.contains(type.substring(0, idx))) {
+                return true;
+            }
+            idx = type.lastIndexOf('$', idx - 1);
+        }
+        return false;
+    }
+
+    static String packageOf(String type) {
+        int idx = type.lastIndexOf('.');
+        return idx < 0 ? "" : type.substring(0, idx);
+    }
+}
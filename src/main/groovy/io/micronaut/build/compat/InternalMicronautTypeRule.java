@@ -15,12 +15,21 @@
  */
 package io.micronaut.build.compat;
 
+import japicmp.model.JApiBehavior;
+import japicmp.model.JApiCompatibility;
+import japicmp.model.JApiConstructor;
+import japicmp.model.JApiField;
 import japicmp.model.JApiHasAnnotations;
+import japicmp.model.JApiMethod;
+import japicmp.model.JApiParameter;
 import me.champeau.gradle.japicmp.report.Severity;
 import me.champeau.gradle.japicmp.report.Violation;
 import me.champeau.gradle.japicmp.report.ViolationTransformer;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static io.micronaut.build.compat.InternalAnnotationCollectorRule.isAnnotatedWithInternal;
 
@@ -28,6 +37,16 @@ import static io.micronaut.build.compat.InternalAnnotationCollectorRule.isAnnota
  * This rule turns errors on internal types into warnings.
  */
 public class InternalMicronautTypeRule implements ViolationTransformer {
+    private final InternalApiIndex index;
+
+    public InternalMicronautTypeRule() {
+        this(null);
+    }
+
+    public InternalMicronautTypeRule(Map<String, String> params) {
+        this.index = InternalApiIndex.fromParams(params);
+    }
+
     private static boolean isInternalType(String className) {
         return className.startsWith("io.micronaut") && className.contains(".internal.");
     }
@@ -41,16 +60,43 @@ public class InternalMicronautTypeRule implements ViolationTransformer {
      */
     @Override
     public Optional<Violation> transform(String type, Violation violation) {
-        if (isInternalType(type) && violation.getSeverity() == Severity.error) {
+        if ((isInternalType(type) || index.isInternalType(type)) && violation.getSeverity() == Severity.error) {
             return Optional.of(violation.withSeverity(Severity.warning));
         }
-        if (violation.getMember() instanceof JApiHasAnnotations) {
-            JApiHasAnnotations member = (JApiHasAnnotations) violation.getMember();
-            if (isAnnotatedWithInternal(member)) {
-                return Optional.of(violation.withSeverity(Severity.warning));
-            }
+        if (isInternalMember(type, violation.getMember())) {
+            return Optional.of(violation.withSeverity(Severity.warning));
         }
         return Optional.of(violation);
     }
 
+    private boolean isInternalMember(String type, JApiCompatibility member) {
+        if (index.isEmpty()) {
+            // Without an index, fall back to the annotations loaded by japicmp
+            return member instanceof JApiHasAnnotations && isAnnotatedWithInternal((JApiHasAnnotations) member);
+        }
+        String memberKey = memberKeyOf(type, member);
+        return memberKey != null && index.isInternalMember(memberKey);
+    }
+
+    static String memberKeyOf(String type, JApiCompatibility member) {
+        if (member instanceof JApiField) {
+            return InternalApiIndex.memberKey(type, ((JApiField) member).getName(), null);
+        }
+        if (member instanceof JApiConstructor) {
+            return InternalApiIndex.memberKey(type, "<init>", parameterTypesOf((JApiBehavior) member));
+        }
+        if (member instanceof JApiMethod) {
+            return InternalApiIndex.memberKey(type, ((JApiMethod) member).getName(), parameterTypesOf((JApiBehavior) member));
+        }
+        return null;
+    }
+
+    private static List<String> parameterTypesOf(JApiBehavior behavior) {
+        return behavior.getParameters()
+            .stream()
+            .map(JApiParameter::getType)
+            .map(InternalApiIndex::parameterTypeName)
+            .collect(Collectors.toList());
+    }
+
 }
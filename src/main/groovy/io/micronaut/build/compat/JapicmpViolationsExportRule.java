@@ -0,0 +1,130 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import groovy.json.JsonOutput;
+import me.champeau.gradle.japicmp.report.PostProcessViolationsRule;
+import me.champeau.gradle.japicmp.report.Severity;
+import me.champeau.gradle.japicmp.report.Violation;
+import me.champeau.gradle.japicmp.report.ViolationCheckContextWithViolations;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes the violations found by japicmp to a JSON file, in the format
+ * of the violations file of the API fingerprint comparison, so that the
+ * results of modules checked by japicmp can be aggregated too. This rule
+ * must be the last post-process rule, so that it sees the final severity
+ * of the violations.
+ */
+public class JapicmpViolationsExportRule implements PostProcessViolationsRule {
+    public static final String VIOLATIONS_FILE = "violationsFile";
+    public static final String MODULE_NAME = "moduleName";
+
+    private final File violationsFile;
+    private final String moduleName;
+    private final List<AcceptedApiChange> acceptedChanges;
+
+    public JapicmpViolationsExportRule(Map<String, String> params) {
+        this.violationsFile = new File(params.get(VIOLATIONS_FILE));
+        this.moduleName = params.get(MODULE_NAME);
+        String changesFile = params.get(AcceptedApiChangesRule.CHANGES_FILE);
+        if (changesFile != null && new File(changesFile).exists()) {
+            try (FileInputStream fis = new FileInputStream(changesFile)) {
+                this.acceptedChanges = AcceptedApiChangesParser.parse(fis);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            this.acceptedChanges = Collections.emptyList();
+        }
+    }
+
+    @Override
+    public void execute(ViolationCheckContextWithViolations context) {
+        List<Map<String, String>> changes = new ArrayList<>();
+        for (Map.Entry<String, List<Violation>> entry : new TreeMap<>(context.getViolations()).entrySet()) {
+            String type = entry.getKey();
+            for (Violation violation : entry.getValue()) {
+                if (violation.getSeverity() == Severity.info) {
+                    continue;
+                }
+                String member = Violation.describe(violation.getMember());
+                Map<String, String> change = new LinkedHashMap<>();
+                change.put("type", type);
+                change.put("member", member);
+                change.put("explanation", explanationOf(violation));
+                change.put("severity", violation.getSeverity().name());
+                if (violation.getSeverity() == Severity.accepted) {
+                    String reason = acceptanceOf(type, member);
+                    if (reason != null) {
+                        change.put("acceptance", reason);
+                    }
+                }
+                changes.add(change);
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("module", moduleName);
+        result.put("changes", changes);
+        try {
+            Files.createDirectories(violationsFile.toPath().getParent());
+            Files.writeString(violationsFile.toPath(), JsonOutput.toJson(result), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String acceptanceOf(String type, String member) {
+        for (AcceptedApiChange change : acceptedChanges) {
+            if (change.matches(type, member)) {
+                return change.getReason();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the explanation of a violation without the HTML which
+     * is added for the japicmp report, like the instructions to accept
+     * the change.
+     */
+    static String explanationOf(Violation violation) {
+        String explanation = violation.getHumanExplanation();
+        if (explanation == null) {
+            return "";
+        }
+        int html = explanation.indexOf('<');
+        if (html >= 0) {
+            explanation = explanation.substring(0, html).trim();
+            if (explanation.endsWith(".")) {
+                explanation = explanation.substring(0, explanation.length() - 1);
+            }
+        }
+        return explanation.trim();
+    }
+}
@@ -21,23 +21,35 @@ import io.micronaut.build.MicronautPublishingPlugin;
 import io.micronaut.build.pom.MicronautBomExtension;
 import io.micronaut.build.utils.ExternalURLService;
 import me.champeau.gradle.japicmp.JapicmpTask;
+import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFile;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.api.plugins.catalog.internal.TomlFileGenerator;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.provider.ProviderFactory;
+import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.WriteProperties;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.micronaut.build.MicronautPlugin.moduleNameOf;
 
@@ -66,30 +78,97 @@ public class MicronautBinaryCompatibilityPlugin implements Plugin<Project> {
             // https://discuss.gradle.org/t/is-the-default-configuration-leaking-into-independent-configurations/2088/6
             // but we'll have to find a better solution which doesn't reach into other project's state
             project.getPluginManager().withPlugin("java-library", alsoUnused -> {
-                TaskProvider<FindBaselineTask> baselineTask = registerFindBaselineTask(project, binaryCompatibility, tasks, providers);
-                Provider<String> baseline = createBaselineProvider(binaryCompatibility, providers, baselineTask);
+                Baseline baselineLookup = findBaseline(project, binaryCompatibility, tasks, providers);
+                List<Object> baselineDependencies = baselineLookup.dependencies();
+                Provider<String> baseline = baselineLookup.version();
                 String groupAndArtifact = findGroupOf(project) + ":" + moduleNameOf(project.getName());
                 Configuration oldClasspath = createDetachedConfigurationWithWorkaroundGradleResolutionError(project);
                 Configuration oldJar = createDetachedConfigurationWithWorkaroundGradleResolutionError(project);
                 oldClasspath.getDependencies().addLater(baseline.map(version -> project.getDependencies().create(groupAndArtifact + ":" + version)));
                 oldJar.getDependencies().addLater(baseline.map(version -> project.getDependencies().create(groupAndArtifact + ":" + version + "@jar")));
+                Configuration oldFingerprint = createDetachedConfigurationWithWorkaroundGradleResolutionError(project);
+                oldFingerprint.getDependencies().addLater(baseline.map(version -> project.getDependencies().create(groupAndArtifact + ":" + version + ":" + ApiFingerprint.CLASSIFIER + "@" + ApiFingerprint.EXTENSION)));
+                // Versions published before fingerprints were introduced don't have one
+                FileCollection baselineFingerprint = oldFingerprint.getIncoming().artifactView(view -> view.setLenient(true)).getFiles();
+                // The fingerprint task is registered by the publishing plugin, unless publishing is disabled
+                // or the project is a Gradle plugin, in which case the fingerprint is only used for the check
+                TaskProvider<ApiFingerprintTask> fingerprintTask = tasks.getNames().contains(MicronautPublishingPlugin.API_FINGERPRINT_TASK_NAME)
+                    ? tasks.named(MicronautPublishingPlugin.API_FINGERPRINT_TASK_NAME, ApiFingerprintTask.class)
+                    : MicronautPublishingPlugin.registerApiFingerprintTask(project);
+                TaskProvider<ApiFingerprintCompatibilityCheck> fingerprintCompareTask = tasks.register("compareApiFingerprint", ApiFingerprintCompatibilityCheck.class, task -> {
+                    task.onlyIf(t -> binaryCompatibility.getEnabled().getOrElse(true));
+                    task.onlyIf("the baseline version has an API fingerprint", t -> ApiFingerprintCompatibilityCheck.hasReadableFingerprint(baselineFingerprint));
+                    task.dependsOn(baselineDependencies);
+                    task.getBaseline().from(baselineFingerprint);
+                    task.getCurrent().convention(fingerprintTask.flatMap(ApiFingerprintTask::getFingerprint));
+                    task.getAcceptedApiChanges().convention(binaryCompatibility.getAcceptedRegressionsFile());
+                    task.getModuleName().convention(project.getName());
+                    task.getReportFile().convention(project.getLayout().getBuildDirectory().file("reports/binary-compatibility-" + project.getName() + ".txt"));
+                    task.getViolationsFile().convention(project.getLayout().getBuildDirectory().file("reports/binary-compatibility-" + project.getName() + ".json"));
+                });
+                // japicmp is authoritative: it is only skipped if the fingerprint comparison found that the baseline API is preserved
+                Provider<RegularFile> fingerprintViolations = fingerprintCompareTask.flatMap(ApiFingerprintCompatibilityCheck::getViolationsFile);
+                Spec<Task> baselineApiChanged = t -> !ApiFingerprintCompatibilityCheck.hasReadableFingerprint(baselineFingerprint)
+                                                     || !ApiFingerprintCompatibilityCheck.isBaselinePreserved(fingerprintViolations.get().getAsFile());
+                Provider<RegularFile> internalApiIndexFile = project.getLayout().getBuildDirectory().file("internal-api/index.txt");
+                TaskProvider<InternalApiIndexTask> internalApiIndexTask = tasks.register("internalApiIndex", InternalApiIndexTask.class, task -> {
+                    task.onlyIf(t -> binaryCompatibility.getEnabled().getOrElse(true));
+                    task.onlyIf("the API changed since the baseline version", baselineApiChanged);
+                    task.dependsOn(baselineDependencies, fingerprintCompareTask);
+                    task.getArchives().from(oldJar);
+                    task.getIndex().convention(internalApiIndexFile);
+                });
+                // The jars compared by japicmp change with the implementation of the module, so the result of the
+                // previous comparison is reused as long as the API and the relevant accepted changes are the same
+                Provider<RegularFile> currentFingerprint = fingerprintTask.flatMap(ApiFingerprintTask::getFingerprint);
+                Provider<RegularFile> acceptedChangesFile = binaryCompatibility.getAcceptedRegressionsFile();
+                FileCollection oldJarFiles = oldJar.getIncoming().getFiles();
+                Provider<List<String>> relevantAcceptedChanges = currentFingerprint.map(fingerprint ->
+                    ApiComparisonKey.relevantAcceptedChanges(acceptedChangesFile.get().getAsFile(), fingerprint.getAsFile(), baselineFingerprint, oldJarFiles)
+                );
+                Provider<ResolvedComponentResult> runtimeClasspath = project.getConfigurations().getByName("runtimeClasspath").getIncoming().getResolutionResult().getRootComponent();
+                Provider<String> comparisonKey = relevantAcceptedChanges.map(changes ->
+                    ApiComparisonKey.of(baseline.get(), currentFingerprint.get().getAsFile(), changes, runtimeClasspath.get())
+                );
+                Provider<RegularFile> japicmpViolations = project.getLayout().getBuildDirectory().file("binary-compatibility/japicmp-" + project.getName() + ".json");
                 TaskProvider<JapicmpTask> japicmpTask = tasks.register("japiCmp", JapicmpTask.class, task -> {
                     task.onlyIf(t -> binaryCompatibility.getEnabled().getOrElse(true));
-                    task.dependsOn(baselineTask);
+                    task.onlyIf("the API changed since the baseline version", baselineApiChanged);
+                    task.onlyIf("the API or the accepted changes changed since the last comparison", t -> !ApiComparisonKey.matches(comparisonKeyFileOf(t), comparisonKey.get()));
+                    task.dependsOn(baselineDependencies, fingerprintCompareTask, fingerprintTask);
+                    task.getInputs().property("accepted-api-changes", relevantAcceptedChanges);
+                    task.doFirst(new ForgetComparisonKey());
+                    task.doLast(new RecordComparisonKey(comparisonKey));
+                    task.getOutputs().file(japicmpViolations).withPropertyName("violations-file");
                     task.getNewClasspath().from(project.getConfigurations().getByName("runtimeClasspath"));
                     task.getOldClasspath().from(oldClasspath);
                     task.getOldArchives().from(oldJar);
+                    task.getInputs().files(internalApiIndexTask.flatMap(InternalApiIndexTask::getIndex)).withPropertyName("internal-api-index").withPathSensitivity(PathSensitivity.NONE);
                     task.richReport(report -> {
                         report.getReportName().set("binary-compatibility-" + project.getName() + ".html");
                         report.getTitle().set(baseline.map(version -> "Binary compatibility report for Micronaut " + project.getName() + " " + project.getVersion() + " against " + version));
                         report.getAddDefaultRules().set(true);
-                        report.addViolationTransformer(InternalMicronautTypeRule.class);
                         report.addViolationTransformer(JavaBridgeAndSyntheticRule.class);
-                        report.addRule(InternalAnnotationCollectorRule.class);
                         report.addPostProcessRule(InternalAnnotationPostProcessRule.class);
                     });
                     task.getIgnoreMissingClasses().set(true);
                 });
+                TaskProvider<BinaryCompatibilityResultTask> resultTask = tasks.register("binaryCompatibilityResult", BinaryCompatibilityResultTask.class, task -> {
+                    task.dependsOn(fingerprintCompareTask, japicmpTask);
+                    task.getModuleName().convention(project.getName());
+                    task.getChecksEnabled().convention(binaryCompatibility.getEnabled());
+                    task.getBaseline().from(baselineFingerprint);
+                    task.getViolationsFile().convention(fingerprintViolations);
+                    task.getJapicmpViolationsFile().convention(japicmpViolations);
+                    task.getResultFile().convention(project.getLayout().getBuildDirectory().file("binary-compatibility/result-" + project.getName() + ".json"));
+                });
+                // Exposes the comparison results to the aggregated report of the root project
+                project.getConfigurations().create(MicronautBinaryCompatibilityReportPlugin.RESULTS_ELEMENTS, conf -> {
+                    conf.setCanBeConsumed(true);
+                    conf.setCanBeResolved(false);
+                    conf.attributes(attrs -> MicronautBinaryCompatibilityReportPlugin.configureAttributes(attrs, project.getObjects(), MicronautBinaryCompatibilityReportPlugin.RESULTS_TYPE));
+                    conf.getOutgoing().artifact(resultTask.flatMap(BinaryCompatibilityResultTask::getResultFile));
+                });
                 tasks.named("check").configure(task -> task.dependsOn(japicmpTask));
                 project.afterEvaluate(p -> {
                     Task jar = tasks.findByName("shadowJar");
@@ -97,35 +176,45 @@ public class MicronautBinaryCompatibilityPlugin implements Plugin<Project> {
                         jar = tasks.getByName("jar");
                     }
                     Task effectiveJar = jar;
+                    internalApiIndexTask.configure(task -> task.getArchives().from(effectiveJar));
                     japicmpTask.configure(task -> {
                         File changesFile = binaryCompatibility.getAcceptedRegressionsFile().get().getAsFile();
                         String changesFileRelativePath = changesFile.toPath().relativize(p.getBuildFile().toPath()).toString();
-                        if (changesFile.exists()) {
-                            task.getInputs().file(changesFile).withPropertyName("accepted-api-changes").withPathSensitivity(PathSensitivity.NONE).optional(true);
-                        }
                         task.getNewArchives().from(effectiveJar);
-                        task.richReport(report ->
+                        // The rules are instantiated by japicmp, so they are given the path to the index, once the build directory is known
+                        Map<String, String> internalApiIndexParams = Collections.singletonMap(InternalApiIndex.INDEX_FILE,
+                            internalApiIndexTask.flatMap(InternalApiIndexTask::getIndex).get().getAsFile().getAbsolutePath());
+                        Map<String, String> exportParams = new HashMap<>();
+                        exportParams.put(JapicmpViolationsExportRule.VIOLATIONS_FILE, japicmpViolations.get().getAsFile().getAbsolutePath());
+                        exportParams.put(JapicmpViolationsExportRule.MODULE_NAME, project.getName());
+                        exportParams.put(AcceptedApiChangesRule.CHANGES_FILE, changesFile.getAbsolutePath());
+                        task.richReport(report -> {
+                            report.addViolationTransformer(InternalMicronautTypeRule.class, internalApiIndexParams);
+                            report.addRule(InternalAnnotationCollectorRule.class, internalApiIndexParams);
                             report.addViolationTransformer(AcceptedApiChangesRule.class,
                                 Collections.singletonMap(AcceptedApiChangesRule.CHANGES_FILE, changesFileRelativePath)
-                            )
-                        );
+                            );
+                            // Registered last, so that the violations are exported with their final severity
+                            report.addPostProcessRule(JapicmpViolationsExportRule.class, exportParams);
+                        });
                     });
                 });
             });
             project.getPluginManager().withPlugin("io.micronaut.build.internal.bom", alsoUnused -> {
-                TaskProvider<FindBaselineTask> baselineTask = registerFindBaselineTask(project, binaryCompatibility, tasks, providers);
-                Provider<String> baseline = createBaselineProvider(binaryCompatibility, providers, baselineTask);
+                Baseline baselineLookup = findBaseline(project, binaryCompatibility, tasks, providers);
+                List<Object> baselineDependencies = baselineLookup.dependencies();
+                Provider<String> baseline = baselineLookup.version();
                 Configuration baselineConfig = createDetachedConfigurationWithWorkaroundGradleResolutionError(project);
                 baselineConfig.getDependencies().addLater(baseline.map(version -> project.getDependencies().create(findGroupOf(project) + ":" + moduleNameOf(project.getName()) + ":" + version + "@toml")));
                 TaskProvider<VersionCatalogCompatibilityCheck> compatibilityCheckTaskProvider = tasks.register("checkVersionCatalogCompatibility", VersionCatalogCompatibilityCheck.class, task -> {
                     task.onlyIf(t -> binaryCompatibility.getEnabled().getOrElse(true));
-                    if (binaryCompatibility.getBaselineVersion().isPresent()) {
-                        task.getBaseline().fileProvider(providers.provider(baselineConfig::getSingleFile));
-                    } else {
-                        task.getBaseline().fileProvider(baselineTask.map(b -> baselineConfig.getSingleFile()));
+                    task.getBaseline().fileProvider(providers.provider(baselineConfig::getSingleFile));
+                    if (!binaryCompatibility.getBaselineVersion().isPresent()) {
+                        task.dependsOn(baselineDependencies);
                     }
                     task.getCurrent().convention(tasks.named("generateCatalogAsToml", TomlFileGenerator.class).flatMap(TomlFileGenerator::getOutputFile));
                     task.getReportFile().convention(project.getLayout().getBuildDirectory().file("reports/version-catalog-compatibility.txt"));
+                    task.getJsonReportFile().convention(project.getLayout().getBuildDirectory().file("reports/version-catalog-compatibility.json"));
                     MicronautBomExtension bomExtension = project.getExtensions().findByType(MicronautBomExtension.class);
                     task.getAcceptedVersionRegressions().convention(bomExtension.getSuppressions().getAcceptedVersionRegressions());
                     task.getAcceptedLibraryRegressions().convention(bomExtension.getSuppressions().getAcceptedLibraryRegressions());
@@ -163,13 +252,67 @@ public class MicronautBinaryCompatibilityPlugin implements Plugin<Project> {
         );
     }
 
-    private TaskProvider<FindBaselineTask> registerFindBaselineTask(Project project, BinaryCompatibibilityExtension binaryCompatibility, TaskContainer tasks, ProviderFactory providers) {
+    /**
+     * Finds the baseline of this module. The module contributes its
+     * coordinates to the root project and, if the root project aggregates
+     * binary compatibility results, reads its baseline from the baselines
+     * of all modules, found by the root project in a single pass.
+     * Otherwise, the baseline is found by a task of this project.
+     */
+    private Baseline findBaseline(Project project, BinaryCompatibibilityExtension binaryCompatibility, TaskContainer tasks, ProviderFactory providers) {
+        registerCoordinatesElements(project, binaryCompatibility, providers);
+        Configuration aggregatedBaselinesConfig = project.getConfigurations().maybeCreate("binaryCompatibilityBaselines");
+        aggregatedBaselinesConfig.setCanBeConsumed(false);
+        aggregatedBaselinesConfig.setCanBeResolved(true);
+        aggregatedBaselinesConfig.attributes(attrs -> MicronautBinaryCompatibilityReportPlugin.configureAttributes(attrs, project.getObjects(), MicronautBinaryCompatibilityReportPlugin.BASELINES_TYPE));
+        if (project != project.getRootProject() && aggregatedBaselinesConfig.getDependencies().isEmpty()) {
+            aggregatedBaselinesConfig.getDependencies().add(project.getDependencies().project(Collections.singletonMap("path", ":")));
+        }
+        // Empty unless the report plugin is applied to the root project
+        FileCollection aggregatedBaselines = aggregatedBaselinesConfig.getIncoming().artifactView(view -> view.setLenient(true)).getFiles();
+        TaskProvider<FindBaselineTask> baselineTask = registerFindBaselineTask(project, binaryCompatibility, tasks, providers, aggregatedBaselines);
+        String moduleName = project.getName();
+        Provider<String> aggregatedBaseline = providers.provider(() -> {
+            if (aggregatedBaselines.isEmpty()) {
+                return null;
+            }
+            return FindBaselinesTask.readBaseline(Files.readString(aggregatedBaselines.getSingleFile().toPath(), StandardCharsets.UTF_8), moduleName);
+        });
+        return new Baseline(List.of(baselineTask, aggregatedBaselines), binaryCompatibility.getBaselineVersion()
+            .orElse(aggregatedBaseline)
+            .orElse(createBaselineProvider(binaryCompatibility, providers, baselineTask)));
+    }
+
+    /**
+     * Exposes the coordinates of this module, and whether it needs a baseline
+     * to be found, to the root project.
+     */
+    private static void registerCoordinatesElements(Project project, BinaryCompatibibilityExtension binaryCompatibility, ProviderFactory providers) {
+        if (project.getConfigurations().findByName(MicronautBinaryCompatibilityReportPlugin.COORDINATES_ELEMENTS) != null) {
+            return;
+        }
+        TaskProvider<WriteProperties> coordinatesTask = project.getTasks().register("binaryCompatibilityCoordinates", WriteProperties.class, task -> {
+            task.property("module", project.getName());
+            task.property("coordinates", providers.provider(() -> project.getGroup() + ":" + artifactIdOf(project) + ":" + project.getVersion()));
+            task.property("findBaseline", providers.provider(() -> binaryCompatibility.getEnabled().getOrElse(true) && !binaryCompatibility.getBaselineVersion().isPresent()));
+            task.getDestinationFile().convention(project.getLayout().getBuildDirectory().file("binary-compatibility/coordinates.properties"));
+        });
+        project.getConfigurations().create(MicronautBinaryCompatibilityReportPlugin.COORDINATES_ELEMENTS, conf -> {
+            conf.setCanBeConsumed(true);
+            conf.setCanBeResolved(false);
+            conf.attributes(attrs -> MicronautBinaryCompatibilityReportPlugin.configureAttributes(attrs, project.getObjects(), MicronautBinaryCompatibilityReportPlugin.COORDINATES_TYPE));
+            conf.getOutgoing().artifact(coordinatesTask.flatMap(WriteProperties::getDestinationFile));
+        });
+    }
+
+    private TaskProvider<FindBaselineTask> registerFindBaselineTask(Project project, BinaryCompatibibilityExtension binaryCompatibility, TaskContainer tasks, ProviderFactory providers, FileCollection aggregatedBaselines) {
         Provider<ExternalURLService> downloader = ExternalURLService.registerOn(project);
         return tasks.register("findBaseline", FindBaselineTask.class, task -> {
             task.onlyIf(t ->
                 binaryCompatibility.getEnabled().getOrElse(true) &&
                 !binaryCompatibility.getBaselineVersion().isPresent()
             );
+            task.onlyIf("the baselines are not found by the root project", t -> aggregatedBaselines.isEmpty());
             task.usesService(downloader);
             task.getDownloader().set(downloader);
             task.getBaseRepository().convention("https://repo1.maven.org/maven2");
@@ -189,11 +332,50 @@ public class MicronautBinaryCompatibilityPlugin implements Plugin<Project> {
         return "+";
     }
 
-    private static String artifactIdOf(Project project) {
+    static String artifactIdOf(Project project) {
         String name = project.getName();
         if (name.startsWith("micronaut-")) {
             return name;
         }
         return "micronaut-" + name;
     }
+
+    private static File comparisonKeyFileOf(Task task) {
+        return new File(task.getTemporaryDir(), "api-comparison-key.txt");
+    }
+
+    /**
+     * Deletes the key of the previous comparison, so that a failed
+     * comparison is not reused.
+     */
+    private static final class ForgetComparisonKey implements Action<Task> {
+        @Override
+        public void execute(Task task) {
+            try {
+                Files.deleteIfExists(comparisonKeyFileOf(task).toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class RecordComparisonKey implements Action<Task> {
+        private final Provider<String> comparisonKey;
+
+        private RecordComparisonKey(Provider<String> comparisonKey) {
+            this.comparisonKey = comparisonKey;
+        }
+
+        @Override
+        public void execute(Task task) {
+            try {
+                Files.writeString(comparisonKeyFileOf(task).toPath(), comparisonKey.get(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private record Baseline(List<Object> dependencies, Provider<String> version) {
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import io.micronaut.build.utils.ExternalURLService;
+import org.gradle.api.GradleException;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.VerificationType;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskProvider;
+
+/**
+ * A plugin to be applied on the root project, which finds the baseline
+ * versions of all modules in a single pass, and aggregates the binary
+ * compatibility results of all modules into a single report.
+ *
+ * Modules and the root project only exchange files through variant aware
+ * configurations: each module contributes its coordinates and its results,
+ * and consumes the baselines found by the root project.
+ */
+public class MicronautBinaryCompatibilityReportPlugin implements Plugin<Project> {
+    public static final String REPORT_TASK_NAME = "binaryCompatibilityReport";
+    public static final String FIND_BASELINES_TASK_NAME = "findBaselines";
+    static final String RESULTS_ELEMENTS = "binaryCompatibilityResultsElements";
+    static final String COORDINATES_ELEMENTS = "binaryCompatibilityCoordinatesElements";
+    static final String BASELINES_ELEMENTS = "binaryCompatibilityBaselinesElements";
+    static final String RESULTS_TYPE = "binary-compatibility-results";
+    static final String COORDINATES_TYPE = "binary-compatibility-coordinates";
+    static final String BASELINES_TYPE = "binary-compatibility-baselines";
+
+    @Override
+    public void apply(Project rootProject) {
+        if (!rootProject.equals(rootProject.getRootProject())) {
+            throw new GradleException("The binary compatibility report plugin must only be applied to the root project");
+        }
+        // Modules which don't have the binary compatibility plugin applied don't provide results nor coordinates
+        FileCollection results = aggregate(rootProject, "binaryCompatibilityAggregation", RESULTS_TYPE);
+        FileCollection coordinates = aggregate(rootProject, "binaryCompatibilityCoordinates", COORDINATES_TYPE);
+        Provider<ExternalURLService> downloader = ExternalURLService.registerOn(rootProject);
+        TaskProvider<FindBaselinesTask> findBaselines = rootProject.getTasks().register(FIND_BASELINES_TASK_NAME, FindBaselinesTask.class, task -> {
+            task.setDescription("Finds the baseline versions of all modules");
+            task.usesService(downloader);
+            task.getDownloader().set(downloader);
+            task.getBaseRepository().convention("https://repo1.maven.org/maven2");
+            task.getModuleCoordinates().from(coordinates);
+            task.getBaselines().convention(rootProject.getLayout().getBuildDirectory().file("baselines.json"));
+        });
+        rootProject.getConfigurations().create(BASELINES_ELEMENTS, conf -> {
+            conf.setCanBeConsumed(true);
+            conf.setCanBeResolved(false);
+            conf.attributes(attrs -> configureAttributes(attrs, rootProject.getObjects(), BASELINES_TYPE));
+            conf.getOutgoing().artifact(findBaselines.flatMap(FindBaselinesTask::getBaselines));
+        });
+        rootProject.getTasks().register(REPORT_TASK_NAME, BinaryCompatibilityReportTask.class, task -> {
+            task.setDescription("Aggregates the binary compatibility results of all modules");
+            task.getResults().from(results);
+            task.getJsonReport().convention(rootProject.getLayout().getBuildDirectory().file("reports/binary-compatibility/report.json"));
+            task.getHtmlReport().convention(rootProject.getLayout().getBuildDirectory().file("reports/binary-compatibility/report.html"));
+        });
+    }
+
+    private static FileCollection aggregate(Project rootProject, String name, String verificationType) {
+        Configuration aggregation = rootProject.getConfigurations().create(name, conf -> {
+            conf.setCanBeConsumed(false);
+            conf.setCanBeResolved(true);
+            conf.attributes(attrs -> configureAttributes(attrs, rootProject.getObjects(), verificationType));
+        });
+        rootProject.getSubprojects().forEach(subproject ->
+            aggregation.getDependencies().add(rootProject.getDependencies().create(subproject))
+        );
+        return aggregation.getIncoming().artifactView(view -> view.setLenient(true)).getFiles();
+    }
+
+    static void configureAttributes(AttributeContainer attributes, ObjectFactory objects, String verificationType) {
+        attributes.attribute(Category.CATEGORY_ATTRIBUTE, objects.named(Category.class, Category.VERIFICATION));
+        attributes.attribute(VerificationType.VERIFICATION_TYPE_ATTRIBUTE, objects.named(VerificationType.class, verificationType));
+    }
+}
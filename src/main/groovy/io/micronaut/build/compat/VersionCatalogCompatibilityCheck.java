@@ -15,16 +15,17 @@
  */
 package io.micronaut.build.compat;
 
+import groovy.json.JsonOutput;
 import io.micronaut.build.catalogs.internal.LenientVersionCatalogParser;
-import io.micronaut.build.catalogs.internal.Library;
+import io.micronaut.build.catalogs.internal.VersionCatalogDiff;
 import io.micronaut.build.catalogs.internal.VersionCatalogTomlModel;
-import io.micronaut.build.catalogs.internal.VersionModel;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.SetProperty;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
@@ -35,14 +36,25 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+
+import static io.micronaut.build.catalogs.internal.VersionCatalogDiff.ChangeType.COORDINATES_CHANGED;
+import static io.micronaut.build.catalogs.internal.VersionCatalogDiff.ChangeType.DOWNGRADED;
+import static io.micronaut.build.catalogs.internal.VersionCatalogDiff.ChangeType.REMOVED;
+import static io.micronaut.build.catalogs.internal.VersionCatalogDiff.Section.LIBRARIES;
+import static io.micronaut.build.catalogs.internal.VersionCatalogDiff.Section.VERSIONS;
 
 /**
  * This task is responsible for checking the compatibility of version catalogs
- * over time.
+ * over time. The catalogs are compared using a {@link VersionCatalogDiff}:
+ * the task fails if versions or libraries were removed, if versions were
+ * downgraded or if the coordinates of libraries changed, unless these
+ * regressions were accepted. All differences, including the ones which
+ * do not break compatibility, are written to an optional JSON report.
  */
 @CacheableTask
 public abstract class VersionCatalogCompatibilityCheck extends DefaultTask {
@@ -63,58 +75,69 @@ public abstract class VersionCatalogCompatibilityCheck extends DefaultTask {
     @OutputFile
     public abstract RegularFileProperty getReportFile();
 
+    @OutputFile
+    @Optional
+    public abstract RegularFileProperty getJsonReportFile();
+
     @TaskAction
     public void checkCompatibility() throws IOException {
-        VersionCatalogTomlModel baselineModel = parse(getBaseline());
-        VersionCatalogTomlModel currentModel = parse(getCurrent());
-        Set<String> removedVersions = diff(collectVersionsFrom(baselineModel), collectVersionsFrom(currentModel), getAcceptedVersionRegressions().get());
-        Set<String> removedLibs = diff(collectLibrariesFrom(baselineModel), collectLibrariesFrom(currentModel), getAcceptedLibraryRegressions().get());
+        VersionCatalogDiff diff = VersionCatalogDiff.compare(parse(getBaseline()), parse(getCurrent()));
+        Set<String> acceptedVersions = getAcceptedVersionRegressions().get();
+        Set<String> acceptedLibraries = getAcceptedLibraryRegressions().get();
         List<String> report = new ArrayList<>();
         boolean fail = false;
-        if (!removedVersions.isEmpty()) {
-            fail = true;
-            report.add("The following versions were present in the baseline version but missing from this catalog:");
-            removedVersions.forEach(version -> report.add("  - " + version));
-        }
-        if (!removedLibs.isEmpty()) {
-            fail = true;
-            report.add("The following libraries were present in the baseline version but missing from this catalog:");
-            removedLibs.forEach(version -> report.add("  - " + version));
-        }
+        fail |= reportRegressions(report, "The following versions were present in the baseline version but missing from this catalog:",
+            diff.getChanges(VERSIONS, EnumSet.of(REMOVED)), acceptedVersions, VersionCatalogDiff.Change::alias);
+        fail |= reportRegressions(report, "The following libraries were present in the baseline version but missing from this catalog:",
+            diff.getChanges(LIBRARIES, EnumSet.of(REMOVED)), acceptedLibraries, VersionCatalogDiff.Change::alias);
+        fail |= reportRegressions(report, "The following versions were downgraded:",
+            diff.getChanges(VERSIONS, EnumSet.of(DOWNGRADED)), acceptedVersions, VersionCatalogCompatibilityCheck::describeChange);
+        fail |= reportRegressions(report, "The following libraries were downgraded:",
+            diff.getChanges(LIBRARIES, EnumSet.of(DOWNGRADED)), acceptedLibraries, VersionCatalogCompatibilityCheck::describeChange);
+        fail |= reportRegressions(report, "The following libraries have different coordinates than in the baseline version:",
+            diff.getChanges(LIBRARIES, EnumSet.of(COORDINATES_CHANGED)), acceptedLibraries, VersionCatalogCompatibilityCheck::describeChange);
         Files.write(getReportFile().getAsFile().get().toPath(), report, StandardCharsets.UTF_8);
+        if (getJsonReportFile().isPresent()) {
+            var json = new LinkedHashMap<String, Object>();
+            json.put("compatible", !fail);
+            json.put("acceptedVersionRegressions", acceptedVersions.stream().sorted().toList());
+            json.put("acceptedLibraryRegressions", acceptedLibraries.stream().sorted().toList());
+            json.putAll(diff.toJsonModel());
+            Files.writeString(getJsonReportFile().getAsFile().get().toPath(), JsonOutput.prettyPrint(JsonOutput.toJson(json)), StandardCharsets.UTF_8);
+        }
         if (fail) {
             throw new RuntimeException("Version catalogs are not compatible:\n" + String.join("\n", report));
         }
     }
 
-    private static Set<String> collectVersionsFrom(VersionCatalogTomlModel model) {
-        return model.getVersionsTable()
-                .stream()
-                .map(VersionModel::getReference)
-                .collect(Collectors.toSet());
+    private static boolean reportRegressions(List<String> report,
+                                             String title,
+                                             List<VersionCatalogDiff.Change> changes,
+                                             Set<String> accepted,
+                                             Function<VersionCatalogDiff.Change, String> description) {
+        List<String> regressions = changes.stream()
+            .filter(change -> !accepted.contains(change.alias()))
+            .map(description)
+            .toList();
+        if (regressions.isEmpty()) {
+            return false;
+        }
+        report.add(title);
+        regressions.forEach(regression -> report.add("  - " + regression));
+        return true;
     }
 
-    private static Set<String> collectLibrariesFrom(VersionCatalogTomlModel model) {
-        return model.getLibrariesTable()
-                .stream()
-                .map(Library::getAlias)
-                .collect(Collectors.toSet());
+    private static String describeChange(VersionCatalogDiff.Change change) {
+        return change.alias() + " (" + change.baseline() + " -> " + change.current() + ")";
     }
 
     private VersionCatalogTomlModel parse(RegularFileProperty file) {
         LenientVersionCatalogParser parser = new LenientVersionCatalogParser();
-        try (InputStream in = Files.newInputStream( file.getAsFile().get().toPath())) {
+        try (InputStream in = Files.newInputStream(file.getAsFile().get().toPath())) {
             parser.parse(in);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         return parser.getModel();
     }
-
-    private static Set<String> diff(Set<String> baseline, Set<String> current, Set<String> acceptedRegressions) {
-        Set<String> removedVersions = new HashSet<>(baseline);
-        removedVersions.removeAll(current);
-        removedVersions.removeAll(acceptedRegressions);
-        return removedVersions;
-    }
 }
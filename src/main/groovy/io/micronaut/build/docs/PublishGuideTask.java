@@ -29,6 +29,8 @@ import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputDirectory;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.LocalState;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.PathSensitive;
@@ -74,6 +76,16 @@ public abstract class PublishGuideTask extends DefaultTask {
     @Input
     public abstract MapProperty<String, Object> getProperties();
 
+    /**
+     * The directory where rendered sections are cached, so that
+     * only the sections which changed are rendered again.
+     */
+    @LocalState
+    public abstract DirectoryProperty getRenderCacheDir();
+
+    @Internal
+    public abstract Property<AsciidoctorService> getAsciidoctorService();
+
     @Inject
     protected abstract FileOperations getFileOperations();
 
@@ -86,6 +98,7 @@ public abstract class PublishGuideTask extends DefaultTask {
         getTargetDir().convention(buildDirectory.dir("docs"));
         getResourcesDir().convention(projectDirectory.dir("resources"));
         getAsciidoc().convention(false);
+        getRenderCacheDir().convention(buildDirectory.dir("tmp/" + getName() + "/render-cache"));
     }
 
     private static void loadProperties(Properties into, File src) throws IOException {
@@ -115,6 +128,7 @@ public abstract class PublishGuideTask extends DefaultTask {
         publisher.setAsciidoc(getAsciidoc().get());
         publisher.setDocResources(getResourcesDir().getAsFile().get());
         publisher.setApiDir(targetDir);
+        publisher.setRenderCacheDir(getRenderCacheDir().getAsFile().getOrNull());
         publisher.setLanguage(getLanguage().getOrElse(""));
         publisher.setSourceRepo(getSourceRepo().getOrNull());
         publisher.setImages(getResourcesDir().dir("img").get().getAsFile());
@@ -146,6 +160,18 @@ public abstract class PublishGuideTask extends DefaultTask {
         // {hidden} macro for enabling translations.
         publisher.registerMacro(new HiddenMacro());
 
+        if (getAsciidoc().get() && getAsciidoctorService().isPresent()) {
+            getAsciidoctorService().get().withAsciidoctor(asciidoctor -> {
+                publisher.setAsciidoctor(asciidoctor);
+                publish(publisher);
+                return null;
+            });
+        } else {
+            publish(publisher);
+        }
+    }
+
+    private static void publish(DocPublisher publisher) {
         // Radeox loads its bundles off the context class loader, which
         // unfortunately doesn't contain the grails-docs JAR. So, we
         // temporarily switch the DocPublisher class loader into the
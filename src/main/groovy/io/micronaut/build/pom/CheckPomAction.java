@@ -15,68 +15,56 @@
  */
 package io.micronaut.build.pom;
 
-import groovy.json.JsonGenerator;
-import groovy.json.JsonOutput;
-import org.gradle.api.GradleException;
-import org.gradle.api.file.DirectoryProperty;
-import org.gradle.api.file.RegularFileProperty;
-import org.gradle.api.provider.ListProperty;
-import org.gradle.api.provider.Property;
-import org.gradle.workers.WorkAction;
-import org.gradle.workers.WorkParameters;
-
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 /**
- * This work action is responsible for checking the contents of a POM file.
+ * This action is responsible for checking the contents of a POM file.
  * It will verify that:
  * <ul>
  *     <li>All dependencies declared in the POM file exist in a repository</li>
  *     <li>If it's a BOM file, verify that all the dependencies it talks about belong to the same group as the BOM itself</li>
  *     <li>If it's a BOM file, make sure that it doesn't import other BOMs</li>
  * </ul>
+ * Checks are scheduled by the {@link PomCheckService}.
  */
-public abstract class CheckPomAction implements WorkAction<CheckPomAction.Parameters> {
-    interface Parameters extends WorkParameters {
-        Property<String> getDependencyPath();
-
-        ListProperty<String> getRepositories();
-
-        Property<String> getGroupId();
-
-        Property<String> getArtifactId();
+public final class CheckPomAction {
+    private final PomDownloader downloader;
+    private final PomParser parser;
+    private final Parameters parameters;
 
-        Property<String> getVersion();
-
-        RegularFileProperty getPomFile();
-
-        RegularFileProperty getReportFile();
+    record Parameters(
+        String dependencyPath,
+        String groupId,
+        String artifactId,
+        String version,
+        File pomFile
+    ) {
+    }
 
-        DirectoryProperty getPomDirectory();
+    /**
+     * Creates a POM check.
+     * @param downloader the downloader, which can be shared by several checks
+     * @param parser the parser, which can be shared by several checks
+     * @param parameters the check parameters
+     */
+    CheckPomAction(PomDownloader downloader, PomParser parser, Parameters parameters) {
+        this.downloader = downloader;
+        this.parser = parser;
+        this.parameters = parameters;
     }
 
-    @Override
-    public void execute() {
-        String dependencyPath = getParameters().getDependencyPath().get();
-        File pomFile = getParameters().getPomFile().getAsFile().get();
-        File reportFile = getParameters().getReportFile().getAsFile().get();
-        String groupId = getParameters().getGroupId().get();
-        String artifactId = getParameters().getArtifactId().get();
-        String version = getParameters().getVersion().get();
-        File pomDirectory = getParameters().getPomDirectory().getAsFile().get();
-        List<String> repositories = getParameters().getRepositories().get();
-        PomDownloader downloader = new PomDownloader(repositories, pomDirectory);
-        PomParser parser = new PomParser(downloader);
+    public PomValidation execute() {
+        String dependencyPath = parameters.dependencyPath();
+        File pomFile = parameters.pomFile();
+        String groupId = parameters.groupId();
+        String artifactId = parameters.artifactId();
+        String version = parameters.version();
         PomFile pom = parser.parse(pomFile, groupId, artifactId, version);
         Map<String, String> foundDependencies = Collections.synchronizedMap(new LinkedHashMap<>());
         Set<String> missingDependencies = Collections.synchronizedSet(new LinkedHashSet<>());
@@ -89,16 +77,7 @@ public abstract class CheckPomAction implements WorkAction<CheckPomAction.Parame
                 missingDependencies.add(key);
             }
         });
-        PomValidation validation = new PomValidation(dependencyPath, pom, foundDependencies, missingDependencies);
-        JsonGenerator generator = new JsonGenerator.Options()
-                .excludeFieldsByName("import", "importingBom")
-                .build();
-        String json = JsonOutput.prettyPrint(generator.toJson(validation));
-        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8")) {
-            writer.write(json);
-        } catch (IOException e) {
-            throw new GradleException("Unable to write report", e);
-        }
+        return new PomValidation(dependencyPath, pom, foundDependencies, missingDependencies);
     }
 
 }
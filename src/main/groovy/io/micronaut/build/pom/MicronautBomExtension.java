@@ -116,6 +116,16 @@ public interface MicronautBomExtension {
      */
     Property<Boolean> getInlineRegularBOMs();
 
+    /**
+     * If set to true, the timing trace of the BOM and catalog generation,
+     * which is written next to the inlining log, is also exported in the
+     * Chrome trace event format, so that it can be opened in
+     * {@code chrome://tracing} or Perfetto.
+     *
+     * @return the export property
+     */
+    Property<Boolean> getExportChromeTrace();
+
     /**
      * Defines which aliases shouldn't be lined when importing other
      * catalogs. If empty, no aliases will be inlined except the ones
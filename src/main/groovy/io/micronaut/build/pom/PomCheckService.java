@@ -0,0 +1,90 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.pom;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A build service which schedules the POM checks of all the POM checker
+ * tasks of the build on a single pool of threads, sized after the maximum
+ * number of workers. Because checks are submitted individually, a POM
+ * checker can schedule the check of a BOM as soon as the BOM which imports
+ * it has been checked, instead of waiting for a whole level of the BOM
+ * graph to be processed.
+ *
+ * The service also keeps the POM files parsed during the build, so that
+ * a POM file, for example a parent POM shared by many BOMs, is parsed
+ * once even if it is reached from several POM checker tasks.
+ */
+public abstract class PomCheckService implements BuildService<PomCheckService.Params>, AutoCloseable {
+    public static final String NAME = "pomCheckService";
+
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, PomParser.ParsedPom> parsedPoms = new ConcurrentHashMap<>();
+
+    interface Params extends BuildServiceParameters {
+        Property<Integer> getMaxParallelism();
+    }
+
+    public PomCheckService() {
+        var threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(getParameters().getMaxParallelism().get(), r -> {
+            var thread = new Thread(r, "pom-checker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a POM parser which shares the POM files parsed during the build.
+     * @param downloader the downloader used to fetch parent POM files
+     * @return a parser
+     */
+    PomParser newParser(PomDownloader downloader) {
+        return new PomParser(downloader, parsedPoms);
+    }
+
+    /**
+     * Schedules a POM check.
+     * @param action the check to perform
+     * @return the future result of the check
+     */
+    CompletableFuture<PomValidation> submit(CheckPomAction action) {
+        return CompletableFuture.supplyAsync(action::execute, executor);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public static Provider<PomCheckService> registerOn(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(NAME, PomCheckService.class, spec ->
+            spec.getParameters().getMaxParallelism().set(project.getGradle().getStartParameter().getMaxWorkerCount())
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package io.micronaut.build.pom
 
+import groovy.json.JsonOutput
 import groovy.transform.CompileStatic
 import org.gradle.api.DefaultTask
 import org.gradle.api.GradleException
@@ -17,9 +18,11 @@ import org.gradle.api.tasks.OutputDirectory
 import org.gradle.api.tasks.PathSensitive
 import org.gradle.api.tasks.PathSensitivity
 import org.gradle.api.tasks.TaskAction
-import org.gradle.workers.WorkerExecutor
 
-import javax.inject.Inject
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.CompletionException
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.function.Supplier
 
 import static org.gradle.language.base.plugins.LifecycleBasePlugin.VERIFICATION_GROUP
 
@@ -32,6 +35,14 @@ abstract class PomChecker extends DefaultTask {
     @Input
     abstract Property<String> getPomCoordinates()
 
+    /**
+     * Coordinates of additional root POMs, which are downloaded from the
+     * repositories. The union of the graphs of all roots is verified once,
+     * and each error is attributed to every root which reaches it.
+     */
+    @Input
+    abstract ListProperty<String> getAdditionalRootCoordinates()
+
     @Input
     abstract Property<Boolean> getFailOnSnapshots()
 
@@ -56,13 +67,31 @@ abstract class PomChecker extends DefaultTask {
     @Internal
     abstract DirectoryProperty getPomsDirectory()
 
-    @Inject
-    abstract WorkerExecutor getWorkerExecutor()
+    /**
+     * If set to true, POM files are looked up in the local Maven
+     * repositories and in the Gradle module cache before downloading
+     * them. This makes the check mostly offline when the caches are
+     * warm, but a POM file which is only available locally would then
+     * be considered resolvable.
+     */
+    @Input
+    abstract Property<Boolean> getUseLocalCaches()
+
+    @Internal
+    abstract ListProperty<File> getLocalMavenRepositories()
+
+    @Internal
+    abstract DirectoryProperty getGradleModuleCache()
+
+    @Internal
+    abstract Property<PomCheckService> getPomCheckService()
 
     PomChecker() {
         description = "Verifies a POM file"
         group = VERIFICATION_GROUP
         getFailOnError().convention(true)
+        getUseLocalCaches().convention(false)
+        getAdditionalRootCoordinates().convention([])
         getFailOnSnapshots().convention(getPomCoordinates().map(v -> !v.endsWith("-SNAPSHOT")))
         getProjectGroup().convention(
                 project.providers.gradleProperty("projectGroup")
@@ -75,61 +104,47 @@ abstract class PomChecker extends DefaultTask {
     void verifyBom() {
         Set<String> silencedDeps = suppressions.get().dependencies.get()
         Map<String, Set<String>> bomAuthorizedGroupIds = suppressions.get().bomAuthorizedGroupIds.get()
-        ErrorCollector errorCollector = new ErrorCollector(silencedDeps)
-        def coordinates = pomCoordinates.get().split(':')
-        if (coordinates.length != 3) {
-            throw new GradleException("Incorrect POM coordinates '${pomCoordinates.get()}': should be of the form group:artifact:version ")
+        ErrorCollector errorCollector = new ErrorCollector(new SuppressionIndex(silencedDeps, bomAuthorizedGroupIds))
+        List<PomCheck> roots = [rootCheck(pomCoordinates.get(), pomFile.asFile.getOrNull())]
+        additionalRootCoordinates.get().each {
+            def root = rootCheck(it, null)
+            if (!roots.any { it.key == root.key }) {
+                roots.add(root)
+            }
         }
-        def queue = new ArrayDeque<List<Object>>()
-        queue.add([coordinates[0], coordinates[1], coordinates[2], pomFile.get().asFile, pomCoordinates.get()] as List<Object>)
-        def workQueue = workerExecutor.noIsolation()
-        Set<String> seen = []
+        def validations = verifyAll(roots)
+        // Checks complete in any order, so errors are collected by walking the
+        // BOM graph breadth-first, which makes the report deterministic
+        def queue = new ArrayDeque<PomCheck>(roots)
+        Set<String> seen = roots.collect { it.key } as Set<String>
+        String projectGroupId = projectGroup.getOrElse("io.micronaut")
+        List<PomCheck> checks = []
         while (!queue.isEmpty()) {
-            List<File> reports = []
-            queue.each { item ->
-                def (group, artifact, version, pomFile, path) = [item[0], item[1], item[2], item[3], item[4]]
-                String key = "${group}:${artifact}:${version}"
-                if (seen.add(key)) {
-                    workQueue.submit(CheckPomAction) { CheckPomAction.Parameters params ->
-                        params.pomFile.set((File) pomFile)
-                        params.groupId.set((String) group)
-                        params.artifactId.set((String) artifact)
-                        params.version.set((String) version)
-                        params.repositories.set(repositories)
-                        params.getDependencyPath().set((String) path)
-                        def reportFile = reportDirectory.file("${group}-${artifact}-${version}.json")
-                        reports.add(reportFile.get().asFile)
-                        params.reportFile.set(reportFile)
-                        params.pomDirectory.set(pomsDirectory)
+            def check = queue.poll()
+            def validation = validations.get(check.key)
+            int firstError = errorCollector.errors.size()
+            String bomPrefix = "POM ${validation.pomFile.groupId}:${validation.pomFile.artifactId}:${validation.pomFile.version} (via ${check.dependencyPath})"
+            assertThatImportingBomIsAllowed(validation, check.dependencyPath, errorCollector)
+            if (validation.pomFile.bom) {
+                transitiveBoms(validation, check.dependencyPath).each {
+                    if (seen.add(it.key)) {
+                        queue.add(it)
                     }
                 }
-            }
-            workQueue.await()
-            queue.clear()
-            reports.each {
-                String projectGroupId = projectGroup.getOrElse("io.micronaut")
-                def validation = PomFileAdapter.parseFromFile(it)
-                String bomPrefix = "POM ${validation.pomFile.groupId}:${validation.pomFile.artifactId}:${validation.pomFile.version} (via ${validation.dependencyPath})"
-                assertThatImportingBomIsAllowed(validation, errorCollector)
-                if (validation.pomFile.bom) {
-                    addTransitiveBomsToQueue(validation, queue)
-                    if (validation.pomFile.dependencies.any { !it.managed }) {
-                        errorCollector.errors.add("$bomPrefix has dependencies outside of <dependencyManagement> block.".toString())
-                    }
-                    def groupId = validation.pomFile.groupId
-                    def artifactId = validation.pomFile.artifactId
-                    def version = validation.pomFile.version
-                    Set<String> allowedGroups = bomAuthorizedGroupIds.get("${groupId}:${artifactId}".toString())
-                    if (allowedGroups == null) {
-                        allowedGroups = bomAuthorizedGroupIds.getOrDefault("${groupId}:${artifactId}:${version}".toString(), [] as Set)
-                    }
-                    if (!groupId.startsWith(projectGroupId) && !isMicronautBom(groupId, artifactId)) {
-                        validation.pomFile.dependencies.findAll {
-                            it.managed && !it.groupId.startsWith(groupId)
-                        }.each {
-                            String dependency = "${it.groupId}:${it.artifactId}:${it.version}"
-                            String message = "$bomPrefix declares dependency on ${dependency} which doesn't belong to group ${groupId}.".toString()
-                            if (allowedGroups.contains(it.groupId)) {
+                if (validation.pomFile.dependencies.any { !it.managed }) {
+                    errorCollector.errors.add("$bomPrefix has dependencies outside of <dependencyManagement> block.".toString())
+                }
+                def groupId = validation.pomFile.groupId
+                def artifactId = validation.pomFile.artifactId
+                def version = validation.pomFile.version
+                if (!groupId.startsWith(projectGroupId) && !isMicronautBom(groupId, artifactId)) {
+                    Set<String> allowedGroups = errorCollector.suppressions.authorizedGroups(groupId, artifactId, version)
+                    for (PomDependency dependency : validation.pomFile.dependencies) {
+                        if (dependency.managed && !dependency.groupId.startsWith(groupId)) {
+                            Supplier<String> message = { ->
+                                "$bomPrefix declares dependency on ${coordinatesOf(dependency)} which doesn't belong to group ${groupId}.".toString()
+                            }
+                            if (allowedGroups.contains(dependency.groupId)) {
                                 errorCollector.silenced(message)
                             } else {
                                 errorCollector.error(dependency, message)
@@ -137,23 +152,33 @@ abstract class PomChecker extends DefaultTask {
                         }
                     }
                 }
-                validation.invalidDependencies.each {
-                    if (!it.startsWith(projectGroupId) && !it.endsWith("-SNAPSHOT")) {
-                        errorCollector.error(it, "$bomPrefix declares a non-resolvable dependency: $it".toString())
+            }
+            for (String invalidDependency : validation.invalidDependencies) {
+                if (!invalidDependency.startsWith(projectGroupId) && !invalidDependency.endsWith("-SNAPSHOT")) {
+                    errorCollector.error(invalidDependency) { ->
+                        "$bomPrefix declares a non-resolvable dependency: $invalidDependency".toString()
                     }
                 }
-                if (failOnSnapshots.get()) {
-                    validation.pomFile.dependencies.findAll {
-                        !it.groupId.equals(projectGroupId) && it.version.endsWith("-SNAPSHOT")
-                    }.each {
-                        String dependency = "${it.groupId}:${it.artifactId}:${it.version}"
-                        errorCollector.error(dependency, "$bomPrefix declares a SNAPSHOT dependency on ${dependency}".toString())
+            }
+            if (failOnSnapshots.get()) {
+                for (PomDependency dependency : validation.pomFile.dependencies) {
+                    if (!dependency.groupId.equals(projectGroupId) && dependency.version.endsWith("-SNAPSHOT")) {
+                        errorCollector.error(dependency) { ->
+                            "$bomPrefix declares a SNAPSHOT dependency on ${coordinatesOf(dependency)}".toString()
+                        }
                     }
                 }
             }
+            check.validation = validation
+            check.errors = new ArrayList<>(errorCollector.errors.subList(firstError, errorCollector.errors.size()))
+            checks.add(check)
         }
 
-        File reportFile = writeReport(errorCollector.errors, errorCollector.suggestions)
+        if (roots.size() > 1) {
+            attributeToRoots(roots, checks, validations)
+        }
+        File reportFile = writeReport(checks, errorCollector.suggestions)
+        writeAggregatedReports(checks)
         if (failOnError.get() && errorCollector.errors) {
             try (var writer = new BufferedWriter(new PrintWriter(System.err))) {
                 writeSuggestions(errorCollector.suggestions, writer)
@@ -162,6 +187,106 @@ abstract class PomChecker extends DefaultTask {
         }
     }
 
+    /**
+     * Creates the check of a root POM from its GAV coordinates.
+     */
+    private static PomCheck rootCheck(String gav, File pomFile) {
+        def coordinates = gav.split(':')
+        if (coordinates.length != 3) {
+            throw new GradleException("Incorrect POM coordinates '${gav}': should be of the form group:artifact:version ")
+        }
+        new PomCheck(coordinates[0], coordinates[1], coordinates[2], pomFile, gav)
+    }
+
+    /**
+     * Walks the BOM graph from each root, and records for each POM the
+     * roots which reach it, along with the dependency path from that root.
+     */
+    private static void attributeToRoots(List<PomCheck> roots, List<PomCheck> checks, Map<String, PomValidation> validations) {
+        Map<String, PomCheck> checksByKey = checks.collectEntries { [it.key, it] }
+        roots.each { root ->
+            def queue = new ArrayDeque<PomCheck>()
+            queue.add(root)
+            Set<String> seen = [root.key] as Set<String>
+            while (!queue.isEmpty()) {
+                def check = queue.poll()
+                checksByKey.get(check.key).reachedFrom.put(root.key, check.dependencyPath)
+                def validation = validations.get(check.key)
+                if (validation.pomFile.bom) {
+                    transitiveBoms(validation, check.dependencyPath).each {
+                        if (seen.add(it.key)) {
+                            queue.add(it)
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the root POMs and all the BOMs they transitively import. Each check
+     * schedules the checks of the BOMs imported by the checked POM as soon as it
+     * completes, so that a slow download doesn't delay the checks of unrelated BOMs.
+     * @param roots the root POMs
+     * @return the validations, by GAV coordinates
+     */
+    private Map<String, PomValidation> verifyAll(List<PomCheck> roots) {
+        def service = pomCheckService.get()
+        def downloader = useLocalCaches.get() ?
+                new PomDownloader(repositories.get(), pomsDirectory.get().asFile, localMavenRepositories.get(), gradleModuleCache.asFile.getOrNull()) :
+                new PomDownloader(repositories.get(), pomsDirectory.get().asFile)
+        def parser = service.newParser(downloader)
+        def completed = new LinkedBlockingQueue<PomCheck>()
+        Map<String, PomValidation> validations = [:]
+        Set<String> seen = roots.collect { it.key } as Set<String>
+        Throwable failure = null
+        roots.each { root ->
+            if (root.pomFile == null) {
+                root.pomFile = downloader.tryDownloadPom(new PomDependency(false, root.groupId, root.artifactId, root.version, ""))
+                        .orElseThrow { new GradleException("Unable to download root POM ${root.key}") }
+            }
+            schedule(service, downloader, parser, root, completed)
+        }
+        int pending = roots.size()
+        while (pending > 0) {
+            def check = completed.take()
+            pending--
+            if (check.failure != null) {
+                failure = failure ?: check.failure
+            } else if (failure == null) {
+                def validation = check.validation
+                validations.put(check.key, validation)
+                if (validation.pomFile.bom) {
+                    for (PomCheck transitive : transitiveBoms(validation, check.dependencyPath)) {
+                        if (seen.add(transitive.key)) {
+                            schedule(service, downloader, parser, transitive, completed)
+                            pending++
+                        }
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw new GradleException("POM verification failed: ${failure.message}", failure)
+        }
+        validations
+    }
+
+    private void schedule(PomCheckService service, PomDownloader downloader, PomParser parser, PomCheck check, BlockingQueue<PomCheck> completed) {
+        def action = new CheckPomAction(downloader, parser, new CheckPomAction.Parameters(
+                check.dependencyPath,
+                check.groupId,
+                check.artifactId,
+                check.version,
+                check.pomFile
+        ))
+        service.submit(action).whenComplete { PomValidation result, Throwable error ->
+            check.validation = result
+            check.failure = error instanceof CompletionException ? error.cause : error
+            completed.add(check)
+        }
+    }
+
     /**
      * Determines if the GAV coordinates correspond to a Micronaut BOM.
      * @param groupId the group ID
@@ -172,41 +297,114 @@ abstract class PomChecker extends DefaultTask {
         groupId.startsWith('io.micronaut') && artifactId.contains('bom')
     }
 
-    private File writeReport(List<String> errors, Set<String> dependencySuggestions) {
+    private File writeReport(List<PomCheck> checks, Set<String> dependencySuggestions) {
         def reportFile = reportDirectory.file("report-${name}.txt").get().asFile
         reportFile.withWriter { writer ->
-            errors.each {
-                println it
-                writer.println(it)
+            checks.each { check ->
+                check.errors.each {
+                    println it
+                    writer.println(it)
+                    check.reachedFrom.each { root, path ->
+                        String attribution = "    reached from ${root} via ${path}"
+                        println attribution
+                        writer.println(attribution)
+                    }
+                }
             }
             writeSuggestions(dependencySuggestions, writer)
         }
         reportFile
     }
 
-    private static void addTransitiveBomsToQueue(PomValidation validation, Deque<List<Object>> queue) {
-        validation.validDependencies.each { gav, file ->
-            def coord = gav.split(':')
-            String group = coord[0]
-            String artifact = coord[1]
-            String version = coord[2]
-            def dependency = validation.pomFile.dependencies.find {
-                it.groupId == group && it.artifactId == artifact && it.version == version
+    /**
+     * Writes the results of all checks, in the order of the text report,
+     * as a compact JSON file and as an HTML page.
+     */
+    private void writeAggregatedReports(List<PomCheck> checks) {
+        List<Map<String, Object>> poms = checks.collect { check ->
+            def pom = check.validation.pomFile
+            [
+                    groupId            : pom.groupId,
+                    artifactId         : pom.artifactId,
+                    version            : pom.version,
+                    dependencyPath     : check.dependencyPath,
+                    bom                : pom.bom,
+                    dependencies       : pom.dependencies.collect { dependency ->
+                        [
+                                groupId   : dependency.groupId,
+                                artifactId: dependency.artifactId,
+                                version   : dependency.version,
+                                scope     : dependency.scope,
+                                managed   : dependency.managed
+                        ]
+                    },
+                    invalidDependencies: check.validation.invalidDependencies.sort(false),
+                    errors             : check.errors,
+                    reachedFrom        : check.reachedFrom
+            ] as Map<String, Object>
+        }
+        reportDirectory.file("report-${name}.json").get().asFile.setText(JsonOutput.toJson([poms: poms]), 'UTF-8')
+        reportDirectory.file("report-${name}.html").get().asFile.withWriter('UTF-8') { writer ->
+            writer.println("<!DOCTYPE html>")
+            writer.println("<html><head><meta charset=\"UTF-8\"><title>POM verification report for ${escape(pomCoordinates.get())}</title>")
+            writer.println("<style>body{font-family:sans-serif}table{border-collapse:collapse}td,th{border:1px solid #ccc;padding:2px 6px;text-align:left}.error{color:#b00}</style>")
+            writer.println("</head><body>")
+            writer.println("<h1>POM verification report for ${escape(pomCoordinates.get())}</h1>")
+            int errorCount = checks.sum(0) { PomCheck check -> check.errors.size() } as int
+            writer.println("<p>${checks.size()} POM files checked, ${errorCount} error(s)</p>")
+            checks.each { check ->
+                def pom = check.validation.pomFile
+                writer.println("<h2 id=\"${escape(check.key)}\">${escape(check.key)}${pom.bom ? ' (BOM)' : ''}</h2>")
+                writer.println("<p>Via ${escape(check.dependencyPath)}</p>")
+                if (check.reachedFrom) {
+                    writer.println("<ul>")
+                    check.reachedFrom.each { root, path -> writer.println("<li>Reached from ${escape(root)} via ${escape(path)}</li>") }
+                    writer.println("</ul>")
+                }
+                if (check.errors) {
+                    writer.println("<ul class=\"error\">")
+                    check.errors.each { writer.println("<li>${escape(it)}</li>") }
+                    writer.println("</ul>")
+                }
+                if (pom.dependencies) {
+                    writer.println("<table><tr><th>Dependency</th><th>Scope</th><th>Managed</th><th>Resolvable</th></tr>")
+                    pom.dependencies.each { dependency ->
+                        String gav = "${dependency.groupId}:${dependency.artifactId}:${dependency.version}"
+                        boolean resolvable = !check.validation.invalidDependencies.contains(gav)
+                        writer.println("<tr><td>${escape(gav)}</td><td>${escape(dependency.scope)}</td><td>${dependency.managed}</td><td${resolvable ? '' : ' class="error"'}>${resolvable}</td></tr>")
+                    }
+                    writer.println("</table>")
+                }
             }
-            if (dependency.managed && dependency.import) {
-                queue.add([group, artifact, version, new File(file), "${validation.dependencyPath} -> $gav".toString()] as List<Object>)
+            writer.println("</body></html>")
+        }
+    }
+
+    private static String escape(String text) {
+        text.replace('&', '&amp;').replace('<', '&lt;').replace('>', '&gt;').replace('"', '&quot;')
+    }
+
+    private static List<PomCheck> transitiveBoms(PomValidation validation, String dependencyPath) {
+        List<PomCheck> result = []
+        validation.pomFile.dependencies.each { dependency ->
+            String gav = "${dependency.groupId}:${dependency.artifactId}:${dependency.version}"
+            String file = validation.validDependencies.get(gav)
+            if (file != null && dependency.managed && dependency.import) {
+                result.add(new PomCheck(dependency.groupId, dependency.artifactId, dependency.version, new File(file), "${dependencyPath} -> $gav".toString()))
             }
         }
+        result
     }
 
-    private static void assertThatImportingBomIsAllowed(PomValidation validation, ErrorCollector errors) {
+    private static void assertThatImportingBomIsAllowed(PomValidation validation, String dependencyPath, ErrorCollector errors) {
         if (validation.pomFile.bom && validation.pomFile.importingBom) {
             // We have a BOM which imports another BOM. This should only
             // be allowed for Micronaut BOMs themselves
             if (!validation.pomFile.groupId.startsWith("io.micronaut")) {
-                validation.pomFile.findImports().each {
-                    String dependency = "${it.groupId}:${it.artifactId}:${it.version}"
-                    errors.error(dependency, "BOM ${validation.pomFile.groupId}:${validation.pomFile.artifactId}:${validation.pomFile.version} (via $validation.dependencyPath) is not a Micronaut BOM but it imports another BOM ($dependency)".toString())
+                for (PomDependency dependency : validation.pomFile.findImports()) {
+                    errors.error(dependency) { ->
+                        "BOM ${validation.pomFile.groupId}:${validation.pomFile.artifactId}:${validation.pomFile.version} (via $dependencyPath) is not a Micronaut BOM but it imports another BOM (${coordinatesOf(dependency)})".toString()
+                    }
                 }
             }
         }
@@ -227,22 +425,63 @@ abstract class PomChecker extends DefaultTask {
         }
     }
 
+    private static class PomCheck {
+        final String groupId
+        final String artifactId
+        final String version
+        final String dependencyPath
+        File pomFile
+        PomValidation validation
+        List<String> errors
+        Throwable failure
+        final Map<String, String> reachedFrom = [:]
+
+        PomCheck(String groupId, String artifactId, String version, File pomFile, String dependencyPath) {
+            this.groupId = groupId
+            this.artifactId = artifactId
+            this.version = version
+            this.pomFile = pomFile
+            this.dependencyPath = dependencyPath
+        }
+
+        String getKey() {
+            "${groupId}:${artifactId}:${version}"
+        }
+    }
+
+    private static String coordinatesOf(PomDependency dependency) {
+        "${dependency.groupId}:${dependency.artifactId}:${dependency.version}"
+    }
+
+    /**
+     * Collects errors. Messages are only built when an error or
+     * a silenced problem is actually recorded.
+     */
     private static class ErrorCollector {
-        private final Set<String> silencedDependencies
+        final SuppressionIndex suppressions
         final List<String> errors = []
         final Set<String> suggestions = new LinkedHashSet<>()
 
-        ErrorCollector(Set<String> silencedDependencies) {
-            this.silencedDependencies = silencedDependencies
+        ErrorCollector(SuppressionIndex suppressions) {
+            this.suppressions = suppressions
         }
 
-        void silenced(String message) {
-            println("[Silenced] $message")
+        void silenced(Supplier<String> message) {
+            println("[Silenced] ${message.get()}")
+        }
+
+        void error(PomDependency dependency, Supplier<String> message) {
+            if (!suppressions.isSilenced(dependency.groupId, dependency.artifactId, dependency.version)) {
+                errors << message.get()
+                suggestions << coordinatesOf(dependency)
+            } else {
+                silenced(message)
+            }
         }
 
-        void error(String dependency, String message) {
-            if (!silencedDependencies.contains(dependency)) {
-                errors << message
+        void error(String dependency, Supplier<String> message) {
+            if (!suppressions.isSilenced(dependency)) {
+                errors << message.get()
                 suggestions << dependency
             } else {
                 silenced(message)
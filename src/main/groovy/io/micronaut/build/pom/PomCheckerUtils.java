@@ -27,6 +27,9 @@ import org.gradle.api.publish.maven.tasks.GenerateMavenPom;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.TaskProvider;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
 
 import static io.micronaut.build.MicronautPlugin.PRE_RELEASE_CHECK_TASK_NAME;
@@ -40,7 +43,57 @@ public abstract class PomCheckerUtils {
                                                               Project project,
                                                               PublishingExtension publishing,
                                                               Consumer<? super PomChecker> configuration) {
+        TaskProvider<PomChecker> pomChecker = registerPomCheckerTask(taskName, project, publishing, configuration);
         TaskContainer tasks = project.getTasks();
+        tasks.named("check").configure(task -> task.dependsOn(pomChecker));
+        tasks.named(PRE_RELEASE_CHECK_TASK_NAME).configure(task -> task.dependsOn(pomChecker));
+        return pomChecker;
+    }
+
+    /**
+     * Registers a POM checker which verifies the POM of the project along with
+     * additional root BOMs, for example all the BOMs of a release train, so that
+     * BOMs which are shared by several roots are downloaded, parsed and validated
+     * once. The additional roots are read from the {@code micronaut.checkBoms.roots}
+     * Gradle property, as a comma separated list of GAV coordinates. Unlike the
+     * regular POM checker, this task isn't a dependency of the check task.
+     * @param taskName the name of the task
+     * @param project the project
+     * @param publishing the publishing extension
+     * @param configuration additional configuration of the task
+     * @return the task provider
+     */
+    public static TaskProvider<PomChecker> registerMultiRootPomChecker(String taskName,
+                                                                       Project project,
+                                                                       PublishingExtension publishing,
+                                                                       Consumer<? super PomChecker> configuration) {
+        return registerPomCheckerTask(taskName, project, publishing, task -> {
+            task.setDescription("Verifies the POM file along with additional root BOMs");
+            task.getAdditionalRootCoordinates().set(project.getProviders().gradleProperty("micronaut.checkBoms.roots")
+                .map(PomCheckerUtils::parseRootCoordinates)
+                .orElse(List.of()));
+            configuration.accept(task);
+        });
+    }
+
+    /**
+     * Parses a comma separated list of GAV coordinates, ignoring blank entries.
+     * @param roots the list of coordinates
+     * @return the coordinates
+     */
+    static List<String> parseRootCoordinates(String roots) {
+        return Arrays.stream(roots.split(","))
+            .map(String::trim)
+            .filter(root -> !root.isEmpty())
+            .toList();
+    }
+
+    private static TaskProvider<PomChecker> registerPomCheckerTask(String taskName,
+                                                                   Project project,
+                                                                   PublishingExtension publishing,
+                                                                   Consumer<? super PomChecker> configuration) {
+        TaskContainer tasks = project.getTasks();
+        Provider<PomCheckService> pomCheckService = PomCheckService.registerOn(project);
         TaskProvider<PomChecker> pomChecker = tasks.register(taskName, PomChecker.class, task -> {
             String repoUrl = "https://repo.maven.apache.org/maven2/";
             ArtifactRepository repo = publishing.getRepositories().findByName("Build");
@@ -72,10 +125,15 @@ public abstract class PomCheckerUtils {
                     ));
             task.getFailOnSnapshots().set(failOnSnapshots);
             task.getFailOnError().set(true);
+            task.getUseLocalCaches().set(providers.gradleProperty("micronaut.pom.checker.useLocalCaches").map(Boolean::parseBoolean).orElse(false));
+            task.getLocalMavenRepositories().add(providers.systemProperty("maven.repo.local")
+                    .orElse(providers.systemProperty("user.home").map(home -> home + "/.m2/repository"))
+                    .map(File::new));
+            task.getGradleModuleCache().set(new File(project.getGradle().getGradleUserHomeDir(), "caches/modules-2/files-2.1"));
+            task.getPomCheckService().set(pomCheckService);
+            task.usesService(pomCheckService);
             configuration.accept(task);
         });
-        tasks.named("check").configure(task -> task.dependsOn(pomChecker));
-        tasks.named(PRE_RELEASE_CHECK_TASK_NAME).configure(task -> task.dependsOn(pomChecker));
         return pomChecker;
     }
 
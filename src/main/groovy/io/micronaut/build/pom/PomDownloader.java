@@ -22,12 +22,19 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -40,16 +47,40 @@ public class PomDownloader {
 
     private final List<String> repositories;
     private final File pomsDirectory;
+    private final List<File> localRepositories;
+    private final File gradleModuleCache;
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
     private final Set<String> processing = new HashSet<>();
+    private final Map<String, Optional<SnapshotBuild>> snapshotBuilds = new ConcurrentHashMap<>();
 
     public PomDownloader(List<String> repositories, File pomDirectory) {
+        this(repositories, pomDirectory, List.of(), null);
+    }
+
+    /**
+     * Creates a downloader which looks for POM files in local caches before
+     * going to the network. Local caches are only read, and are never used
+     * for snapshots, which may be outdated.
+     * @param repositories the URLs of the remote repositories
+     * @param pomDirectory the directory where downloaded POM files are stored
+     * @param localRepositories local Maven repositories, like mavenLocal
+     * @param gradleModuleCache the Gradle module cache directory (caches/modules-2/files-2.1), or null
+     */
+    public PomDownloader(List<String> repositories, File pomDirectory, List<File> localRepositories, File gradleModuleCache) {
         this.repositories = repositories;
         this.pomsDirectory = pomDirectory;
+        this.localRepositories = localRepositories;
+        this.gradleModuleCache = gradleModuleCache;
     }
 
     public Optional<File> tryDownloadPom(PomDependency dependency) {
+        if (!dependency.getVersion().endsWith("-SNAPSHOT")) {
+            Optional<File> cached = findInLocalCaches(dependency);
+            if (cached.isPresent()) {
+                return cached;
+            }
+        }
         return repositories.stream()
                 .map(repositoryUrl -> tryDownloadPom(dependency, repositoryUrl))
                 .filter(Optional::isPresent)
@@ -57,6 +88,34 @@ public class PomDownloader {
                 .findFirst();
     }
 
+    private Optional<File> findInLocalCaches(PomDependency dependency) {
+        String group = dependency.getGroupId();
+        String artifact = dependency.getArtifactId();
+        String version = dependency.getVersion();
+        String pomFileName = artifact + "-" + version + ".pom";
+        String basedir = group.replace('.', '/') + "/" + artifact + "/" + version;
+        for (File localRepository : localRepositories) {
+            File pomFile = new File(localRepository, basedir + "/" + pomFileName);
+            if (pomFile.isFile()) {
+                return Optional.of(pomFile);
+            }
+        }
+        if (gradleModuleCache != null) {
+            // The module cache stores each file in a directory named after its SHA-1
+            File[] hashDirectories = new File(gradleModuleCache, group + "/" + artifact + "/" + version).listFiles(File::isDirectory);
+            if (hashDirectories != null) {
+                Arrays.sort(hashDirectories);
+                for (File hashDirectory : hashDirectories) {
+                    File pomFile = new File(hashDirectory, pomFileName);
+                    if (pomFile.isFile()) {
+                        return Optional.of(pomFile);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
     private Optional<File> tryDownloadPom(PomDependency dependency, String repositoryUrl) {
         if (repositoryUrl.endsWith("/")) {
             repositoryUrl = repositoryUrl.substring(0, repositoryUrl.length() - 1);
@@ -66,14 +125,16 @@ public class PomDownloader {
         String version = dependency.getVersion();
         String basedir = "/" + group.replace('.', '/') + "/" + artifact + "/" + version + "/";
         boolean isSnapshot = version.endsWith("-SNAPSHOT");
+        String pomFilePath = basedir + artifact + "-" + version + ".pom";
+        String uri = repositoryUrl + pomFilePath;
+        SnapshotBuild snapshotBuild = null;
         if (isSnapshot) {
-            Optional<String> snapshotVersion = findSnapshotVersion(repositoryUrl, basedir);
-            if (snapshotVersion.isPresent()) {
-                version = version.substring(0, version.indexOf("-SNAPSHOT")) + "-" + snapshotVersion.get();
+            snapshotBuild = findSnapshotBuild(repositoryUrl, basedir).orElse(null);
+            if (snapshotBuild != null) {
+                String timestampedVersion = version.substring(0, version.indexOf("-SNAPSHOT")) + "-" + snapshotBuild.timestamp() + "-" + snapshotBuild.buildNumber();
+                uri = repositoryUrl + basedir + artifact + "-" + timestampedVersion + ".pom";
             }
         }
-        String pomFilePath = basedir + artifact + "-" + version + ".pom";
-        String uri = repositoryUrl + pomFilePath;
         lock.lock();
         try {
             // Multiple threads can be trying to download and copy the POM file
@@ -89,16 +150,15 @@ public class PomDownloader {
             lock.unlock();
         }
         try {
-            URL url = new URL(uri);
             File pomFile = new File(pomsDirectory, pomFilePath);
-            if (pomFile.exists() && isSnapshot) {
-                pomFile.delete();
+            // A snapshot POM is only downloaded again if the repository
+            // metadata points at a different build than the cached one
+            if (pomFile.exists() && (!isSnapshot || isCachedBuild(pomFile, repositoryUrl, snapshotBuild))) {
+                return Optional.of(pomFile);
             }
-            if (!pomFile.exists()) {
-                try (InputStream in = url.openStream()) {
-                    pomFile.getParentFile().mkdirs();
-                    Files.copy(in, pomFile.toPath());
-                }
+            download(new URL(uri), pomFile);
+            if (isSnapshot) {
+                writeBuildFile(pomFile, repositoryUrl, snapshotBuild);
             }
             return Optional.of(pomFile);
         } catch (IOException e) {
@@ -114,8 +174,66 @@ public class PomDownloader {
         }
     }
 
-    private Optional<String> findSnapshotVersion(String repositoryUrl, String basedir) {
-        String uri = repositoryUrl + basedir + "maven-metadata.xml";
+    private static void download(URL url, File pomFile) throws IOException {
+        // Download to a temporary file first, so that a failed download
+        // doesn't remove a previously cached file
+        File parent = pomFile.getParentFile();
+        parent.mkdirs();
+        Path tmpFile = Files.createTempFile(parent.toPath(), pomFile.getName(), ".tmp");
+        try {
+            try (InputStream in = url.openStream()) {
+                Files.copy(in, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(tmpFile, pomFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static File buildFileOf(File pomFile) {
+        return new File(pomFile.getParentFile(), pomFile.getName() + ".build.properties");
+    }
+
+    private static boolean isCachedBuild(File pomFile, String repositoryUrl, SnapshotBuild snapshotBuild) throws IOException {
+        File buildFile = buildFileOf(pomFile);
+        if (snapshotBuild == null || !buildFile.exists()) {
+            return false;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(buildFile.toPath())) {
+            properties.load(in);
+        }
+        return repositoryUrl.equals(properties.getProperty("repository"))
+               && snapshotBuild.timestamp().equals(properties.getProperty("timestamp"))
+               && snapshotBuild.buildNumber().equals(properties.getProperty("buildNumber"));
+    }
+
+    private static void writeBuildFile(File pomFile, String repositoryUrl, SnapshotBuild snapshotBuild) throws IOException {
+        File buildFile = buildFileOf(pomFile);
+        if (snapshotBuild == null) {
+            // Without metadata we can't tell if the POM is up-to-date next time
+            Files.deleteIfExists(buildFile.toPath());
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("repository", repositoryUrl);
+        properties.setProperty("timestamp", snapshotBuild.timestamp());
+        properties.setProperty("buildNumber", snapshotBuild.buildNumber());
+        try (OutputStream out = Files.newOutputStream(buildFile.toPath())) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * Finds the latest build of a snapshot. The metadata of a snapshot is
+     * fetched at most once per downloader, since many POMs can refer to the
+     * same snapshot.
+     */
+    private Optional<SnapshotBuild> findSnapshotBuild(String repositoryUrl, String basedir) {
+        return snapshotBuilds.computeIfAbsent(repositoryUrl + basedir + "maven-metadata.xml", PomDownloader::fetchSnapshotBuild);
+    }
+
+    private static Optional<SnapshotBuild> fetchSnapshotBuild(String uri) {
         try {
             URL url = new URL(uri);
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
@@ -130,7 +248,7 @@ public class PomDownloader {
                     text = matcher.group();
                     matcher = ID_PATTERN.matcher(text);
                     if (matcher.find()) {
-                        return Optional.of(matcher.group(1) + "-" + matcher.group(2));
+                        return Optional.of(new SnapshotBuild(matcher.group(1), matcher.group(2)));
                     }
                 }
             }
@@ -139,4 +257,7 @@ public class PomDownloader {
         }
         return Optional.empty();
     }
+
+    private record SnapshotBuild(String timestamp, String buildNumber) {
+    }
 }
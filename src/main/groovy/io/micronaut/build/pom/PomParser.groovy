@@ -1,29 +1,102 @@
 package io.micronaut.build.pom
 
+import groovy.transform.CompileStatic
 import groovy.transform.PackageScope
-import groovy.xml.XmlSlurper
+import org.gradle.api.GradleException
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 
 @PackageScope
+@CompileStatic
 class PomParser {
     private final PomDownloader pomDownloader
+    private final ConcurrentMap<String, ParsedPom> parsedPoms
 
     PomParser(PomDownloader pomDownloader) {
+        this(pomDownloader, new ConcurrentHashMap<String, ParsedPom>())
+    }
+
+    /**
+     * Creates a parser which shares parsed POM files with other parsers.
+     * @param pomDownloader the downloader used to fetch parent POM files
+     * @param parsedPoms the parsed POM files, by GAV coordinates and file
+     */
+    PomParser(PomDownloader pomDownloader, ConcurrentMap<String, ParsedPom> parsedPoms) {
         this.pomDownloader = pomDownloader
+        this.parsedPoms = parsedPoms
     }
 
+    /**
+     * Parses a POM file. A POM file, and in particular a parent POM file
+     * which is shared by many POMs, is parsed only once: concurrent requests
+     * for the same coordinates and file wait for the first one to complete.
+     * Since a POM file is a different source than a downloaded POM file with
+     * the same coordinates, for example a local POM which isn't published
+     * yet, the file is part of the key.
+     */
     PomFile parse(File pomFile, String groupId, String artifactId, String version) {
-        def pom = new XmlSlurper().parse(pomFile)
-        def bom = pom.packaging.text() == 'pom'
-        Map<String, String> properties = pom.properties.children().collectEntries {
-            [it.name(), it.text()]
+        parseInChain(pomFile, groupId, artifactId, version, new ParseChain())
+    }
+
+    private PomFile parseInChain(File pomFile, String groupId, String artifactId, String version, ParseChain chain) {
+        String gav = "${groupId}:${artifactId}:${version}"
+        String key = "${gav}@${pomFile.absolutePath}"
+        def parsed = new ParsedPom(chain)
+        chain.path.add(gav)
+        try {
+            def existing = parsedPoms.putIfAbsent(key, parsed)
+            if (existing != null) {
+                return await(key, existing, chain)
+            }
+            try {
+                parsed.result.complete(doParse(pomFile, groupId, artifactId, version, chain))
+            } catch (Throwable e) {
+                // Let another request try again
+                parsedPoms.remove(key, parsed)
+                parsed.result.completeExceptionally(e)
+                throw e
+            }
+            parsed.result.get()
+        } finally {
+            chain.path.remove(chain.path.size() - 1)
         }
+    }
+
+    /**
+     * Waits for a POM file which is parsed by another parse chain. If that
+     * chain is, directly or through other chains, waiting for this one, then
+     * the parent POMs form a cycle, which would otherwise never complete.
+     */
+    private PomFile await(String key, ParsedPom existing, ParseChain chain) {
+        chain.waitingFor = key
+        try {
+            Set<ParseChain> visited = Collections.newSetFromMap(new IdentityHashMap<ParseChain, Boolean>())
+            ParsedPom current = existing
+            while (current != null && !current.result.done && visited.add(current.owner)) {
+                if (current.owner.is(chain)) {
+                    throw new GradleException("Cycle detected in parent POMs: ${chain.path.join(' -> ')}")
+                }
+                String next = current.owner.waitingFor
+                current = next == null ? null : parsedPoms.get(next)
+            }
+            existing.result.join()
+        } finally {
+            chain.waitingFor = null
+        }
+    }
+
+    private PomFile doParse(File pomFile, String groupId, String artifactId, String version, ParseChain chain) {
+        def pom = PomReader.read(pomFile)
+        def bom = pom.packaging() == 'pom'
+        Map<String, String> properties = new LinkedHashMap<>(pom.properties())
         if (!properties.containsKey("project.version")) {
             properties['project.version'] = version
         }
-        properties = resolve(properties)
-        def parentGroupId = pom.parent.groupId.text()
-        def parentArtifactId = pom.parent.artifactId.text()
-        def parentVersion = pom.parent.version.text()
+        def parentGroupId = pom.parentGroupId()
+        def parentArtifactId = pom.parentArtifactId()
+        def parentVersion = pom.parentVersion()
         if (parentGroupId && parentArtifactId && parentVersion) {
             Optional<File> parentPom = pomDownloader.tryDownloadPom(new PomDependency(
                     false,
@@ -33,7 +106,7 @@ class PomParser {
                     ""
             ))
             if (parentPom.present) {
-                PomFile parent = parse(parentPom.get(), parentGroupId, parentArtifactId, parentVersion)
+                PomFile parent = parseInChain(parentPom.get(), parentGroupId, parentArtifactId, parentVersion, chain)
                 parent.properties.each { k, v ->
                     if (!properties.containsKey(k)) {
                         properties.put(k, v)
@@ -41,44 +114,45 @@ class PomParser {
                 }
             }
         }
-        def managedDependencies = pom.dependencyManagement.dependencies.dependency.collect {
-            parseDependency(it, groupId, true, properties)
+        def interpolator = new PropertyInterpolator(properties)
+        Map<String, String> resolvedProperties = new LinkedHashMap<>(properties.size())
+        properties.keySet().each { key ->
+            resolvedProperties[key] = interpolator.resolve(key)
+        }
+        List<PomDependency> dependencies = []
+        pom.dependencies().each {
+            dependencies.add(toDependency(it, groupId, false, interpolator))
         }
-        def dependencies = pom.dependencies.dependency.collect {
-            parseDependency(it, groupId, false, properties)
+        pom.managedDependencies().each {
+            dependencies.add(toDependency(it, groupId, true, interpolator))
         }
-        return new PomFile(groupId, artifactId, version, bom, dependencies + managedDependencies, properties)
+        return new PomFile(groupId, artifactId, version, bom, dependencies, resolvedProperties)
     }
 
-    static PomDependency parseDependency(Object model, String group, boolean managed, Map<String, String> properties) {
-        String depGroup = model.groupId.text().replace('${project.groupId}', group)
-        String depArtifact = model.artifactId.text()
-        String depVersion = substitute(properties, model.version.text())
-        String depScope = model.scope.text()
-        new PomDependency(managed, depGroup, depArtifact, depVersion, depScope)
+    private static PomDependency toDependency(PomReader.RawDependency dependency, String group, boolean managed, PropertyInterpolator interpolator) {
+        String depGroup = dependency.groupId().replace('${project.groupId}', group)
+        String depVersion = interpolator.interpolate(dependency.version())
+        new PomDependency(managed, depGroup, dependency.artifactId(), depVersion, dependency.scope())
     }
 
-    private static String substitute(Map<String, String> properties, String value) {
-        boolean substituteProperties = true
-        while (substituteProperties) {
-            substituteProperties = false
-            for (Map.Entry<String, String> property : properties) {
-                String token = "\${${property.key}}"
-                if (value.contains(token)) {
-                    value = value.replace(token, property.value)
-                    substituteProperties = true // need to recurse because some properties can reference others
-                    break
-                }
-            }
+    /**
+     * A POM file which is parsed, or being parsed, by a parse chain.
+     */
+    static final class ParsedPom {
+        final CompletableFuture<PomFile> result = new CompletableFuture<>()
+        final ParseChain owner
+
+        ParsedPom(ParseChain owner) {
+            this.owner = owner
         }
-        value
     }
 
-    private static Map<String, String> resolve(Map<String, String> properties) {
-        Map<String, String> result = [:]
-        properties.each { k, value ->
-            result[k] = substitute(properties, value)
-        }
-        result
+    /**
+     * The POM files being parsed by a single call to {@link #parse(File, String, String, String)},
+     * from a POM file to its furthest parent.
+     */
+    private static final class ParseChain {
+        final List<String> path = []
+        volatile String waitingFor
     }
 }
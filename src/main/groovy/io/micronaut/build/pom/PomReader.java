@@ -0,0 +1,214 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.pom;
+
+import org.gradle.api.GradleException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the parts of a POM file which are needed to check it (packaging,
+ * parent, properties, dependencies and dependency management) in a single
+ * streaming pass, without building a DOM. Values are read as they are
+ * written in the file, property references are not interpolated.
+ */
+final class PomReader {
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private PomReader() {
+
+    }
+
+    record RawPom(
+        String packaging,
+        String parentGroupId,
+        String parentArtifactId,
+        String parentVersion,
+        Map<String, String> properties,
+        List<RawDependency> dependencies,
+        List<RawDependency> managedDependencies
+    ) {
+    }
+
+    record RawDependency(String groupId, String artifactId, String version, String scope) {
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    static RawPom read(File pomFile) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(pomFile.toPath()))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                return read(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new GradleException("Unable to parse POM file " + pomFile, e);
+        }
+    }
+
+    private static RawPom read(XMLStreamReader reader) throws XMLStreamException {
+        String packaging = "";
+        String parentGroupId = "";
+        String parentArtifactId = "";
+        String parentVersion = "";
+        Map<String, String> properties = new LinkedHashMap<>();
+        List<RawDependency> dependencies = new ArrayList<>();
+        List<RawDependency> managedDependencies = new ArrayList<>();
+        // Only elements up to project/dependencyManagement/dependencies/dependency/version
+        // are read, so path[depth - 1] is the current element, and path[0] the root one
+        String[] path = new String[5];
+        int depth = 0;
+        DependencyBuilder dependency = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                String parent = depth > 0 ? path[depth - 1] : null;
+                switch (depth) {
+                    case 0 -> path[depth++] = name;
+                    case 1 -> {
+                        switch (name) {
+                            case "packaging" -> packaging = readText(reader);
+                            case "parent", "properties", "dependencies", "dependencyManagement" -> path[depth++] = name;
+                            default -> skipElement(reader);
+                        }
+                    }
+                    case 2 -> {
+                        switch (parent) {
+                            case "parent" -> {
+                                switch (name) {
+                                    case "groupId" -> parentGroupId = readText(reader);
+                                    case "artifactId" -> parentArtifactId = readText(reader);
+                                    case "version" -> parentVersion = readText(reader);
+                                    default -> skipElement(reader);
+                                }
+                            }
+                            case "properties" -> properties.put(name, readText(reader));
+                            case "dependencies" -> {
+                                if ("dependency".equals(name)) {
+                                    path[depth++] = name;
+                                    dependency = new DependencyBuilder();
+                                } else {
+                                    skipElement(reader);
+                                }
+                            }
+                            default -> {
+                                if ("dependencies".equals(name)) {
+                                    path[depth++] = name;
+                                } else {
+                                    skipElement(reader);
+                                }
+                            }
+                        }
+                    }
+                    case 3 -> {
+                        if ("dependency".equals(parent)) {
+                            dependency.set(name, readText(reader));
+                        } else if ("dependency".equals(name)) {
+                            path[depth++] = name;
+                            dependency = new DependencyBuilder();
+                        } else {
+                            skipElement(reader);
+                        }
+                    }
+                    default -> dependency.set(name, readText(reader));
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (depth == 2 && "dependency".equals(path[2])) {
+                    dependencies.add(dependency.build());
+                } else if (depth == 3) {
+                    managedDependencies.add(dependency.build());
+                }
+            }
+        }
+        return new RawPom(packaging, parentGroupId, parentArtifactId, parentVersion, properties, dependencies, managedDependencies);
+    }
+
+    /**
+     * Reads the text of the current element, including the text of its
+     * children if any, and positions the reader on the end element.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int level = 1;
+        while (level > 0) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT -> level++;
+                case XMLStreamConstants.END_ELEMENT -> level--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText().trim());
+                default -> {
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int level = 1;
+        while (level > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                level++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                level--;
+            }
+        }
+    }
+
+    private static final class DependencyBuilder {
+        private String groupId = "";
+        private String artifactId = "";
+        private String version = "";
+        private String scope = "";
+
+        void set(String name, String value) {
+            switch (name) {
+                case "groupId" -> groupId = value;
+                case "artifactId" -> artifactId = value;
+                case "version" -> version = value;
+                case "scope" -> scope = value;
+                default -> {
+                }
+            }
+        }
+
+        RawDependency build() {
+            return new RawDependency(groupId, artifactId, version, scope);
+        }
+    }
+}
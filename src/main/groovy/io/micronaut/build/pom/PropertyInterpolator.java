@@ -0,0 +1,115 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.pom;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interpolates <code>${...}</code> property references in POM values.
+ * Each property is resolved at most once, then memoized. References to
+ * unknown properties, as well as references which are part of a cycle,
+ * are left as is. Property names may themselves contain references,
+ * for example <code>${lib.${flavor}.version}</code>.
+ *
+ * Instances are not thread-safe.
+ */
+final class PropertyInterpolator {
+    private final Map<String, String> properties;
+    private final Map<String, String> resolved = new HashMap<>();
+    private final Set<String> resolving = new HashSet<>();
+
+    PropertyInterpolator(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the fully interpolated value of a property.
+     * @param name the property name
+     * @return the value, or null if the property doesn't exist or is part of a cycle
+     */
+    String resolve(String name) {
+        String value = resolved.get(name);
+        if (value != null) {
+            return value;
+        }
+        String raw = properties.get(name);
+        if (raw == null || !resolving.add(name)) {
+            return null;
+        }
+        try {
+            value = interpolate(raw);
+        } finally {
+            resolving.remove(name);
+        }
+        resolved.put(name, value);
+        return value;
+    }
+
+    /**
+     * Replaces the property references found in a value.
+     * @param value the value
+     * @return the interpolated value
+     */
+    String interpolate(String value) {
+        int start = value.indexOf("${");
+        if (start < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        int position = 0;
+        while (start >= 0) {
+            int end = findClosingBrace(value, start + 2);
+            if (end < 0) {
+                break;
+            }
+            sb.append(value, position, start);
+            String name = value.substring(start + 2, end);
+            if (name.contains("${")) {
+                name = interpolate(name);
+            }
+            String replacement = resolve(name);
+            if (replacement != null) {
+                sb.append(replacement);
+            } else {
+                sb.append("${").append(name).append('}');
+            }
+            position = end + 1;
+            start = value.indexOf("${", position);
+        }
+        sb.append(value, position, value.length());
+        return sb.toString();
+    }
+
+    private static int findClosingBrace(String value, int from) {
+        int nested = 0;
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '}') {
+                if (nested == 0) {
+                    return i;
+                }
+                nested--;
+            } else if (c == '$' && i + 1 < value.length() && value.charAt(i + 1) == '{') {
+                nested++;
+                i++;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.pom;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the BOM suppressions, so that checking whether a dependency
+ * is silenced, or which groups a BOM is authorized to manage, doesn't
+ * require building coordinate strings for every managed dependency.
+ */
+final class SuppressionIndex {
+    private final Set<String> silencedDependencies;
+    private final Map<String, Map<String, Set<String>>> silencedVersions = new HashMap<>();
+    private final Map<String, Map<String, Set<String>>> authorizedGroupsByModule = new HashMap<>();
+    private final Map<String, Map<String, Map<String, Set<String>>>> authorizedGroupsByVersion = new HashMap<>();
+
+    /**
+     * Creates the index.
+     * @param silencedDependencies the g:a:v coordinates of silenced dependencies
+     * @param bomAuthorizedGroupIds the authorized group ids, by g:a or g:a:v coordinates of BOMs
+     */
+    SuppressionIndex(Set<String> silencedDependencies, Map<String, Set<String>> bomAuthorizedGroupIds) {
+        this.silencedDependencies = new HashSet<>(silencedDependencies);
+        for (String dependency : silencedDependencies) {
+            String[] coordinates = dependency.split(":");
+            if (coordinates.length == 3) {
+                silencedVersions.computeIfAbsent(coordinates[0], g -> new HashMap<>())
+                    .computeIfAbsent(coordinates[1], a -> new HashSet<>())
+                    .add(coordinates[2]);
+            }
+        }
+        bomAuthorizedGroupIds.forEach((bom, groups) -> {
+            String[] coordinates = bom.split(":");
+            if (coordinates.length == 2) {
+                authorizedGroupsByModule.computeIfAbsent(coordinates[0], g -> new HashMap<>())
+                    .put(coordinates[1], Set.copyOf(groups));
+            } else if (coordinates.length == 3) {
+                authorizedGroupsByVersion.computeIfAbsent(coordinates[0], g -> new HashMap<>())
+                    .computeIfAbsent(coordinates[1], a -> new HashMap<>())
+                    .put(coordinates[2], Set.copyOf(groups));
+            }
+        });
+    }
+
+    boolean isSilenced(String groupId, String artifactId, String version) {
+        Map<String, Set<String>> artifacts = silencedVersions.get(groupId);
+        if (artifacts == null) {
+            return false;
+        }
+        Set<String> versions = artifacts.get(artifactId);
+        return versions != null && versions.contains(version);
+    }
+
+    boolean isSilenced(String coordinates) {
+        return silencedDependencies.contains(coordinates);
+    }
+
+    /**
+     * Returns the groups which a BOM is authorized to manage besides its own.
+     * Groups authorized for all versions of the BOM take precedence over
+     * groups authorized for a specific version.
+     */
+    Set<String> authorizedGroups(String groupId, String artifactId, String version) {
+        Map<String, Set<String>> modules = authorizedGroupsByModule.get(groupId);
+        if (modules != null && modules.containsKey(artifactId)) {
+            return modules.get(artifactId);
+        }
+        Map<String, Map<String, Set<String>>> artifacts = authorizedGroupsByVersion.get(groupId);
+        if (artifacts != null) {
+            Map<String, Set<String>> versions = artifacts.get(artifactId);
+            if (versions != null && versions.containsKey(version)) {
+                return versions.get(version);
+            }
+        }
+        return Set.of();
+    }
+}
@@ -52,6 +52,7 @@ class VersionCatalogConverter {
     }
 
     private VersionCatalogTomlModel model
+    private boolean populated
 
     void onLibrary(Consumer<? super InterceptedVersionCatalogBuilder.LibraryDefinition> consumer) {
         onLibrary.add(consumer)
@@ -72,7 +73,15 @@ class VersionCatalogConverter {
         model
     }
 
+    /**
+     * Populates the version catalog builder. This method may be called
+     * several times, but the model is only populated once.
+     */
     void populateModel() {
+        if (populated) {
+            return
+        }
+        populated = true
         catalogExtension.versionCatalog { bd ->
             def builder = new InterceptedVersionCatalogBuilder(bd)
             onLibrary.each { builder.onLibrary(it) }
@@ -20,10 +20,12 @@ import groovy.text.Template
 import io.micronaut.docs.asciidoc.AsciiDocEngine
 import io.micronaut.docs.internal.FileResourceChecker
 import io.micronaut.docs.internal.LegacyTocStrategy
+import io.micronaut.docs.internal.RenderCache
 import io.micronaut.docs.internal.StringEscapeCategory
 import io.micronaut.docs.internal.UserGuideNode
 import io.micronaut.docs.internal.YamlTocStrategy
 import org.apache.commons.logging.LogFactory
+import org.asciidoctor.Asciidoctor
 import org.gradle.api.file.DuplicatesStrategy
 import org.gradle.api.internal.file.FileOperations
 import org.radeox.api.engine.WikiRenderEngine
@@ -31,6 +33,15 @@ import org.radeox.engine.context.BaseInitialRenderContext
 import org.radeox.engine.context.BaseRenderContext
 import org.yaml.snakeyaml.Yaml
 import org.yaml.snakeyaml.constructor.SafeConstructor
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+
 /**
  * Coordinated the DocEngine the produce documentation based on the gdoc format.
  *
@@ -101,10 +112,29 @@ class DocPublisher {
 
     boolean asciidoc = false
 
+    /** The Asciidoctor instance to render pages with. If not set, an instance is created. */
+    Asciidoctor asciidoctor
+
+    /**
+     * The maximum number of pages rendered concurrently. Pages are always
+     * rendered one after another by the gdoc engine, since all of them share
+     * the same Radeox render context.
+     */
+    int renderThreads = Runtime.runtime.availableProcessors()
+
+    /**
+     * The directory where rendered sections are cached between publications,
+     * or null if every section should be rendered. Only sections rendered by
+     * the Asciidoctor engine are cached.
+     */
+    File renderCacheDir
+
     def output
     private BaseRenderContext context
     private WikiRenderEngine engine
     private customMacros = []
+    private Map<Object, Future<String>> renderedSections = new IdentityHashMap<>()
+    private RenderCache renderCache
 
     DocPublisher() {
         this(null, null)
@@ -149,6 +179,7 @@ class DocPublisher {
 
     private void catPublish() {
         initialize()
+        LanguageSnippetMacro.clearSnippetIndex()
         if (!src?.exists()) {
             return
         }
@@ -310,75 +341,107 @@ class DocPublisher {
             ((AsciiDocEngine)engine).attributes.putAll(
                     engineProperties
             )
+            if (renderCacheDir) {
+                renderCache = new RenderCache(renderCacheDir, engine.class.name, ((AsciiDocEngine)engine).attributes)
+            }
         }
 
-        // Build the user guide sections first.
-        def template = templateEngine.createTemplate(new File("${docResources}/style/guideItem.html").newReader(encoding))
-        def sectionTemplate = templateEngine.createTemplate(new File("${docResources}/style/section.html").newReader(encoding))
+        // The content of the guide sections and of the reference pages is
+        // rendered up front on a pool of threads, since it is what takes most
+        // of the time. Pages are then laid out as the rendered content becomes
+        // available, and the single page guide is assembled in order.
         def fullContents = new StringBuilder()
+        ExecutorService renderer = createRenderer()
+        try {
+            def chapters = guide.children
+            for (chapter in chapters) {
+                submitSectionRenders(renderer, chapter, guideSrcDir, "..")
+            }
 
-        def chapterVars
-        def chapters = guide.children
-        chapters.eachWithIndex{ chapter, i ->
-            chapterVars = [*:vars, chapterNumber: i + 1]
-            if (i != 0) {
-                chapterVars['prev'] = chapters[i - 1]
+            files = new File("${src}/ref").listFiles()?.toList()?.sort() ?: []
+            pathToRoot = "../.."
+            def refResourcesPath = calculatePathToResources(pathToRoot)
+            def refPages = []
+            for (f in files) {
+                if (f.directory && !f.name.startsWith(".")) {
+                    def section = f.name
+                    new File("${refDocsDir}/ref/${section}").mkdirs()
+                    def textiles = f.listFiles().findAll { it.name.endsWith(ext)}.sort()
+                    def usageFile = new File("${src}/ref/${section}${ext}")
+                    if (usageFile.exists()) {
+                        refPages << new Expando(
+                                section: section,
+                                sourcePath: "ref/$usageFile.name",
+                                target: new File("${refDocsDir}/ref/${section}/Usage.html"),
+                                content: submitRender(renderer, usageFile, usageFile, pathToRoot, refResourcesPath))
+                    }
+                    for (txt in textiles) {
+                        def name = txt.name[0..-6]
+                        refPages << new Expando(
+                                section: section,
+                                sourcePath: "ref/${section}/$txt.name",
+                                target: new File("${refDocsDir}/ref/${section}/${name}.html"),
+                                content: submitRender(renderer, txt, txt.name, pathToRoot, refResourcesPath))
+                    }
+                }
             }
-            if (i != (chapters.size() - 1)) {
-                chapterVars['next'] = chapters[i + 1]
+
+            // Build the user guide sections first.
+            def template = templateEngine.createTemplate(new File("${docResources}/style/guideItem.html").newReader(encoding))
+            def sectionTemplate = templateEngine.createTemplate(new File("${docResources}/style/section.html").newReader(encoding))
+            def chapterContents = []
+            chapters.eachWithIndex{ chapter, i ->
+                def chapterVars = [*:vars, chapterNumber: i + 1]
+                if (i != 0) {
+                    chapterVars['prev'] = chapters[i - 1]
+                }
+                if (i != (chapters.size() - 1)) {
+                    chapterVars['next'] = chapters[i + 1]
+                }
+                chapterVars.sectionNumber = (i + 1).toString()
+                chapterContents << submit(renderer) {
+                    def chapterContent = new StringBuilder()
+                    writeChapter(chapter, template, sectionTemplate, guideSrcDir, refGuideDir.path, chapterContent, chapterVars)
+                    chapterContent.toString()
+                }
             }
-            chapterVars.sectionNumber = (i + 1).toString()
-            writeChapter(chapter, template, sectionTemplate, guideSrcDir, refGuideDir.path, fullContents, chapterVars)
-        }
 
-        files = new File("${src}/ref").listFiles()?.toList()?.sort() ?: []
-        def reference = [:]
-        template = templateEngine.createTemplate(new File("${docResources}/style/referenceItem.html").newReader(encoding))
+            def refTemplate = templateEngine.createTemplate(new File("${docResources}/style/referenceItem.html").newReader(encoding))
 
-        pathToRoot = "../.."
-        vars.logo = injectPath(logo, pathToRoot)
-        vars.sponsorLogo = injectPath(sponsorLogo, pathToRoot)
-        vars.path = pathToRoot
-        vars.resourcesPath = calculatePathToResources(pathToRoot)
+            vars.logo = injectPath(logo, pathToRoot)
+            vars.sponsorLogo = injectPath(sponsorLogo, pathToRoot)
+            vars.path = pathToRoot
+            vars.resourcesPath = refResourcesPath
 
-        // Generate the reference section of the guide.
-        for (f in files) {
-            if (f.directory && !f.name.startsWith(".")) {
-                def section = f.name
-                vars.section = section
-
-                new File("${refDocsDir}/ref/${section}").mkdirs()
-                def textiles = f.listFiles().findAll { it.name.endsWith(ext)}.sort()
-                def usageFile = new File("${src}/ref/${section}${ext}")
-                if (usageFile.exists()) {
-                    def data = usageFile.getText("UTF-8")
-                    context.set(DocEngine.SOURCE_FILE, usageFile)
-                    context.set(DocEngine.CONTEXT_PATH, pathToRoot)
-                    context.set(DocEngine.API_CONTEXT_PATH, vars.resourcesPath)
-                    output.warn "Rendering document file $usageFile.name"
-                    vars.content = engine.render(data, context)
-                    vars.sourcePath = "ref/$usageFile.name"
-                    new File("${refDocsDir}/ref/${section}/Usage.html").withWriter(encoding) {out ->
-                        template.make(vars).writeTo(out)
-                    }
-                }
-                for (txt in textiles) {
-                    def name = txt.name[0..-6]
-                    def data = txt.getText("UTF-8")
-                    context.set(DocEngine.SOURCE_FILE, txt.name)
-                    context.set(DocEngine.CONTEXT_PATH, pathToRoot)
-                    context.set(DocEngine.API_CONTEXT_PATH, vars.resourcesPath)
-                    output.warn "Rendering document file $txt.name"
-                    vars.content = engine.render(data, context)
-                    vars.sourcePath = "ref/${section}/$txt.name"
-                    new File("${refDocsDir}/ref/${section}/${name}.html").withWriter(encoding) {out ->
-                        template.make(vars).writeTo(out)
+            // Generate the reference section of the guide.
+            def refPagesWritten = refPages.collect { page ->
+                def pageVars = [*:vars, section: page.section, sourcePath: page.sourcePath]
+                submit(renderer) {
+                    pageVars.content = await(page.content)
+                    page.target.withWriter(encoding) {out ->
+                        refTemplate.make(pageVars).writeTo(out)
                     }
                 }
             }
+            if (refPages) {
+                // The layout of the single page guide sees the source path of
+                // the last reference page
+                vars.sourcePath = refPages.last().sourcePath
+            }
+
+            for (chapterContent in chapterContents) {
+                fullContents << await(chapterContent)
+            }
+            refPagesWritten.each { await(it) }
+            if (renderCache) {
+                renderCache.evictUnused()
+                output.info "Reused ${renderCache.hits} rendered sections, rendered ${renderCache.misses} sections"
+            }
+        } finally {
+            renderer.shutdownNow()
+            renderedSections.clear()
         }
 
-        vars.remove("section")
         vars.content = fullContents.toString()
         vars.single = true
 
@@ -388,7 +451,7 @@ class DocPublisher {
         vars.path = pathToRoot
         vars.resourcesPath = calculatePathToResources(pathToRoot)
 
-        template = templateEngine.createTemplate(new File("${docResources}/style/layout.html").newReader(encoding))
+        def template = templateEngine.createTemplate(new File("${docResources}/style/layout.html").newReader(encoding))
         new File("${refGuideDir}/single.html").withWriter(encoding) {out ->
             template.make(vars).writeTo(out)
         }
@@ -450,8 +513,6 @@ class DocPublisher {
             level,
             vars) {
         def sourceFile = new File(guideSrcDir, section.file)
-        context.set(DocEngine.SOURCE_FILE, sourceFile)
-        context.set(DocEngine.CONTEXT_PATH, path)
 
         def varsCopy = [*:vars]
         varsCopy.putAll(engineProperties)
@@ -461,8 +522,8 @@ class DocPublisher {
         varsCopy.level = level
         varsCopy.sectionToc = section.children
         varsCopy.sourcePath = section.file
-        output.warn "Rendering document file $sourceFile.name"
-        varsCopy.content = engine.render(sourceFile.getText("UTF-8"), context)
+        def rendered = renderedSections.get(section)
+        varsCopy.content = rendered != null ? await(rendered) : render(sourceFile, sourceFile, path, null)
 
         // First create the section content, which usually consists of a header
         // and the translated gdoc content.
@@ -511,6 +572,85 @@ class DocPublisher {
         return varsCopy.content
     }
 
+    private ExecutorService createRenderer() {
+        int threads = asciidoc ? Math.max(1, renderThreads) : 1
+        // Radeox and the Asciidoctor extensions load resources from the context class loader
+        def contextClassLoader = Thread.currentThread().contextClassLoader
+        def threadCount = new AtomicInteger()
+        Executors.newFixedThreadPool(threads, { Runnable r ->
+            def thread = new Thread(r, "guide-renderer-${threadCount.incrementAndGet()}")
+            thread.daemon = true
+            thread.contextClassLoader = contextClassLoader
+            thread
+        } as ThreadFactory)
+    }
+
+    /**
+     * Submits work to the renderer. The work runs with the string
+     * escaping methods used by the templates.
+     */
+    private static <T> Future<T> submit(ExecutorService renderer, Closure<T> work) {
+        renderer.submit({
+            use(StringEscapeCategory) {
+                work.call()
+            }
+        } as Callable<T>)
+    }
+
+    private void submitSectionRenders(ExecutorService renderer, section, File guideSrcDir, path) {
+        def sourceFile = new File(guideSrcDir, section.file)
+        renderedSections.put(section, submitRender(renderer, sourceFile, sourceFile, path, null))
+        for (s in section.children) {
+            submitSectionRenders(renderer, s, guideSrcDir, path)
+        }
+    }
+
+    private Future<String> submitRender(ExecutorService renderer, File sourceFile, sourceFileValue, path, apiContextPath) {
+        submit(renderer) {
+            render(sourceFile, sourceFileValue, path, apiContextPath)
+        }
+    }
+
+    /**
+     * Renders the content of a source file. With the Asciidoctor engine,
+     * which is safe for concurrent use and ignores the Radeox render
+     * context, several files are rendered concurrently. The gdoc engine
+     * reads the shared render context, which is why it only renders one
+     * file at a time, in the order of the guide.
+     */
+    private String render(File sourceFile, sourceFileValue, path, apiContextPath) {
+        if (!asciidoc) {
+            context.set(DocEngine.SOURCE_FILE, sourceFileValue)
+            context.set(DocEngine.CONTEXT_PATH, path)
+            if (apiContextPath != null) {
+                context.set(DocEngine.API_CONTEXT_PATH, apiContextPath)
+            }
+        }
+        def text = sourceFile.getText("UTF-8")
+        String key = null
+        if (renderCache) {
+            key = renderCache.keyOf(sourceFile, text, [sourceFileValue, path, apiContextPath])
+            def cached = renderCache.get(key)
+            if (cached != null) {
+                return cached
+            }
+        }
+        output.warn "Rendering document file $sourceFile.name"
+        def rendered = engine.render(text, context)
+        if (key != null) {
+            renderCache.put(key, rendered)
+        }
+        rendered
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            future.get()
+        } catch (ExecutionException e) {
+            throw e.cause
+        }
+    }
+
     protected void initialize() {
         if (language) {
             src = new File(src, language)
@@ -566,7 +706,7 @@ class DocPublisher {
         initContext(context, "..")
 
         if(asciidoc) {
-            engine = new AsciiDocEngine(context)
+            engine = new AsciiDocEngine(context, asciidoctor)
         }
         else {
             engine = new DocEngine(context)
@@ -1,12 +1,14 @@
 package io.micronaut.docs
 
 import org.asciidoctor.Asciidoctor
-import org.asciidoctor.Attributes
-import org.asciidoctor.Options
-import org.asciidoctor.SafeMode
+import org.asciidoctor.ast.Block
 import org.asciidoctor.ast.StructuralNode
 import org.asciidoctor.extension.BlockMacroProcessor
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+
 class LanguageSnippetMacro extends BlockMacroProcessor implements ValueAtAttributes {
     final Asciidoctor asciidoctor
 
@@ -20,13 +22,15 @@ class LanguageSnippetMacro extends BlockMacroProcessor implements ValueAtAttribu
     private static final String ATTR_PROJECT = 'project'
     private static final String ATTR_SOURCE = 'source'
     private static final String ATTR_PROJECT_BASE = 'project-base'
+    private static final Pattern TAG_DIRECTIVE = Pattern.compile('\\b(tag|end)::(\\S+?)\\[]')
+    private static final Map<File, Set<String>> DIRECTORY_INDEX = new ConcurrentHashMap<>()
 
     LanguageSnippetMacro(String macroName, Map<String, Object> config, Asciidoctor asciidoctor) {
         super(macroName, config)
         this.asciidoctor = asciidoctor
     }
 
-    private String projectDir(String lang, Map<String, Object> attributes) {
+    private static String projectDir(String lang, Map<String, Object> attributes) {
         String projectBase = valueAtAttributes(ATTR_PROJECT_BASE, attributes)
         if (projectBase) {
             return "$projectBase-$lang"
@@ -47,65 +51,161 @@ class LanguageSnippetMacro extends BlockMacroProcessor implements ValueAtAttribu
         }
     }
 
+    /**
+     * Returns the file of a snippet in the test suite of a language, which may not exist.
+     */
+    static File snippetFile(String lang, String fileName, Map<String, Object> attributes) {
+        String projectDir = projectDir(lang, attributes)
+        String ext = lang == LANG_KOTLIN ? 'kt' : lang
+        String sourceType = valueAtAttributes(ATTR_SOURCE, attributes) ?: 'test'
+        String baseName = fileName.replace(".", File.separator)
+        String pathName = "$projectDir/src/$sourceType/$lang/${baseName}.$ext"
+        if (System.getProperty("user.dir") != null) {
+            pathName = "${System.getProperty("user.dir")}${File.separator}${pathName}".toString()
+        }
+        new File(pathName)
+    }
+
+    /**
+     * Returns the files which a snippet macro looks for, in all languages.
+     */
+    static List<File> snippetFiles(String target, Map<String, Object> attributes) {
+        LANGS.collectMany { lang ->
+            target.split(",").collect { fileName -> snippetFile(lang, fileName, attributes) }
+        }
+    }
+
+    /**
+     * Forgets the directory listings used to locate snippet files. Since
+     * Asciidoctor instances outlive a publication, this must be called
+     * whenever the test suites may have changed.
+     */
+    static void clearSnippetIndex() {
+        DIRECTORY_INDEX.clear()
+    }
+
+    /**
+     * Checks whether a snippet file exists using a cached listing of its
+     * directory, so that the many snippets of a guide which live in the
+     * same few directories only list them once.
+     */
+    static boolean snippetExists(File file) {
+        File dir = file.absoluteFile.parentFile
+        Set<String> names = DIRECTORY_INDEX.computeIfAbsent(dir) { File d ->
+            Set<String> files = new HashSet<>()
+            d.listFiles()?.each { File f ->
+                if (f.file) {
+                    files.add(f.name)
+                }
+            }
+            files
+        }
+        names.contains(file.name)
+    }
+
+    /**
+     * Returns the lines of a snippet file to include, the same way an
+     * {@code include::} directive with the {@code tag} and {@code indent}
+     * attributes would.
+     */
+    static List<String> snippetLines(File file, String[] tags, String indent) {
+        List<String> lines = file.readLines("UTF-8")
+        if (!tags) {
+            return reindent(lines, indent)
+        }
+        List<String> tagged = []
+        for (String tag in tags) {
+            List<String> region = taggedLines(lines, tag.trim())
+            if (region == null) {
+                println "!!!! WARNING: TAG '$tag' NOT FOUND IN FILE : $file.path"
+                continue
+            }
+            if (tagged) {
+                tagged << ''
+            }
+            tagged.addAll(reindent(region, indent))
+        }
+        tagged
+    }
+
+    private static List<String> taggedLines(List<String> lines, String tag) {
+        List<String> region = null
+        boolean inside = false
+        for (String line in lines) {
+            Matcher directive = TAG_DIRECTIVE.matcher(line)
+            if (directive.find()) {
+                if (directive.group(2) == tag) {
+                    inside = directive.group(1) == 'tag'
+                    if (inside && region == null) {
+                        region = []
+                    }
+                }
+                continue
+            }
+            if (inside) {
+                region << line
+            }
+        }
+        region
+    }
+
+    private static List<String> reindent(List<String> lines, String indent) {
+        if (!indent) {
+            return lines
+        }
+        int common = lines.findAll { it.trim() }
+                .collect { it.length() - it.replaceAll('^\\s+', '').length() }
+                .min() ?: 0
+        String prefix = ' ' * indent.toInteger()
+        lines.collect { it.trim() ? prefix + it.substring(common) : '' }
+    }
+
     @Override
     Object process(StructuralNode parent, String target, Map<String, Object> attributes) {
         String[] tags = valueAtAttributes("tags", attributes)?.toString()?.split(",")
         String indent = valueAtAttributes("indent", attributes)
         String title = valueAtAttributes("title", attributes)
-        StringBuilder content = new StringBuilder()
 
         String[] files = target.split(",")
+        Block compound = createBlock(parent, "open", "", [:])
         for (lang in LANGS) {
-            if (title != null) {
-                content << ".$title\n\n"
-            }
-            String projectDir = projectDir(lang, attributes)
-            String ext = lang == LANG_KOTLIN ? 'kt' : lang
-            String sourceFolder = lang
-            String sourceType = valueAtAttributes(ATTR_SOURCE, attributes) ?: 'test'
-
-            List includes = []
+            List<String> lines = []
             for (fileName in files) {
-                String baseName = fileName.replace(".", File.separator)
-                String pathName = "$projectDir/src/$sourceType/$sourceFolder/${baseName}.$ext"
-                if (System.getProperty("user.dir") != null) {
-                    pathName = "${System.getProperty("user.dir")}${File.separator}${pathName}".toString()
-                }
-                File file = new File(pathName)
-                if (!file.exists()) {
+                File file = snippetFile(lang, fileName, attributes)
+                if (!snippetExists(file)) {
                     println "!!!! WARNING: NO FILE FOUND MATCHING TARGET PASSED IN AT PATH : $file.path"
                     continue
                 }
-
-                indent = indent ? tags ? ",indent=$indent" : "indent=$indent" : ""
-
-                if (tags) {
-                    includes << tags.collect() { "include::${file.absolutePath}[tag=${it}${indent}]" }.join("\n\n")
-                } else {
-                    includes << "include::${file.absolutePath}[${indent}]"
+                if (lines) {
+                    lines << ''
                 }
+                lines.addAll(snippetLines(file, tags, indent))
             }
 
-            if (!includes.empty) {
-                content << """
-[source.multi-language-sample,$lang,$title]
-----
-${includes.join("\n\n")}
-----\n\n"""
+            if (lines) {
+                // The listing applies the substitutions of the document, like callouts, but the sample is
+                // rendered for highlight.js, which the guide uses, whatever the highlighter of the document
+                Block listing = createBlock(compound, "listing", lines, [:] as Map<String, Object>, [subs: ':default'] as Map<Object, Object>)
+                if (title != null) {
+                    listing.title = title
+                }
+                compound.append(createBlock(compound, "pass", sourceSample(lang, listing.title, listing.content as String)))
             }
         }
-        if (content) {
-            def options = Options.builder()
-                    .attributes(
-                            Attributes.builder()
-                                    .attribute('source-highlighter', 'highlightjs')
-                                    .build()
-                    )
-                    .safe(SafeMode.UNSAFE)
-                    .build()
-            String result = asciidoctor.convert(content.toString(), options)
-            createBlock(parent, "pass", result)
-        }
+        compound.blocks ? compound : null
+    }
+
+    /**
+     * Returns the HTML of a multi-language sample, as Asciidoctor renders
+     * a source block when highlight.js is the syntax highlighter.
+     */
+    static String sourceSample(String lang, String title, String code) {
+        String titleDiv = title ? "<div class=\"title\">$title</div>\n" : ""
+        """<div class="listingblock multi-language-sample">
+${titleDiv}<div class="content">
+<pre class="highlightjs highlight"><code class="language-$lang hljs" data-lang="$lang">$code</code></pre>
+</div>
+</div>"""
     }
 
 }
@@ -17,7 +17,7 @@ import static org.asciidoctor.Asciidoctor.Factory.create
  * @since 3.2.0
  */
 class AsciiDocEngine extends DocEngine {
-    Asciidoctor asciidoctor = create();
+    Asciidoctor asciidoctor
     Map attributes = [
         'imagesdir': '../img',
         'source-highlighter':'coderay',
@@ -25,7 +25,16 @@ class AsciiDocEngine extends DocEngine {
     ]
 
     AsciiDocEngine(InitialRenderContext context) {
+        this(context, null)
+    }
+
+    /**
+     * Creates an engine which renders pages with the given Asciidoctor
+     * instance, or with a new instance if it is null.
+     */
+    AsciiDocEngine(InitialRenderContext context, Asciidoctor asciidoctor) {
         super(context)
+        this.asciidoctor = asciidoctor ?: create()
     }
 
     @Override
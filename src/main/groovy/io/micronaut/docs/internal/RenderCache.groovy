@@ -0,0 +1,188 @@
+package io.micronaut.docs.internal
+
+import io.micronaut.docs.LanguageSnippetMacro
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+
+/**
+ * A persistent cache of rendered document fragments, addressed by their content.
+ * The key of a fragment is a hash of the source text, of the files it includes,
+ * either directly with an {@code include::} directive or with the {@code snippet::}
+ * macro, and of a fingerprint of the rendering setup: engine attributes and
+ * version of the cache format.
+ *
+ * Fragments which were not used by the last publication are deleted by
+ * {@link #evictUnused()}, so that the cache doesn't grow forever.
+ */
+class RenderCache {
+    /**
+     * The version of the rendering templates and cache format, which must be
+     * increased whenever a change to the rendering code changes its output.
+     */
+    static final int TEMPLATE_VERSION = 3
+
+    private static final String EXTENSION = ".html"
+    private static final int MAX_INCLUDE_DEPTH = 16
+    private static final Pattern INCLUDE = Pattern.compile('^include::(.+?)\\[(.*)]\\s*$', Pattern.MULTILINE)
+    private static final Pattern SNIPPET = Pattern.compile('^snippet::(.+?)\\[(.*)]\\s*$', Pattern.MULTILINE)
+    private static final Pattern ATTRIBUTE_REFERENCE = Pattern.compile('\\{([\\w-]+)}')
+
+    private final File directory
+    private final Map<String, Object> attributes
+    private final byte[] fingerprint
+    private final Set<String> usedKeys = ConcurrentHashMap.newKeySet()
+    private final AtomicInteger hits = new AtomicInteger()
+    private final AtomicInteger misses = new AtomicInteger()
+
+    /**
+     * Creates a cache.
+     * @param directory the directory where fragments are stored
+     * @param engine the name of the rendering engine
+     * @param attributes the attributes of the engine, which are also used to resolve include paths
+     */
+    RenderCache(File directory, String engine, Map<String, Object> attributes) {
+        this.directory = directory
+        this.attributes = new TreeMap<>(attributes.collectEntries { k, v -> [String.valueOf(k), v] })
+        def digest = MessageDigest.getInstance("SHA-256")
+        update(digest, "template-version:$TEMPLATE_VERSION")
+        update(digest, "engine:$engine")
+        update(digest, "user.dir:${System.getProperty('user.dir')}")
+        this.attributes.each { k, v -> update(digest, "attribute:$k=$v") }
+        this.fingerprint = digest.digest()
+        directory.mkdirs()
+    }
+
+    /**
+     * Computes the key of a fragment.
+     * @param sourceFile the source file
+     * @param text the source text
+     * @param context additional values which the rendering depends on
+     * @return the key
+     */
+    String keyOf(File sourceFile, String text, List<Object> context) {
+        def digest = MessageDigest.getInstance("SHA-256")
+        digest.update(fingerprint)
+        context.each { update(digest, "context:$it") }
+        update(digest, "source:$text")
+        hashDependencies(digest, sourceFile.parentFile, text, new HashSet<File>(), 0)
+        digest.digest().encodeHex().toString()
+    }
+
+    /**
+     * Returns a fragment previously stored with the same key.
+     * @param key the key of the fragment
+     * @return the fragment, or null if there is none
+     */
+    String get(String key) {
+        usedKeys.add(key)
+        def file = new File(directory, key + EXTENSION)
+        if (file.file) {
+            hits.incrementAndGet()
+            return file.getText("UTF-8")
+        }
+        misses.incrementAndGet()
+        null
+    }
+
+    void put(String key, String fragment) {
+        usedKeys.add(key)
+        def file = new File(directory, key + EXTENSION)
+        def tmp = File.createTempFile("fragment", ".tmp", directory)
+        tmp.setText(fragment, "UTF-8")
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    }
+
+    /**
+     * Deletes the fragments which were not used since this cache was created.
+     */
+    void evictUnused() {
+        directory.listFiles()?.each { file ->
+            if (!usedKeys.contains(file.name - EXTENSION)) {
+                file.delete()
+            }
+        }
+    }
+
+    int getHits() {
+        hits.get()
+    }
+
+    int getMisses() {
+        misses.get()
+    }
+
+    private void hashDependencies(MessageDigest digest, File baseDir, String text, Set<File> visited, int depth) {
+        if (depth > MAX_INCLUDE_DEPTH) {
+            return
+        }
+        Matcher include = INCLUDE.matcher(text)
+        while (include.find()) {
+            String path = resolveAttributes(include.group(1))
+            List<File> files = resolveInclude(baseDir, path)
+            if (files.empty) {
+                update(digest, "missing-include:$path")
+            }
+            for (File file in files) {
+                if (visited.add(file.canonicalFile)) {
+                    String included = file.getText("UTF-8")
+                    update(digest, "include:$file.absolutePath")
+                    update(digest, included)
+                    hashDependencies(digest, file.parentFile, included, visited, depth + 1)
+                }
+            }
+        }
+        Matcher snippet = SNIPPET.matcher(text)
+        while (snippet.find()) {
+            Map<String, Object> macroAttributes = [text: snippet.group(2)] as Map<String, Object>
+            for (File file in LanguageSnippetMacro.snippetFiles(snippet.group(1), macroAttributes)) {
+                if (file.file) {
+                    update(digest, "snippet:$file.absolutePath")
+                    digest.update(file.bytes)
+                } else {
+                    update(digest, "missing-snippet:$file.absolutePath")
+                }
+            }
+        }
+    }
+
+    private String resolveAttributes(String path) {
+        Matcher matcher = ATTRIBUTE_REFERENCE.matcher(path)
+        def sb = new StringBuffer()
+        while (matcher.find()) {
+            def value = attributes[matcher.group(1)]
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(value != null ? value.toString() : matcher.group(0)))
+        }
+        matcher.appendTail(sb)
+        sb.toString()
+    }
+
+    /**
+     * Finds the files which an include directive may refer to. Asciidoctor
+     * resolves a relative path against the directory of the including file,
+     * or against the working directory for documents converted from a string,
+     * so both candidates are returned when they exist.
+     */
+    private static List<File> resolveInclude(File baseDir, String path) {
+        def file = new File(path)
+        if (file.absolute) {
+            return file.file ? [file] : []
+        }
+        [baseDir, new File(System.getProperty('user.dir'))].findAll()
+                .collect { new File(it, path) }
+                .findAll { it.file }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8)
+        digest.update(bytes)
+        // separator, so that consecutive values can't be confused
+        digest.update((byte) 0)
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.catalogs.internal;
+
+import io.micronaut.build.utils.ComparableVersion;
+import io.micronaut.build.utils.VersionParser;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Computes the differences between two version catalogs: added and
+ * removed aliases, version downgrades and upgrades, coordinate changes
+ * and other changes of the version notation, for the versions,
+ * libraries and plugins tables.
+ *
+ * The current catalog is indexed by alias once, then the baseline
+ * catalog is traversed in a single pass: each baseline entry is looked
+ * up and removed from the index, so that what remains in the index at
+ * the end are the added aliases.
+ */
+public final class VersionCatalogDiff {
+    private final List<Change> changes;
+
+    private VersionCatalogDiff(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Compares two catalogs.
+     * @param baseline the baseline catalog
+     * @param current the current catalog
+     * @return the differences, sorted by section and alias
+     */
+    public static VersionCatalogDiff compare(VersionCatalogTomlModel baseline, VersionCatalogTomlModel current) {
+        var changes = new ArrayList<Change>();
+        compareSection(Section.VERSIONS,
+            baseline.getVersionsTable(),
+            current.getVersionsTable(),
+            VersionModel::getReference,
+            v -> null,
+            v -> null,
+            VersionModel::getVersion,
+            changes);
+        compareSection(Section.LIBRARIES,
+            baseline.getLibrariesTable(),
+            current.getLibrariesTable(),
+            Library::getAlias,
+            Library::getModule,
+            library -> referenceOf(library.getVersion()),
+            library -> inlineVersionOf(library.getVersion()),
+            changes);
+        compareSection(Section.PLUGINS,
+            baseline.getPluginsTable(),
+            current.getPluginsTable(),
+            Plugin::alias,
+            Plugin::id,
+            plugin -> referenceOf(plugin.version()),
+            plugin -> inlineVersionOf(plugin.version()),
+            changes);
+        changes.sort(Comparator.comparing(Change::section).thenComparing(Change::alias));
+        return new VersionCatalogDiff(List.copyOf(changes));
+    }
+
+    @Nullable
+    private static String referenceOf(@Nullable VersionModel version) {
+        return version == null ? null : version.getReference();
+    }
+
+    /**
+     * Returns the version of an entry. Entries which reference a
+     * version alias are not resolved: a change of the referenced
+     * version is reported for the version alias itself.
+     */
+    @Nullable
+    private static RichVersion inlineVersionOf(@Nullable VersionModel version) {
+        return version == null || version.getReference() != null ? null : version.getVersion();
+    }
+
+    private static <T> void compareSection(Section section,
+                                           Collection<T> baselineEntries,
+                                           Collection<T> currentEntries,
+                                           Function<T, String> alias,
+                                           Function<T, String> coordinates,
+                                           Function<T, String> versionReference,
+                                           Function<T, RichVersion> version,
+                                           List<Change> changes) {
+        Map<String, T> index = new HashMap<>(currentEntries.size() * 2);
+        for (T entry : currentEntries) {
+            index.put(alias.apply(entry), entry);
+        }
+        for (T baselineEntry : baselineEntries) {
+            String name = alias.apply(baselineEntry);
+            T currentEntry = index.remove(name);
+            if (currentEntry == null) {
+                changes.add(new Change(section, name, ChangeType.REMOVED,
+                    describe(coordinates.apply(baselineEntry), version.apply(baselineEntry)), null));
+                continue;
+            }
+            String baselineCoordinates = coordinates.apply(baselineEntry);
+            String currentCoordinates = coordinates.apply(currentEntry);
+            if (!Objects.equals(baselineCoordinates, currentCoordinates)) {
+                changes.add(new Change(section, name, ChangeType.COORDINATES_CHANGED, baselineCoordinates, currentCoordinates));
+            }
+            String baselineRef = versionReference.apply(baselineEntry);
+            String currentRef = versionReference.apply(currentEntry);
+            if (!Objects.equals(baselineRef, currentRef)) {
+                changes.add(new Change(section, name, ChangeType.CHANGED,
+                    describeReference(baselineRef, version.apply(baselineEntry)),
+                    describeReference(currentRef, version.apply(currentEntry))));
+                continue;
+            }
+            compareVersions(section, name, version.apply(baselineEntry), version.apply(currentEntry), changes);
+        }
+        var added = new TreeMap<>(index);
+        added.forEach((name, entry) -> changes.add(new Change(section, name, ChangeType.ADDED, null,
+            describe(coordinates.apply(entry), version.apply(entry)))));
+    }
+
+    private static void compareVersions(Section section, String alias, @Nullable RichVersion baseline, @Nullable RichVersion current, List<Change> changes) {
+        if (Objects.equals(baseline, current)) {
+            return;
+        }
+        String baselineVersion = preferredVersionOf(baseline);
+        String currentVersion = preferredVersionOf(current);
+        ChangeType type = ChangeType.CHANGED;
+        if (baselineVersion != null && currentVersion != null && isSameNotation(baseline, current)) {
+            ComparableVersion from = VersionParser.parse(baselineVersion);
+            ComparableVersion to = VersionParser.parse(currentVersion);
+            if (from.major().isPresent() && to.major().isPresent()) {
+                int comparison = to.compareTo(from);
+                if (comparison < 0) {
+                    type = ChangeType.DOWNGRADED;
+                } else if (comparison > 0) {
+                    type = ChangeType.UPGRADED;
+                }
+            }
+        }
+        changes.add(new Change(section, alias, type, describe(null, baseline), describe(null, current)));
+    }
+
+    /**
+     * Two rich versions use the same notation if they only differ
+     * by the version they require (or strictly require), in which case
+     * comparing them tells whether the version was upgraded or downgraded.
+     */
+    private static boolean isSameNotation(RichVersion baseline, RichVersion current) {
+        return (baseline.getStrictly() == null) == (current.getStrictly() == null)
+            && Objects.equals(baseline.getPrefer(), current.getPrefer())
+            && Objects.equals(baseline.getRejectedVersions(), current.getRejectedVersions())
+            && baseline.isRejectAll() == current.isRejectAll();
+    }
+
+    @Nullable
+    private static String preferredVersionOf(@Nullable RichVersion version) {
+        if (version == null) {
+            return null;
+        }
+        if (isSet(version.getStrictly())) {
+            return version.getStrictly();
+        }
+        return isSet(version.getRequire()) ? version.getRequire() : null;
+    }
+
+    private static boolean isSet(@Nullable String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    @Nullable
+    private static String describe(@Nullable String coordinates, @Nullable RichVersion version) {
+        String versionString = describe(version);
+        if (coordinates == null) {
+            return versionString;
+        }
+        return versionString == null ? coordinates : coordinates + ":" + versionString;
+    }
+
+    @Nullable
+    private static String describe(@Nullable RichVersion version) {
+        if (version == null) {
+            return null;
+        }
+        var parts = new ArrayList<String>(4);
+        if (isSet(version.getStrictly())) {
+            parts.add("strictly " + version.getStrictly());
+        } else if (isSet(version.getRequire())) {
+            parts.add(version.getRequire());
+        }
+        if (isSet(version.getPrefer())) {
+            parts.add("prefer " + version.getPrefer());
+        }
+        if (version.getRejectedVersions() != null && !version.getRejectedVersions().isEmpty()) {
+            parts.add("reject " + String.join(", ", version.getRejectedVersions()));
+        }
+        if (version.isRejectAll()) {
+            parts.add("reject all");
+        }
+        return parts.isEmpty() ? null : String.join(" ", parts);
+    }
+
+    private static String describeReference(@Nullable String reference, @Nullable RichVersion version) {
+        if (reference != null) {
+            return "version.ref " + reference;
+        }
+        return Objects.requireNonNullElse(describe(version), "no version");
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns the changes of a section.
+     * @param section the section
+     * @param types the types of changes to return
+     * @return the changes, sorted by alias
+     */
+    public List<Change> getChanges(Section section, Set<ChangeType> types) {
+        return changes.stream()
+            .filter(c -> c.section() == section && types.contains(c.type()))
+            .toList();
+    }
+
+    /**
+     * Returns a representation of the differences which can be
+     * serialized as JSON.
+     * @return the JSON model
+     */
+    public Map<String, Object> toJsonModel() {
+        var sections = new LinkedHashMap<String, Object>();
+        for (Section section : Section.values()) {
+            var entries = new ArrayList<Map<String, Object>>();
+            for (Change change : changes) {
+                if (change.section() == section) {
+                    var entry = new LinkedHashMap<String, Object>();
+                    entry.put("alias", change.alias());
+                    entry.put("change", change.type().name().toLowerCase(Locale.US));
+                    if (change.baseline() != null) {
+                        entry.put("baseline", change.baseline());
+                    }
+                    if (change.current() != null) {
+                        entry.put("current", change.current());
+                    }
+                    entries.add(entry);
+                }
+            }
+            sections.put(section.name().toLowerCase(Locale.US), entries);
+        }
+        return sections;
+    }
+
+    public enum Section {
+        VERSIONS,
+        LIBRARIES,
+        PLUGINS
+    }
+
+    public enum ChangeType {
+        ADDED,
+        REMOVED,
+        UPGRADED,
+        DOWNGRADED,
+        COORDINATES_CHANGED,
+        CHANGED
+    }
+
+    /**
+     * A difference between the baseline and the current catalog.
+     * @param section the section of the catalog
+     * @param alias the alias of the entry
+     * @param type the type of change
+     * @param baseline a description of the entry in the baseline catalog, if relevant
+     * @param current a description of the entry in the current catalog, if relevant
+     */
+    public record Change(Section section, String alias, ChangeType type, @Nullable String baseline, @Nullable String current) {
+    }
+}
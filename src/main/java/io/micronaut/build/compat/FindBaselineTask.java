@@ -90,7 +90,7 @@ public abstract class FindBaselineTask extends DefaultTask {
     public void execute() throws IOException {
         byte[] metadata = getMavenMetadata().get();
         List<ComparableVersion> releases = MavenMetadataVersionHelper.findReleasesFrom(metadata);
-        ComparableVersion current = VersionParser.parse(trimVersion());
+        ComparableVersion current = VersionParser.parse(trimVersion(getCurrentVersion().get()));
         Optional<ComparableVersion> previous = MavenMetadataVersionHelper.findPreviousReleaseFor(current, releases);
         if (!previous.isPresent()) {
             throw new IllegalStateException("Could not find a previous version for " + current);
@@ -98,8 +98,7 @@ public abstract class FindBaselineTask extends DefaultTask {
         Files.write(getPreviousVersion().get().getAsFile().toPath(), previous.get().toString().getBytes("UTF-8"));
     }
 
-    private String trimVersion() {
-        String version = getCurrentVersion().get();
+    static String trimVersion(String version) {
         int idx = version.indexOf('-');
         if (idx >= 0) {
             return version.substring(0, idx);
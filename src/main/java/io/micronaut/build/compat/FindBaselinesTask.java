@@ -0,0 +1,212 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.compat;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import io.micronaut.build.utils.ComparableVersion;
+import io.micronaut.build.utils.ExternalURLService;
+import io.micronaut.build.utils.VersionParser;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds the baseline versions of all the modules of a build in a single
+ * pass: the Maven metadata of each artifact is fetched once, concurrently,
+ * through the shared {@link ExternalURLService}, then the previous release
+ * of each module is written to a single JSON file which the binary
+ * compatibility checks of the modules read.
+ *
+ * Since all modules of a build share the same version line, a warning is
+ * logged if modules with the same version don't agree on the previous
+ * release, which usually means that a module wasn't published.
+ */
+@CacheableTask
+public abstract class FindBaselinesTask extends DefaultTask {
+    /**
+     * The maximum number of metadata files fetched at the same time.
+     */
+    static final int MAX_CONCURRENT_FETCHES = 8;
+
+    @Input
+    public abstract Property<String> getBaseRepository();
+
+    /**
+     * The coordinates files contributed by the modules. Each one is a
+     * properties file with the {@code module} name, its
+     * {@code groupId:artifactId:currentVersion} {@code coordinates}, and
+     * whether it needs a baseline to be found ({@code findBaseline}).
+     * @return the coordinates files
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract ConfigurableFileCollection getModuleCoordinates();
+
+    @Internal
+    abstract Property<ExternalURLService> getDownloader();
+
+    @Input
+    protected Provider<Long> getTimestamp() {
+        return getProviders().provider(() -> {
+            long seconds = System.currentTimeMillis() / 1000;
+            long base = seconds / FindBaselineTask.CACHE_IN_SECONDS;
+            return base * FindBaselineTask.CACHE_IN_SECONDS;
+        });
+    }
+
+    @Inject
+    protected abstract ProviderFactory getProviders();
+
+    @OutputFile
+    public abstract RegularFileProperty getBaselines();
+
+    @TaskAction
+    public void execute() throws IOException {
+        Map<String, String> modules = readModules();
+        String baseRepository = getBaseRepository().get();
+        ExternalURLService downloader = getDownloader().get();
+        Map<String, List<ComparableVersion>> releases = fetchReleases(modules.values(), baseRepository, downloader);
+        Map<String, Map<String, Object>> baselines = new LinkedHashMap<>();
+        // Modules, by current version then by baseline, to check that modules agree on the previous release
+        Map<String, Map<String, List<String>>> agreement = new TreeMap<>();
+        modules.forEach((module, coordinates) -> {
+            String[] gav = coordinates.split(":");
+            List<ComparableVersion> artifactReleases = releases.get(gav[0] + ":" + gav[1]);
+            ComparableVersion current = VersionParser.parse(FindBaselineTask.trimVersion(gav[2]));
+            Optional<ComparableVersion> previous = MavenMetadataVersionHelper.findPreviousReleaseFor(current, artifactReleases);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("groupId", gav[0]);
+            entry.put("artifactId", gav[1]);
+            entry.put("currentVersion", gav[2]);
+            entry.put("baseline", previous.map(ComparableVersion::toString).orElse(null));
+            baselines.put(module, entry);
+            previous.ifPresent(version -> agreement.computeIfAbsent(gav[2], v -> new TreeMap<>())
+                .computeIfAbsent(version.toString(), v -> new ArrayList<>())
+                .add(module));
+        });
+        agreement.forEach((currentVersion, byBaseline) -> {
+            if (byBaseline.size() > 1) {
+                getLogger().warn("Modules with version {} don't agree on the previous release: {}", currentVersion, byBaseline);
+            }
+        });
+        Files.writeString(getBaselines().get().getAsFile().toPath(), JsonOutput.prettyPrint(JsonOutput.toJson(Map.of("modules", baselines))), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fetches the Maven metadata of the artifacts of the modules concurrently,
+     * since a build may have dozens of modules which all live in the same
+     * repository.
+     * @param coordinates the coordinates of the modules
+     * @param baseRepository the repository to fetch the metadata from
+     * @param downloader the URL service
+     * @return the releases of each artifact, by {@code groupId:artifactId}
+     */
+    static Map<String, List<ComparableVersion>> fetchReleases(Collection<String> coordinates, String baseRepository, ExternalURLService downloader) {
+        Map<String, CompletableFuture<List<ComparableVersion>>> futures = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_FETCHES);
+        try {
+            for (String gav : coordinates) {
+                String[] parts = gav.split(":");
+                futures.computeIfAbsent(parts[0] + ":" + parts[1], unused -> CompletableFuture.supplyAsync(() -> {
+                    URI uri = URI.create(baseRepository + "/" + parts[0].replace('.', '/') + "/" + parts[1] + "/maven-metadata.xml");
+                    return downloader.fetchFromURL(uri, MAX_CONCURRENT_FETCHES).map(MavenMetadataVersionHelper::findReleasesFrom).orElse(List.of());
+                }, executor));
+            }
+            Map<String, List<ComparableVersion>> releases = new HashMap<>();
+            futures.forEach((artifact, future) -> {
+                try {
+                    releases.put(artifact, future.join());
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+            });
+            return releases;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the modules which need a baseline from the coordinates files.
+     * @return the coordinates of the modules, by module name
+     */
+    private Map<String, String> readModules() throws IOException {
+        Map<String, String> modules = new TreeMap<>();
+        for (File file : getModuleCoordinates().getFiles()) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            if (Boolean.parseBoolean(properties.getProperty("findBaseline"))) {
+                modules.put(properties.getProperty("module"), properties.getProperty("coordinates"));
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Reads the baseline of a module from the file written by this task.
+     * @param json the contents of the baselines file
+     * @param module the name of the module
+     * @return the baseline version
+     */
+    @SuppressWarnings("unchecked")
+    static String readBaseline(String json, String module) {
+        Map<String, Object> modules = (Map<String, Object>) ((Map<String, Object>) new JsonSlurper().parseText(json)).get("modules");
+        Map<String, Object> entry = (Map<String, Object>) modules.get(module);
+        if (entry == null || entry.get("baseline") == null) {
+            String currentVersion = entry == null ? "" : " " + entry.get("currentVersion");
+            throw new IllegalStateException("Could not find a previous version for " + module + currentVersion);
+        }
+        return (String) entry.get("baseline");
+    }
+}
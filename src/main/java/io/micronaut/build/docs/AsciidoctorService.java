@@ -0,0 +1,157 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.build.docs;
+
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * A build service which lends Asciidoctor instances to the documentation
+ * tasks. Creating an instance boots a JRuby runtime, which takes several
+ * seconds, so instances are created at most once per task class loader:
+ * they are kept in a pool which outlives the build, and subsequent builds
+ * running in the same daemon reuse them, already warmed up.
+ *
+ * Instances are created with the class loader of the plugin, so that the
+ * Micronaut extensions, registered by the {@code DocsExtensionRegistry}
+ * service, are available.
+ *
+ * When the service is closed, at the end of the build, a single warm
+ * instance is kept and the other ones are shut down.
+ */
+public abstract class AsciidoctorService implements BuildService<AsciidoctorService.Params>, AutoCloseable {
+    public static final String NAME = "asciidoctorService";
+
+    /**
+     * The idle instances, shared by the builds which run with the same
+     * plugin class loader.
+     */
+    private static final BlockingDeque<Asciidoctor> IDLE = new LinkedBlockingDeque<>();
+    private static final Object LOCK = new Object();
+    private static Semaphore permits;
+    private static int maxInstances;
+    /**
+     * Incremented whenever the pool size changes, so that instances which
+     * are in use at that time are shut down instead of being returned.
+     */
+    private static int generation;
+
+    interface Params extends BuildServiceParameters {
+        Property<Integer> getMaxInstances();
+    }
+
+    public AsciidoctorService() {
+        int max = Math.max(1, getParameters().getMaxInstances().get());
+        synchronized (LOCK) {
+            if (permits == null || maxInstances != max) {
+                permits = new Semaphore(max);
+                maxInstances = max;
+                generation++;
+                shutdownIdle(0);
+            }
+        }
+    }
+
+    /**
+     * Runs an action with an Asciidoctor instance, which is exclusively
+     * used by the action until it completes.
+     * @param action the action
+     * @param <T> the type of the result
+     * @return the result of the action
+     */
+    public <T> T withAsciidoctor(Function<? super Asciidoctor, T> action) {
+        Semaphore semaphore;
+        int currentGeneration;
+        synchronized (LOCK) {
+            semaphore = permits;
+            currentGeneration = generation;
+        }
+        semaphore.acquireUninterruptibly();
+        try {
+            Asciidoctor asciidoctor = IDLE.pollFirst();
+            if (asciidoctor == null) {
+                asciidoctor = create();
+            }
+            try {
+                return action.apply(asciidoctor);
+            } finally {
+                release(asciidoctor, currentGeneration);
+            }
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private static void release(Asciidoctor asciidoctor, int instanceGeneration) {
+        synchronized (LOCK) {
+            if (instanceGeneration == generation && IDLE.size() < maxInstances) {
+                IDLE.offerFirst(asciidoctor);
+                return;
+            }
+        }
+        asciidoctor.shutdown();
+    }
+
+    /**
+     * Shuts down the idle instances which exceed the given count, starting
+     * with the least recently used ones.
+     * @param keep the number of idle instances to keep
+     */
+    private static void shutdownIdle(int keep) {
+        Asciidoctor asciidoctor;
+        while (IDLE.size() > keep && (asciidoctor = IDLE.pollLast()) != null) {
+            asciidoctor.shutdown();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (LOCK) {
+            shutdownIdle(1);
+        }
+    }
+
+    private static Asciidoctor create() {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try {
+            ClassLoader pluginClassLoader = AsciidoctorService.class.getClassLoader();
+            thread.setContextClassLoader(pluginClassLoader);
+            Asciidoctor asciidoctor = Asciidoctor.Factory.create(pluginClassLoader);
+            // Loads the converter and the extensions, which is most of the cost of a first conversion
+            asciidoctor.convert("= Warm up\n\nWarm up `code`.", Options.builder().build());
+            return asciidoctor;
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    public static Provider<AsciidoctorService> registerOn(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(NAME, AsciidoctorService.class, spec ->
+            spec.getParameters().getMaxInstances().convention(2)
+        );
+    }
+}
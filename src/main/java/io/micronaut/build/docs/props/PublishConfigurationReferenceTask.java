@@ -15,6 +15,7 @@
  */
 package io.micronaut.build.docs.props;
 
+import io.micronaut.build.docs.AsciidoctorService;
 import org.asciidoctor.Asciidoctor;
 import org.asciidoctor.Options;
 import org.gradle.api.DefaultTask;
@@ -25,6 +26,7 @@ import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
@@ -55,6 +57,9 @@ public abstract class PublishConfigurationReferenceTask extends DefaultTask {
     @OutputFile
     public abstract RegularFileProperty getDestinationFile();
 
+    @Internal
+    public abstract Property<AsciidoctorService> getAsciidoctorService();
+
     @TaskAction
     void publishConfigurationReference() {
         File referenceFile = getPropertyReferenceFile().getAsFile().get();
@@ -63,8 +68,13 @@ public abstract class PublishConfigurationReferenceTask extends DefaultTask {
             textPage = textPage.replace("@projectVersion@", getVersion().get());
             textPage = textPage.replace("@pagetitle@", "Configuration Reference | Micronaut");
             try {
-                String html = Asciidoctor.Factory.create()
-                        .convert(getProviders().fileContents(getPropertyReferenceFile()).getAsText().get(), Options.builder().build());
+                String content = getProviders().fileContents(getPropertyReferenceFile()).getAsText().get();
+                String html;
+                if (getAsciidoctorService().isPresent()) {
+                    html = getAsciidoctorService().get().withAsciidoctor(asciidoctor -> asciidoctor.convert(content, Options.builder().build()));
+                } else {
+                    html = Asciidoctor.Factory.create().convert(content, Options.builder().build());
+                }
                 textPage = textPage.replace("@docscontent@", html);
                 try (FileOutputStream fos = new FileOutputStream(getDestinationFile().getAsFile().get())) {
                     fos.write(textPage.getBytes(StandardCharsets.UTF_8.name()));
@@ -22,45 +22,70 @@ import org.gradle.api.services.BuildService;
 import org.gradle.api.services.BuildServiceParameters;
 
 import java.net.URI;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * A build service that caches URLs responses and makes sure that we don't call
- * the same server concurrently.
+ * A build service that caches URLs responses and limits the number of
+ * concurrent calls to the same server. By default, a server is only
+ * called once at a time.
  */
 public abstract class ExternalURLService implements BuildService<BuildServiceParameters.None> {
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
-    private final Set<String> currentHosts = new HashSet<>();
+    private final Map<String, Integer> currentRequestsByHost = new HashMap<>();
 
     private final Map<URI, byte[]> responses = new ConcurrentHashMap<>();
 
     public Optional<byte[]> fetchFromURL(URI uri) {
+        return fetchFromURL(uri, 1);
+    }
+
+    /**
+     * Fetches the contents of a URL, waiting while the server is already
+     * called by the given number of requests.
+     * @param uri the URL to fetch
+     * @param maxConcurrentRequests the maximum number of concurrent requests to the server
+     * @return the contents of the URL, or empty if it cannot be fetched
+     */
+    public Optional<byte[]> fetchFromURL(URI uri, int maxConcurrentRequests) {
+        byte[] cached = responses.get(uri);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         lock.lock();
         String host = uri.getHost();
         try {
-            while (currentHosts.contains(host)) {
+            while (currentRequestsByHost.getOrDefault(host, 0) >= maxConcurrentRequests) {
                 condition.await();
             }
-            currentHosts.add(host);
+            currentRequestsByHost.merge(host, 1, Integer::sum);
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new GradleException("Unable to fetch external resource at " + uri, e);
         } finally {
             lock.unlock();
         }
         try {
-            return Optional.ofNullable(responses.computeIfAbsent(uri, Downloader::doDownload));
+            // Downloaded outside of computeIfAbsent, which would block the downloads of other URLs
+            byte[] response = responses.get(uri);
+            if (response == null) {
+                response = Downloader.doDownload(uri);
+                if (response != null) {
+                    response = Objects.requireNonNullElse(responses.putIfAbsent(uri, response), response);
+                }
+            }
+            return Optional.ofNullable(response);
         } finally {
             lock.lock();
             try {
-                currentHosts.remove(host);
+                currentRequestsByHost.computeIfPresent(host, (unused, count) -> count == 1 ? null : count - 1);
                 condition.signalAll();
             } finally {
                 lock.unlock();
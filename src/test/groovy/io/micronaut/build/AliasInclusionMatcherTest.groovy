@@ -0,0 +1,37 @@
+package io.micronaut.build
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class AliasInclusionMatcherTest extends Specification {
+    @Unroll("alias #alias with includes #includes and excludes #excludes is included: #included (#reason)")
+    def "decides which aliases are inlined"() {
+        given:
+        def matcher = AliasInclusionMatcher.of(includes as Set, excludes as Set)
+
+        when:
+        def decision = matcher.match(alias)
+
+        then:
+        decision.included() == included
+        decision.reason() == reason
+
+        where:
+        alias            | includes                | excludes               | included | reason
+        'netty-core'     | []                      | []                     | true     | 'no include or exclude pattern provided'
+        'netty-core'     | []                      | ['netty-core']         | false    | 'alias is explicitly excluded.'
+        'netty-core'     | []                      | ['netty-*']            | false    | 'alias matches excluded prefix: netty-'
+        'netty-core'     | []                      | ['*']                  | false    | 'alias matches excluded prefix: '
+        'netty-core'     | []                      | ['netty-core-*']       | true     | 'alias is not explicitly excluded and does not match any excluded prefix.'
+        'netty-core'     | []                      | ['netty-core*']        | false    | 'alias matches excluded prefix: netty-core'
+        'netty-core'     | ['netty-core']          | ['netty-core']         | false    | 'alias is explicitly included but also explicitly excluded.'
+        'netty-core'     | ['netty-core']          | ['netty*']             | false    | 'alias is explicitly included but matches excluded prefix: netty'
+        'netty-core'     | ['netty-core']          | []                     | true     | 'alias is explicitly included.'
+        'netty-core'     | ['netty-*']             | ['netty-core']         | false    | 'alias matches included prefix: netty- but is also explicitly excluded.'
+        'netty-core'     | ['netty-*']             | ['netty-c*']           | false    | 'alias matches included prefix: netty- but also matches excluded prefix: netty-c'
+        'netty-core'     | ['netty-*']             | ['netty-codec*']       | true     | 'alias matches included prefix: netty-'
+        'netty-core'     | ['jackson-*']           | ['netty-core']         | false    | 'alias is explicitly excluded.'
+        'netty-core'     | ['jackson-*']           | ['netty*']             | false    | 'alias matches excluded prefix: netty'
+        'netty-core'     | ['jackson-*', 'netty']  | []                     | false    | 'alias is not included and does not match any included prefix.'
+    }
+}
@@ -0,0 +1,114 @@
+package io.micronaut.build
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.regex.Pattern
+import java.util.stream.Collectors
+
+class AliasNormalizerTest extends Specification {
+    // Reference implementations, as they were implemented with regular expressions
+    private static final Pattern BASENAME_EXTRACTOR = Pattern.compile('^([a-zA-Z0-9-]+?)-\\d[\\d.-]*(-[a-zA-Z0-9]+)?.+$')
+
+    private static final List<String> ARTIFACT_IDS = [
+            'aws-java-sdk-core', 'aws-lambda-java-events', 'ask-sdk-lambda-support', 'secretsmanager',
+            'jackson-databind', 'jackson-module-jaxb-annotations', 'jackson-datatype-jsr310',
+            'netty-codec-http2', 'netty-transport-native-epoll', 'reactor-core', 'rxjava',
+            'kotlinx-coroutines-core-jvm', 'kotlin-stdlib-jdk8', 'groovy-json', 'spock-core',
+            'junit-jupiter-api', 'junit-bom', 'mockito-core', 'testcontainers', 'postgresql',
+            'HikariCP', 'ojdbc11', 'mssql-jdbc', 'jakarta.persistence-api', 'jakarta.annotation-api',
+            'javax.inject', 'hibernate-core', 'hibernate-jpamodelgen', 'log4j-slf4j2-impl',
+            'logback-classic', 'opentelemetry-api', 'grpc-netty-shaded', 'protobuf-java',
+            'google-cloud-pubsub', 'azure-sdk-bom', 'graphql-java', 'snakeyaml', 'caffeine',
+            'micronaut-aws-bom', 'micronaut-function-aws-api-proxy-test', 'jaxb-api', 'asm-commons',
+            'jdbi3-core', 'r2dbc-spi', 'vertx-pg-client', 'lettuce-core', 'JavaEWAH', 'swagger-annotations',
+            'commons-lang3', 'guava', 'antlr4-runtime', 'bcprov-jdk18on', 'jsr305', 'JUnitParams',
+            'xmlParserAPIs', 'org.eclipse.jgit', 'ST4', 'kotlinPoet', 'scala-library_2.13', 'akka-actor_3'
+    ]
+
+    private static final List<String> FILE_NAMES = [
+            'micronaut-aws-bom-4.0.1.toml', 'micronaut-aws-bom-4.0.1.pom', 'junit-bom-5.9.10.pom',
+            'aws-java-sdk-bom-1.12.505.pom', 'netty-bom-4.1.100.Final.pom', 'jackson-bom-2.15.2.pom',
+            'reactor-bom-2023.0.0-RC1.pom', 'groovy-bom-4.0.15.pom', 'kotlin-bom-1.9.22.pom',
+            'kotlinx-coroutines-bom-1.7.3.pom', 'testcontainers-bom-1.19.1.pom', 'bom-2.20.102.pom',
+            'micronaut-core-bom-4.2.0-SNAPSHOT.toml', 'some.dotted-1.0.pom', 'no-version.pom', 'a-1', 'a-1b'
+    ]
+
+    @Unroll("alias of #artifactId is #expected")
+    def "converts artifact ids to aliases like the regex based implementation"() {
+        expect:
+        AliasNormalizer.toAlias(artifactId) == expected
+
+        where:
+        artifactId << ARTIFACT_IDS
+        expected = regexAlias(artifactId)
+    }
+
+    @Unroll("property name of #alias is #expected")
+    def "converts aliases to property names like the regex based implementation"() {
+        expect:
+        AliasNormalizer.toPropertyName(alias) == expected
+
+        where:
+        alias << (ARTIFACT_IDS + ARTIFACT_IDS.collect { regexAlias(it) } + ['someLib-core', 'ABC', 'micronautAws'])
+        expected = regexPropertyName(alias)
+    }
+
+    @Unroll("base name of #fileName is #expected")
+    def "extracts base names like the regex based implementation"() {
+        expect:
+        AliasNormalizer.toBaseName(fileName) == expected
+
+        where:
+        fileName << FILE_NAMES
+        expected = regexBaseName(fileName)
+    }
+
+    def "random inputs are normalized like the regex based implementation"() {
+        given:
+        def random = new Random(42)
+        def alphabet = 'abcxyzABCXYZ0123456789-._@ é'
+
+        expect:
+        (0..<50_000).every {
+            def str = (0..<random.nextInt(20)).collect { alphabet[random.nextInt(alphabet.length())] }.join('')
+            assert AliasNormalizer.toAlias(str) == regexAlias(str)
+            assert AliasNormalizer.toPropertyName(str) == regexPropertyName(str)
+            assert AliasNormalizer.toBaseName(str) == regexBaseName(str)
+            true
+        }
+    }
+
+    def "memoizes conversions"() {
+        given:
+        def normalizer = new AliasNormalizer()
+
+        when:
+        def first = normalizer.alias('HikariCP')
+        def second = normalizer.alias('HikariCP')
+
+        then:
+        first == 'hikari-cp'
+        first.is(second)
+        normalizer.propertyName('hikari-cp') == 'hikari.cp'
+        normalizer.baseName('micronaut-aws-bom-4.0.1.toml') == 'micronaut-aws-bom'
+    }
+
+    private static String regexAlias(String artifactId) {
+        artifactId.replaceAll('[^a-zA-Z0-9-]', '-')
+                .replaceAll('([a-z])([A-Z]+)', '$1-$2')
+                .toLowerCase(Locale.US)
+    }
+
+    private static String regexPropertyName(String alias) {
+        Arrays.stream(alias.split('(?=[A-Z])'))
+                .map(s -> s.toLowerCase(Locale.US))
+                .collect(Collectors.joining('-'))
+                .replace('-' as char, '.' as char)
+    }
+
+    private static String regexBaseName(String fileName) {
+        def matcher = BASENAME_EXTRACTOR.matcher(fileName)
+        matcher.find() ? matcher.group(1) : fileName
+    }
+}
@@ -0,0 +1,39 @@
+package io.micronaut.build
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class BomGenerationTraceTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "spans recorded after a restart are relative to the new origin"() {
+        def traceFile = tempDir.resolve("trace.json")
+        def chromeTraceFile = tempDir.resolve("trace.trace.json")
+        def trace = new BomGenerationTrace(traceFile, chromeTraceFile)
+
+        when:
+        trace.start(BomGenerationTrace.PHASE, "Inlining").withCloseable {
+            it.attribute("aliases", 3)
+        }
+        Thread.sleep(50)
+        trace.restart()
+        trace.start(BomGenerationTrace.PHASE, "POM generation").close()
+        trace.write()
+        def spans = new JsonSlurper().parse(traceFile.toFile()).spans
+        def events = new JsonSlurper().parse(chromeTraceFile.toFile()).traceEvents
+
+        then:
+        spans*.name == ["Inlining", "POM generation"]
+        spans*.recording == [1, 2]
+        spans[0].attributes == [aliases: 3]
+        spans[1].startMs < 50
+
+        and:
+        events.findAll { it.ph == "X" }*.pid == [1, 2]
+        events.findAll { it.ph == "M" }*.pid == [1, 2]
+    }
+}
@@ -0,0 +1,128 @@
+package io.micronaut.build
+
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class SimpleMavenModelResolverTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "partitions coordinates so that a batch contains at most one version of a module"() {
+        expect:
+        SimpleMavenModelResolver.partitionByModule(new LinkedHashSet<>([
+                'g:a:1.0', 'g:b:1.0', 'g:a:2.0', 'g:c:1.0', 'g:a:3.0', 'g:b:2.0'
+        ])) == [
+                ['g:a:1.0', 'g:b:1.0', 'g:c:1.0'],
+                ['g:a:2.0', 'g:b:2.0'],
+                ['g:a:3.0']
+        ]
+        SimpleMavenModelResolver.partitionByModule([] as Set) == []
+    }
+
+    def "prefetches parents and imported BOMs by level"() {
+        given:
+        def repository = tempDir.resolve("repo")
+        publish(repository, "parent", "1.0", "")
+        publish(repository, "bom-a", "1.0", parent("parent", "1.0") + imports(["bom-c:1.0"]))
+        publish(repository, "bom-b", "1.0", "")
+        publish(repository, "bom-b", "2.0", "")
+        publish(repository, "bom-c", "1.0", "")
+        publish(repository, "bom-c", "2.0", "")
+        publish(repository, "ranged", "1.0", "")
+        publish(repository, "ranged", "1.5", "")
+        metadata(repository, "ranged", "1.0", "1.5")
+        def root = tempDir.resolve("root.pom")
+        root.text = pom("root", "1.0", imports(["bom-a:1.0", "bom-b:1.0", "bom-c:2.0", "ranged:[1.0,2.0)"]))
+        def other = tempDir.resolve("other.pom")
+        other.text = pom("other", "1.0", imports(["bom-b:2.0"]))
+        def project = ProjectBuilder.builder().withProjectDir(tempDir.resolve("project").toFile()).build()
+        project.repositories.maven { url = repository.toUri() }
+        def resolver = new SimpleMavenModelResolver(project.configurations, project.dependencies)
+
+        when:
+        resolver.prefetch([root.toFile(), other.toFile()])
+        def cached = resolver.cachedOnly()
+
+        then: "the first level needs two batches, because of bom-b, and the second level one batch"
+        resolver.resolutionCount == 3
+        cached.resolveModel("io.micronaut.test", "bom-a", "1.0").location.endsWith("bom-a-1.0.pom")
+        cached.resolveModel("io.micronaut.test", "bom-b", "1.0").location.endsWith("bom-b-1.0.pom")
+        cached.resolveModel("io.micronaut.test", "bom-b", "2.0").location.endsWith("bom-b-2.0.pom")
+        cached.resolveModel("io.micronaut.test", "bom-c", "1.0").location.endsWith("bom-c-1.0.pom")
+        cached.resolveModel("io.micronaut.test", "bom-c", "2.0").location.endsWith("bom-c-2.0.pom")
+        cached.resolveModel("io.micronaut.test", "parent", "1.0").location.endsWith("parent-1.0.pom")
+
+        and: "POM files are keyed by the requested coordinates, not the resolved ones"
+        cached.resolveModel("io.micronaut.test", "ranged", "[1.0,2.0)").location.endsWith("ranged-1.5.pom")
+
+        when:
+        cached.resolveModel("io.micronaut.test", "ranged", "1.5")
+
+        then:
+        thrown(org.apache.maven.model.resolution.UnresolvableModelException)
+    }
+
+    private static void publish(Path repository, String artifactId, String version, String body) {
+        def dir = repository.resolve("io/micronaut/test/$artifactId/$version")
+        Files.createDirectories(dir)
+        dir.resolve("$artifactId-${version}.pom").text = pom(artifactId, version, body)
+    }
+
+    private static void metadata(Path repository, String artifactId, String... versions) {
+        repository.resolve("io/micronaut/test/$artifactId/maven-metadata.xml").text = """<?xml version="1.0" encoding="UTF-8"?>
+<metadata>
+  <groupId>io.micronaut.test</groupId>
+  <artifactId>$artifactId</artifactId>
+  <versioning>
+    <versions>
+${versions.collect { "      <version>$it</version>" }.join('\n')}
+    </versions>
+  </versioning>
+</metadata>
+"""
+    }
+
+    private static String pom(String artifactId, String version, String body) {
+        """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+  <modelVersion>4.0.0</modelVersion>
+  <groupId>io.micronaut.test</groupId>
+  <artifactId>$artifactId</artifactId>
+  <version>$version</version>
+  <packaging>pom</packaging>
+$body
+</project>
+"""
+    }
+
+    private static String parent(String artifactId, String version) {
+        """  <parent>
+    <groupId>io.micronaut.test</groupId>
+    <artifactId>$artifactId</artifactId>
+    <version>$version</version>
+  </parent>
+"""
+    }
+
+    private static String imports(List<String> coordinates) {
+        """  <dependencyManagement>
+    <dependencies>
+${coordinates.collect { String c ->
+            def (artifactId, version) = c.split(':')
+            """      <dependency>
+        <groupId>io.micronaut.test</groupId>
+        <artifactId>$artifactId</artifactId>
+        <version>$version</version>
+        <type>pom</type>
+        <scope>import</scope>
+      </dependency>"""
+        }.join('\n')}
+    </dependencies>
+  </dependencyManagement>
+"""
+    }
+}
@@ -0,0 +1,71 @@
+package io.micronaut.build.catalogs.internal
+
+import spock.lang.Specification
+
+import static io.micronaut.build.catalogs.internal.VersionCatalogDiff.ChangeType.*
+import static io.micronaut.build.catalogs.internal.VersionCatalogDiff.Section.*
+
+class VersionCatalogDiffTest extends Specification {
+    def "computes the differences between catalogs"() {
+        def baseline = parse '''
+[versions]
+a = "2.0"
+b = { strictly = "1.0" }
+c = "1.0"
+[libraries]
+x = { module = "g:x", version.ref = "a" }
+y = { module = "g:y", version = "3.0" }
+z = "g:z:1.0"
+[plugins]
+p = { id = "p", version = "1.0" }
+'''
+        def current = parse '''
+[versions]
+a = "1.9"
+b = { strictly = "1.1" }
+n = "1"
+[libraries]
+x = { module = "g:x2", version.ref = "a" }
+y = { module = "g:y", version = "2.0" }
+z = { module = "g:z", version.ref = "a" }
+[plugins]
+p = { id = "p", version = "1.0" }
+q = { id = "q", version = "2.0" }
+'''
+
+        when:
+        def diff = VersionCatalogDiff.compare(baseline, current)
+
+        then:
+        diff.changes == [
+                new VersionCatalogDiff.Change(VERSIONS, 'a', DOWNGRADED, '2.0', '1.9'),
+                new VersionCatalogDiff.Change(VERSIONS, 'b', UPGRADED, 'strictly 1.0', 'strictly 1.1'),
+                new VersionCatalogDiff.Change(VERSIONS, 'c', REMOVED, '1.0', null),
+                new VersionCatalogDiff.Change(VERSIONS, 'n', ADDED, null, '1'),
+                new VersionCatalogDiff.Change(LIBRARIES, 'x', COORDINATES_CHANGED, 'g:x', 'g:x2'),
+                new VersionCatalogDiff.Change(LIBRARIES, 'y', DOWNGRADED, '3.0', '2.0'),
+                new VersionCatalogDiff.Change(LIBRARIES, 'z', CHANGED, '1.0', 'version.ref a'),
+                new VersionCatalogDiff.Change(PLUGINS, 'q', ADDED, null, 'q:2.0'),
+        ]
+        diff.getChanges(VERSIONS, EnumSet.of(REMOVED, DOWNGRADED))*.alias() == ['a', 'c']
+        diff.toJsonModel().plugins == [[alias: 'q', change: 'added', current: 'q:2.0']]
+    }
+
+    def "identical catalogs have no differences"() {
+        def catalog = '''
+[versions]
+a = "1.0"
+[libraries]
+x = { module = "g:x", version.ref = "a" }
+'''
+
+        expect:
+        VersionCatalogDiff.compare(parse(catalog), parse(catalog)).changes.empty
+    }
+
+    private static VersionCatalogTomlModel parse(String toml) {
+        def parser = new LenientVersionCatalogParser()
+        parser.parse(new ByteArrayInputStream(toml.getBytes('UTF-8')))
+        parser.model
+    }
+}
@@ -0,0 +1,26 @@
+package io.micronaut.build.compat
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class AcceptedApiChangeTest extends Specification {
+    @Unroll("change #type/#member matches #candidateType/#candidateMember: #matches")
+    def "matches accepted changes"() {
+        given:
+        def change = new AcceptedApiChange(type, member, "reason")
+
+        expect:
+        change.pattern == pattern
+        change.matches(candidateType, candidateMember) == matches
+
+        where:
+        type          | member                        | candidateType | candidateMember                                  | pattern | matches
+        'io.foo.Bar'  | 'Method io.foo.Bar.baz()'     | 'io.foo.Bar'  | 'Method io.foo.Bar.baz()'                        | false   | true
+        'io.foo.Bar'  | 'Method io.foo.Bar.baz()'     | 'io.foo.Bar'  | 'Method io.foo.Bar.qux()'                        | false   | false
+        'io.foo.Bar'  | 'Method io.foo.Bar.baz()'     | 'io.foo.Baz'  | 'Method io.foo.Bar.baz()'                        | false   | false
+        'io.foo.Bar'  | 'Method io.foo.Bar.*'         | 'io.foo.Bar'  | 'Method io.foo.Bar.baz(java.lang.String)'        | true    | true
+        'io.foo.Bar'  | 'Method io.foo.Bar.*'         | 'io.foo.Bar'  | 'Constructor io.foo.Bar()'                       | true    | false
+        'io.foo.Bar'  | '* io.foo.Bar.baz(*)'         | 'io.foo.Bar'  | 'Method io.foo.Bar.baz(int)'                     | true    | true
+        'io.foo.Bar'  | 'Method io.foo.Bar.baz(*)'    | 'io.foo.Bar'  | 'Method io.foo_Bar.baz(int)'                     | true    | false
+    }
+}
@@ -0,0 +1,76 @@
+package io.micronaut.build.compat
+
+import org.gradle.api.artifacts.result.ResolvedComponentResult
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ApiComparisonKeyTest extends Specification {
+    private static final String HEADER = "micronaut-api-fingerprint\t3\n"
+    private static final String A = "class\tio.micronaut.A\t\tjava.lang.Object\t\t\tpublic\t-\n"
+    private static final String A_FOO = "method\tio.micronaut.A\tfoo\t()V\t\t\tpublic\t-\n"
+    private static final String B = "class\tio.micronaut.B\t\tjava.lang.Object\t\t\tpublic\t-\n"
+
+    @TempDir
+    Path tempDir
+
+    def "only accepted changes of the current and baseline types are relevant"() {
+        given:
+        def changes = file("accepted-api-changes.json", '''[
+            { "type": "io.micronaut.A", "member": "Method io.micronaut.A.bar()", "reason": "Not used" },
+            { "type": "io.micronaut.B", "member": "Class io.micronaut.B", "reason": "Removed" },
+            { "type": "io.micronaut.other.C", "member": "Class io.micronaut.other.C", "reason": "Moved" }
+        ]''')
+        def current = file("current.txt", HEADER + A)
+        def baselineJar = tempDir.resolve("baseline.jar")
+        new ZipOutputStream(Files.newOutputStream(baselineJar)).withCloseable { zos ->
+            zos.putNextEntry(new ZipEntry("io/micronaut/B.class"))
+            zos.closeEntry()
+        }
+
+        expect: "the baseline types are read from its fingerprint"
+        ApiComparisonKey.relevantAcceptedChanges(changes, current, [file("baseline.txt", HEADER + A + B)], []) == [
+                "io.micronaut.A\tMethod io.micronaut.A.bar()\tNot used",
+                "io.micronaut.B\tClass io.micronaut.B\tRemoved"
+        ]
+
+        and: "from its jar if it has no fingerprint"
+        ApiComparisonKey.relevantAcceptedChanges(changes, current, [], [baselineJar.toFile()]).size() == 2
+        ApiComparisonKey.relevantAcceptedChanges(changes, current, [], []) == ["io.micronaut.A\tMethod io.micronaut.A.bar()\tNot used"]
+        ApiComparisonKey.relevantAcceptedChanges(tempDir.resolve("missing.json").toFile(), current, [], []).empty
+    }
+
+    def "the key only changes with the baseline, the API, the accepted changes or the dependencies"() {
+        given:
+        def runtimeClasspath = Stub(ResolvedComponentResult) {
+            getDependencies() >> []
+        }
+        def current = file("current.txt", HEADER + A)
+        def key = ApiComparisonKey.of("1.0.0", current, [], runtimeClasspath)
+
+        expect:
+        ApiComparisonKey.of("1.0.0", file("same.txt", HEADER + A), [], runtimeClasspath) == key
+        ApiComparisonKey.of("1.0.1", current, [], runtimeClasspath) != key
+        ApiComparisonKey.of("1.0.0", file("changed.txt", HEADER + A + A_FOO), [], runtimeClasspath) != key
+        ApiComparisonKey.of("1.0.0", current, ["io.micronaut.A\tClass io.micronaut.A\tNot used"], runtimeClasspath) != key
+
+        when:
+        def keyFile = tempDir.resolve("key.txt").toFile()
+        keyFile.text = key
+
+        then:
+        ApiComparisonKey.matches(keyFile, key)
+        !ApiComparisonKey.matches(keyFile, ApiComparisonKey.of("1.0.1", current, [], runtimeClasspath))
+        !ApiComparisonKey.matches(tempDir.resolve("missing.txt").toFile(), key)
+    }
+
+    private File file(String name, String text) {
+        def file = tempDir.resolve(name).toFile()
+        file.text = text
+        file
+    }
+}
@@ -0,0 +1,75 @@
+package io.micronaut.build.compat
+
+import groovy.json.JsonSlurper
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class ApiFingerprintCompatibilityCheckTest extends Specification {
+    private static final String HEADER = "micronaut-api-fingerprint\t3\n"
+    private static final String A = "class\tio.micronaut.A\t\tjava.lang.Object\t\t\tpublic\t-\n"
+    private static final String A_FOO = "method\tio.micronaut.A\tfoo\t()V\t\t\tpublic\t-\n"
+
+    @TempDir
+    Path tempDir
+
+    def "only accepted changes of the module types are inputs of the comparison"() {
+        given:
+        def project = ProjectBuilder.builder().withProjectDir(tempDir.toFile()).build()
+        def changes = tempDir.resolve("accepted-api-changes.json").toFile()
+        changes.text = '''[
+            { "type": "io.micronaut.A", "member": "Method io.micronaut.A.foo()", "reason": "Not used" },
+            { "type": "io.micronaut.other.B", "member": "Class io.micronaut.other.B", "reason": "Moved" }
+        ]'''
+        def task = project.tasks.create("compare", ApiFingerprintCompatibilityCheck) {
+            moduleName.set("test")
+            baseline.from(fingerprint("baseline.txt", HEADER + A + A_FOO))
+            current.set(fingerprint("current.txt", HEADER + A))
+            acceptedApiChanges.set(changes)
+            reportFile.set(tempDir.resolve("report.txt").toFile())
+            violationsFile.set(tempDir.resolve("violations.json").toFile())
+        }
+
+        expect:
+        task.relevantAcceptedChanges == ["io.micronaut.A\tMethod io.micronaut.A.foo()\tNot used"]
+
+        when:
+        task.checkCompatibility()
+
+        then:
+        tempDir.resolve("report.txt").text.trim() == "[accepted] io.micronaut.A: Method io.micronaut.A.foo() - Method was removed or is no longer accessible (accepted: Not used)"
+    }
+
+    def "records whether the baseline API is preserved"() {
+        given:
+        def project = ProjectBuilder.builder().withProjectDir(tempDir.toFile()).build()
+        def compare = project.tasks.create("compare", ApiFingerprintCompatibilityCheck) {
+            moduleName.set("test")
+            baseline.from(fingerprint("baseline.txt", HEADER + baselineApi))
+            current.set(fingerprint("current.txt", HEADER + currentApi))
+            reportFile.set(tempDir.resolve("report.txt").toFile())
+            violationsFile.set(tempDir.resolve("violations.json").toFile())
+        }
+
+        when:
+        compare.checkCompatibility()
+        def violations = new JsonSlurper().parse(tempDir.resolve("violations.json").toFile())
+
+        then:
+        violations.changes.size() == changes
+        ApiFingerprintCompatibilityCheck.isBaselinePreserved(tempDir.resolve("violations.json").toFile()) == preserved
+
+        where:
+        baselineApi | currentApi  || changes | preserved
+        A + A_FOO   | A           || 1       | false
+        A           | A + A_FOO   || 0       | true
+    }
+
+    private File fingerprint(String name, String text) {
+        def file = tempDir.resolve(name).toFile()
+        file.text = text
+        file
+    }
+}
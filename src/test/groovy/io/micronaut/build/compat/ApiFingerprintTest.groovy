@@ -0,0 +1,204 @@
+package io.micronaut.build.compat
+
+import me.champeau.gradle.japicmp.report.Severity
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ApiFingerprintTest extends Specification {
+    private static final String HEADER = "micronaut-api-fingerprint\t3"
+
+    @TempDir
+    Path tempDir
+
+    def "fingerprints the public API of a jar"() {
+        given:
+        def jar = tempDir.resolve("test.jar")
+        new ZipOutputStream(Files.newOutputStream(jar)).withCloseable { zos ->
+            zos.putNextEntry(new ZipEntry("io/micronaut/build/compat/AcceptedApiChange.class"))
+            zos.write(AcceptedApiChange.getResourceAsStream("AcceptedApiChange.class").bytes)
+            zos.closeEntry()
+        }
+
+        when:
+        def fingerprint = ApiFingerprint.of([jar])
+        def entries = fingerprint.entriesOf(AcceptedApiChange.name)
+
+        then:
+        fingerprint.types == [AcceptedApiChange.name] as Set
+        entries[0].describe() == "Class io.micronaut.build.compat.AcceptedApiChange"
+        entries[0].supertypes() == ["java.lang.Object", "java.io.Serializable"]
+        entries*.describe().containsAll([
+                "Constructor io.micronaut.build.compat.AcceptedApiChange(java.lang.String,java.lang.String,java.lang.String)",
+                "Method io.micronaut.build.compat.AcceptedApiChange.matches(java.lang.String,java.lang.String)"
+        ])
+        // private members are not part of the API
+        !entries.any { it.name() == "compile" || it.name() == "memberPattern" }
+
+        when:
+        def file = tempDir.resolve("fingerprint.txt")
+        fingerprint.write(file)
+
+        then:
+        ApiFingerprint.isReadable(file)
+        ApiFingerprint.read(file).entriesOf(AcceptedApiChange.name) == entries
+    }
+
+    def "records classes of internal packages and classes nested in internal classes as internal"() {
+        given:
+        def jar = tempDir.resolve("test.jar")
+        new ZipOutputStream(Files.newOutputStream(jar)).withCloseable { zos ->
+            write(zos, "io/micronaut/a/Foo", Opcodes.ACC_PUBLIC, true)
+            write(zos, "io/micronaut/a/Foo\$Bar", Opcodes.ACC_PUBLIC, false)
+            write(zos, "io/micronaut/a/Hidden", 0, true)
+            write(zos, "io/micronaut/a/Hidden\$Exposed", Opcodes.ACC_PUBLIC, false)
+            write(zos, "io/micronaut/a/Qux", Opcodes.ACC_PUBLIC, false)
+            write(zos, "io/micronaut/b/package-info", Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT | Opcodes.ACC_SYNTHETIC, true)
+            write(zos, "io/micronaut/b/Baz", Opcodes.ACC_PUBLIC, false)
+        }
+
+        when:
+        def fingerprint = ApiFingerprint.of([jar])
+
+        then:
+        fingerprint.types == ["io.micronaut.a.Foo", "io.micronaut.a.Foo\$Bar", "io.micronaut.a.Hidden\$Exposed", "io.micronaut.a.Qux", "io.micronaut.b.Baz"] as Set
+        fingerprint.types.findAll { fingerprint.entriesOf(it)[0].internal() } == ["io.micronaut.a.Foo", "io.micronaut.a.Foo\$Bar", "io.micronaut.a.Hidden\$Exposed", "io.micronaut.b.Baz"] as Set
+
+        and: "changes to these classes are warnings"
+        ApiFingerprintDiff.compare(fingerprint, ApiFingerprint.of([]), [])*.severity() as Set == [Severity.warning, Severity.error] as Set
+        ApiFingerprintDiff.compare(fingerprint, ApiFingerprint.of([]), []).findAll { it.severity() == Severity.error }*.type() == ["io.micronaut.a.Qux"]
+    }
+
+    def "records generic signatures and declared exceptions"() {
+        given:
+        def jar = tempDir.resolve("test.jar")
+        new ZipOutputStream(Files.newOutputStream(jar)).withCloseable { zos ->
+            def cw = new ClassWriter(0)
+            cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "io/micronaut/a/Foo", "<T:Ljava/lang/Object;>Ljava/lang/Object;", "java/lang/Object", null)
+            cw.visitMethod(Opcodes.ACC_PUBLIC, "read", "()Ljava/lang/Object;", "()TT;", ["java/io/IOException"] as String[]).visitEnd()
+            cw.visitEnd()
+            zos.putNextEntry(new ZipEntry("io/micronaut/a/Foo.class"))
+            zos.write(cw.toByteArray())
+            zos.closeEntry()
+        }
+
+        when:
+        def entries = ApiFingerprint.of([jar]).entriesOf("io.micronaut.a.Foo")
+
+        then:
+        entries*.signature() == ["<T:Ljava/lang/Object;>Ljava/lang/Object;", "()TT;"]
+        entries[1].declaredExceptions() == ["java.io.IOException"]
+    }
+
+    def "doesn't read fingerprints with an unknown format version"() {
+        given:
+        def file = tempDir.resolve("fingerprint.txt")
+        file.text = "micronaut-api-fingerprint\t99\n"
+
+        expect:
+        !ApiFingerprint.isReadable(file)
+        !ApiFingerprint.isReadable(tempDir.resolve("missing.txt"))
+    }
+
+    @Unroll("reports #expected when #description")
+    def "compares fingerprints"() {
+        when:
+        def changes = ApiFingerprintDiff.compare(fingerprint(baseline), fingerprint(current), [])
+
+        then:
+        changes.collect { "${it.severity()} ${it.member()}: ${it.explanation()}".toString() } == expected
+
+        where:
+        description                    | baseline                                                        | current                                                                        || expected
+        "nothing changed"              | [A, A_FOO]                                                      | [A, A_FOO]                                                                     || []
+        "a member is added"            | [A]                                                             | [A, A_FOO]                                                                     || []
+        "a class is removed"           | [A, A_FOO]                                                      | []                                                                             || ["error Class io.micronaut.A: Class was removed or is no longer public"]
+        "a method is removed"          | [A, A_FOO]                                                      | [A]                                                                            || ["error Method io.micronaut.A.foo(java.lang.String): Method was removed or is no longer accessible"]
+        "a method is pulled up"        | [B, B_FOO]                                                      | [A, A_FOO, B]                                                                  || []
+        "a method becomes final"       | [A, A_FOO]                                                      | [A, A_FOO.replace("public", "final,public")]                                   || ["error Method io.micronaut.A.foo(java.lang.String): Method is now final"]
+        "a method becomes protected"   | [A, A_FOO]                                                      | [A, A_FOO.replace("public", "protected")]                                      || ["error Method io.micronaut.A.foo(java.lang.String): Method visibility was reduced"]
+        "a class becomes final"        | [A]                                                             | [A.replace("public", "final,public")]                                          || ["error Class io.micronaut.A: Class is now final"]
+        "a class becomes an enum"      | [A]                                                             | [A.replace("public", "enum,public")]                                           || ["error Class io.micronaut.A: Class kind changed from class to enum"]
+        "a superclass is removed"      | [B]                                                             | [B.replace("io.micronaut.A", "java.lang.Object")]                              || ["error Superclass io.micronaut.A: Superclass was removed"]
+        "an interface is removed"      | [B.replace("io.micronaut.A", "io.micronaut.A java.io.Serializable")] | [B]                                                                       || ["error Implemented interface java.io.Serializable: Interface was removed"]
+        "a supertype is inserted"      | [B]                                                             | [A.replace("java.lang.Object", "io.micronaut.C"), B, "class\tio.micronaut.C\t\tjava.lang.Object\t\t\tpublic\t-"] || []
+        "an abstract method is added"  | [A]                                                             | [A, A_FOO.replace("public", "abstract,public")]                                || ["error Method io.micronaut.A.foo(java.lang.String): Abstract method was added"]
+        "an exception is declared"     | [A, A_FOO]                                                      | [A, A_FOO.replace("V\t\t\t", "V\t\tjava.io.IOException\t")]                   || ["error Method io.micronaut.A.foo(java.lang.String): Method now throws java.io.IOException"]
+        "a return type changes"        | [A, A_FOO]                                                      | [A, A_FOO.replace(")V", ")I")]                                                 || ["error Method io.micronaut.A.foo(java.lang.String): Return type changed from void to int"]
+        "a field type changes"         | [A, A_BAR]                                                      | [A, A_BAR.replace("Ljava/util/List;\t", "Ljava/util/Set;\t")]                  || ["error Field bar: Field type changed from java.util.List to java.util.Set"]
+        "a generic signature changes"  | [A, A_BAR]                                                      | [A, A_BAR.replace("String", "Integer")]                                        || ["error Field bar: Generic signature changed"]
+        "an internal method changes"   | [A, A_FOO.replace("\t-", "\tinternal")]                         | [A]                                                                            || ["warning Method io.micronaut.A.foo(java.lang.String): Method was removed or is no longer accessible"]
+        "an internal package changes"  | ["class\tio.micronaut.internal.X\t\tjava.lang.Object\t\t\tpublic\t-"] | []                                                                       || ["warning Class io.micronaut.internal.X: Class was removed or is no longer public"]
+    }
+
+    def "accepted changes are reported as accepted"() {
+        given:
+        def accepted = [new AcceptedApiChange("io.micronaut.A", "Method io.micronaut.A.*", "Not used")]
+
+        when:
+        def changes = ApiFingerprintDiff.compare(fingerprint([A, A_FOO]), fingerprint([A]), accepted)
+
+        then:
+        changes.size() == 1
+        changes[0].severity() == Severity.accepted
+        changes[0].acceptance() == "Not used"
+    }
+
+    def "changes accepted for japicmp are accepted by the fingerprint comparison"() {
+        given:
+        def accepted = AcceptedApiChangesParser.parse(new ByteArrayInputStream('''[
+            { "type": "io.micronaut.A", "member": "Method io.micronaut.A.foo(java.lang.String)", "reason": "Not used" },
+            { "type": "io.micronaut.B", "member": "Implemented interface java.io.Serializable", "reason": "Not serialized" }
+        ]'''.bytes))
+
+        when:
+        def changes = ApiFingerprintDiff.compare(fingerprint([A, A_FOO, B.replace("io.micronaut.A", "io.micronaut.A java.io.Serializable")]), fingerprint([A, B]), accepted)
+
+        then:
+        changes.collect { "${it.severity()} ${it.member()}: ${it.acceptance()}".toString() } == [
+                "accepted Method io.micronaut.A.foo(java.lang.String): Not used",
+                "accepted Implemented interface java.io.Serializable: Not serialized"
+        ]
+    }
+
+    def "the baseline API is preserved if it is only extended with types and concrete members"() {
+        expect:
+        ApiFingerprintDiff.preservesApi(fingerprint([A, A_FOO]), fingerprint([A, A_FOO]))
+        ApiFingerprintDiff.preservesApi(fingerprint([A]), fingerprint([A, A_FOO, B]))
+
+        and: "japicmp must check any other change"
+        !ApiFingerprintDiff.preservesApi(fingerprint([A]), fingerprint([A, A_FOO.replace("public", "abstract,public")]))
+        !ApiFingerprintDiff.preservesApi(fingerprint([A, A_FOO]), fingerprint([A, A_FOO.replace("V\t\t\t", "V\t\tjava.io.IOException\t")]))
+        !ApiFingerprintDiff.preservesApi(fingerprint([B, B_FOO]), fingerprint([A, A_FOO, B]))
+        !ApiFingerprintDiff.preservesApi(fingerprint([A, A_BAR]), fingerprint([A, A_BAR.replace("String", "Integer")]))
+    }
+
+    private static final String A = "class\tio.micronaut.A\t\tjava.lang.Object\t\t\tpublic\t-"
+    private static final String A_FOO = "method\tio.micronaut.A\tfoo\t(Ljava/lang/String;)V\t\t\tpublic\t-"
+    private static final String A_BAR = "field\tio.micronaut.A\tbar\tLjava/util/List;\tLjava/util/List<Ljava/lang/String;>;\t\tpublic\t-"
+    private static final String B = "class\tio.micronaut.B\t\tio.micronaut.A\t\t\tpublic\t-"
+    private static final String B_FOO = "method\tio.micronaut.B\tfoo\t(Ljava/lang/String;)V\t\t\tpublic\t-"
+
+    private static void write(ZipOutputStream zos, String name, int access, boolean internal) {
+        def cw = new ClassWriter(0)
+        cw.visit(Opcodes.V17, access, name, null, "java/lang/Object", null)
+        if (internal) {
+            cw.visitAnnotation(ApiFingerprint.INTERNAL_ANNOTATION, true)
+        }
+        cw.visitEnd()
+        zos.putNextEntry(new ZipEntry(name + ".class"))
+        zos.write(cw.toByteArray())
+        zos.closeEntry()
+    }
+
+    private static ApiFingerprint fingerprint(List<String> lines) {
+        ApiFingerprint.parse([HEADER] + lines)
+    }
+}
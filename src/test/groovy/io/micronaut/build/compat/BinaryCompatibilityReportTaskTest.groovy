@@ -0,0 +1,93 @@
+package io.micronaut.build.compat
+
+import groovy.json.JsonSlurper
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class BinaryCompatibilityReportTaskTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "aggregates the results of all modules"() {
+        given:
+        def project = ProjectBuilder.builder().withProjectDir(tempDir.toFile()).build()
+        def core = tempDir.resolve("binary-compatibility-core.json").toFile()
+        core.text = '''{"module": "core", "changes": [
+            {"type": "io.micronaut.A", "member": "Class io.micronaut.A", "explanation": "Class is now final", "severity": "error"},
+            {"type": "io.micronaut.B", "member": "Method io.micronaut.B.foo()", "explanation": "Method was removed", "severity": "accepted", "acceptance": "Not used"}
+        ]}'''
+        def http = tempDir.resolve("binary-compatibility-http.json").toFile()
+        http.text = '{"module": "http", "status": "compared", "changes": []}'
+        def inject = tempDir.resolve("binary-compatibility-inject.json").toFile()
+        inject.text = '''{"module": "inject", "status": "japicmp", "reason": "No fingerprint", "changes": [
+            {"type": "io.micronaut.C", "member": "Class io.micronaut.C", "explanation": "Is not binary compatible", "severity": "warning"}
+        ]}'''
+        def docs = tempDir.resolve("binary-compatibility-docs.json").toFile()
+        docs.text = '{"module": "docs", "status": "disabled", "reason": "Disabled", "changes": []}'
+        def task = project.tasks.create("report", BinaryCompatibilityReportTask) {
+            results.from(http, core, inject, docs, tempDir.resolve("missing.json").toFile())
+            jsonReport.set(tempDir.resolve("report.json").toFile())
+            htmlReport.set(tempDir.resolve("report.html").toFile())
+        }
+
+        when:
+        task.aggregate()
+        def json = new JsonSlurper().parse(tempDir.resolve("report.json").toFile())
+        def html = tempDir.resolve("report.html").text
+
+        then:
+        json.modules*.module == ["core", "http", "inject"]
+        json.summary.error == 1
+        json.summary.accepted == 1
+        json.summary.warning == 1
+        json.modules[0].summary == [error: 1, accepted: 1]
+        html.contains("3 module(s) checked: 1 breaking change(s), 1 accepted change(s), 1 warning(s)")
+        html.contains('<h2 id="core">core</h2>')
+        html.contains('<td>Method was removed (accepted: Not used)</td>')
+
+        and: "modules which were not compared with their fingerprint are listed"
+        json.notCompared == [[module: "docs", status: "disabled", reason: "Disabled"], [module: "inject", status: "japicmp", reason: "No fingerprint"]]
+        html.contains("2 module(s) not compared with their API fingerprint")
+        html.contains("<tr><td>inject</td><td>No fingerprint</td></tr>")
+    }
+
+    def "records which comparison ran for a module"() {
+        given:
+        def project = ProjectBuilder.builder().withProjectDir(tempDir.toFile()).build()
+        def fingerprint = tempDir.resolve("baseline-api-fingerprint.txt")
+        ApiFingerprint.of([]).write(fingerprint)
+        def violations = tempDir.resolve("violations.json").toFile()
+        violations.text = """{"module": "core", "baselinePreserved": ${preserved}, "changes": []}"""
+        def japicmpViolations = tempDir.resolve("japicmp.json").toFile()
+        japicmpViolations.text = '{"module": "core", "changes": [{"type": "io.micronaut.A", "member": "Class io.micronaut.A", "explanation": "Is not binary compatible", "severity": "error"}]}'
+        def task = project.tasks.create("result", BinaryCompatibilityResultTask) {
+            moduleName.set("core")
+            checksEnabled.set(enabled)
+            if (hasFingerprint) {
+                baseline.from(fingerprint.toFile())
+            }
+            violationsFile.set(violations)
+            japicmpViolationsFile.set(japicmpViolations)
+            resultFile.set(tempDir.resolve("result.json").toFile())
+        }
+
+        when:
+        task.writeResult()
+        def result = new JsonSlurper().parse(tempDir.resolve("result.json").toFile())
+
+        then:
+        result.module == "core"
+        result.status == status
+        result.changes*.explanation == explanations
+
+        where:
+        enabled | hasFingerprint | preserved | status     | explanations
+        true    | true           | true      | "compared" | []
+        true    | true           | false     | "japicmp"  | ["Is not binary compatible"]
+        true    | false          | false     | "japicmp"  | ["Is not binary compatible"]
+        false   | true           | true      | "disabled" | []
+    }
+}
@@ -0,0 +1,133 @@
+package io.micronaut.build.compat
+
+import com.sun.net.httpserver.HttpServer
+import groovy.json.JsonSlurper
+import io.micronaut.build.utils.ExternalURLService
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class FindBaselinesTaskTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "finds the baselines of all modules"() {
+        given:
+        def repository = tempDir.resolve("repo")
+        publish(repository, "micronaut-core", "2.5.4", "2.5.5")
+        publish(repository, "micronaut-http", "2.5.4", "2.5.5")
+        publish(repository, "micronaut-inject", "2.5.4")
+        def project = ProjectBuilder.builder().withProjectDir(tempDir.resolve("project").toFile()).build()
+        def task = project.tasks.create("findBaselines", FindBaselinesTask) {
+            baseRepository.set(repository.toUri().toString())
+            downloader.set(ExternalURLService.registerOn(project))
+            moduleCoordinates.from(
+                    coordinates("core", "io.micronaut:micronaut-core:2.5.6-SNAPSHOT", true),
+                    coordinates("http", "io.micronaut:micronaut-http:2.5.6-SNAPSHOT", true),
+                    coordinates("inject", "io.micronaut:micronaut-inject:2.5.6-SNAPSHOT", true),
+                    coordinates("new-module", "io.micronaut:micronaut-new-module:2.5.6-SNAPSHOT", true),
+                    coordinates("explicit", "io.micronaut:micronaut-explicit:2.5.6-SNAPSHOT", false)
+            )
+            baselines.set(project.layout.buildDirectory.file("baselines.json"))
+        }
+        Files.createDirectories(project.file("build").toPath())
+
+        when:
+        task.execute()
+        def json = project.file("build/baselines.json").text
+
+        then:
+        new JsonSlurper().parseText(json).modules.core == [
+                groupId: "io.micronaut",
+                artifactId: "micronaut-core",
+                currentVersion: "2.5.6-SNAPSHOT",
+                baseline: "2.5.5"
+        ]
+        FindBaselinesTask.readBaseline(json, "core") == "2.5.5"
+        FindBaselinesTask.readBaseline(json, "http") == "2.5.5"
+        FindBaselinesTask.readBaseline(json, "inject") == "2.5.4"
+
+        and: "modules which don't need a baseline are ignored"
+        !new JsonSlurper().parseText(json).modules.containsKey("explicit")
+
+        when:
+        FindBaselinesTask.readBaseline(json, "new-module")
+
+        then:
+        IllegalStateException ex = thrown()
+        ex.message == "Could not find a previous version for new-module 2.5.6-SNAPSHOT"
+    }
+
+    def "fetches the metadata of the modules concurrently"() {
+        given:
+        def artifacts = ["micronaut-core", "micronaut-http", "micronaut-inject"]
+        def allInFlight = new CountDownLatch(artifacts.size())
+        def inFlight = new AtomicInteger()
+        def maxInFlight = new AtomicInteger()
+        def server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.executor = Executors.newCachedThreadPool()
+        server.createContext("/") { exchange ->
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> Math.max(a, b) }
+            allInFlight.countDown()
+            // A sequential fetch would only ever have a single request in flight
+            allInFlight.await(10, TimeUnit.SECONDS)
+            def artifactId = exchange.requestURI.path.split("/")[3]
+            def body = metadata(artifactId, "2.5.5").getBytes(StandardCharsets.UTF_8)
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.withCloseable { it.write(body) }
+            inFlight.decrementAndGet()
+        }
+        server.start()
+        def project = ProjectBuilder.builder().build()
+
+        when:
+        def releases = FindBaselinesTask.fetchReleases(
+                artifacts.collect { "io.micronaut:$it:2.5.6-SNAPSHOT".toString() },
+                "http://localhost:${server.address.port}",
+                ExternalURLService.registerOn(project).get()
+        )
+
+        then:
+        maxInFlight.get() == artifacts.size()
+        releases.keySet() == artifacts.collect { "io.micronaut:$it".toString() } as Set
+        releases.values().every { it*.toString() == ["2.5.5"] }
+
+        cleanup:
+        server?.stop(0)
+        server?.executor?.shutdownNow()
+    }
+
+    private File coordinates(String module, String coordinates, boolean findBaseline) {
+        def file = tempDir.resolve("coordinates-${module}.properties").toFile()
+        file.text = "module=$module\ncoordinates=$coordinates\nfindBaseline=$findBaseline\n"
+        file
+    }
+
+    private static void publish(Path repository, String artifactId, String... versions) {
+        def dir = repository.resolve("io/micronaut/$artifactId")
+        Files.createDirectories(dir)
+        dir.resolve("maven-metadata.xml").text = metadata(artifactId, versions)
+    }
+
+    private static String metadata(String artifactId, String... versions) {
+        """<?xml version="1.0" encoding="UTF-8"?>
+<metadata>
+  <groupId>io.micronaut</groupId>
+  <artifactId>$artifactId</artifactId>
+  <versioning>
+    <versions>
+${versions.collect { "      <version>$it</version>" }.join('\n')}
+    </versions>
+  </versioning>
+</metadata>
+"""
+    }
+}
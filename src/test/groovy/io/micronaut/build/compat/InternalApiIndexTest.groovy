@@ -0,0 +1,85 @@
+package io.micronaut.build.compat
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class InternalApiIndexTest extends Specification {
+    private static final String INTERNAL = "Lio/micronaut/core/annotation/Internal;"
+
+    @TempDir
+    Path tempDir
+
+    def "indexes internal types, members and packages"() {
+        given:
+        def jar = tempDir.resolve("test.jar")
+        new ZipOutputStream(Files.newOutputStream(jar)).withCloseable { zos ->
+            write(zos, "io/micronaut/a/Foo", true)
+            write(zos, "io/micronaut/a/Foo\$Bar", false)
+            write(zos, "io/micronaut/a/Qux", false) { ClassWriter cw ->
+                cw.visitMethod(Opcodes.ACC_PUBLIC, "m", "(Ljava/lang/String;[I)V", null, null).visitAnnotation(INTERNAL, true)
+                cw.visitField(Opcodes.ACC_PUBLIC, "F", "I", null, null).visitAnnotation(INTERNAL, true)
+                cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null).visitAnnotation(INTERNAL, true)
+                cw.visitMethod(Opcodes.ACC_PUBLIC, "other", "()V", null, null)
+            }
+            write(zos, "io/micronaut/b/package-info", true)
+            write(zos, "io/micronaut/b/Baz", false)
+        }
+
+        when:
+        def index = InternalApiIndex.scan([jar])
+
+        then:
+        index.types == ["io.micronaut.a.Foo", "io.micronaut.a.Foo\$Bar", "io.micronaut.b.Baz"] as Set
+        index.isInternalMember(InternalApiIndex.memberKey("io.micronaut.a.Qux", "m", ["java.lang.String", "int[]"]))
+        index.isInternalMember(InternalApiIndex.memberKey("io.micronaut.a.Qux", "F", null))
+        index.isInternalMember(InternalApiIndex.memberKey("io.micronaut.a.Qux", "<init>", []))
+        !index.isInternalMember(InternalApiIndex.memberKey("io.micronaut.a.Qux", "other", []))
+
+        when:
+        def file = tempDir.resolve("index.txt")
+        index.write(file)
+        def read = InternalApiIndex.fromParams([(InternalApiIndex.INDEX_FILE): file.toString()])
+
+        then:
+        read.types == index.types
+        read.isInternalMember(InternalApiIndex.memberKey("io.micronaut.a.Qux", "F", null))
+        InternalApiIndex.fromParams([:]).empty
+    }
+
+    def "parameter types are named like Type.getClassName"() {
+        expect:
+        InternalApiIndex.parameterTypeName(type) == name
+
+        where:
+        type                        | name
+        "int"                       | "int"
+        "java.lang.String"          | "java.lang.String"
+        "java.lang.String[]"        | "java.lang.String[]"
+        "java.lang.String..."       | "java.lang.String[]"
+        "[Ljava/lang/String;"       | "java.lang.String[]"
+        "[[I"                       | "int[][]"
+        "Lio/micronaut/a/Foo\$Bar;" | "io.micronaut.a.Foo\$Bar"
+        "io/micronaut/a/Foo\$Bar"   | "io.micronaut.a.Foo\$Bar"
+    }
+
+    private static void write(ZipOutputStream zos, String name, boolean internal, Closure<?> members = {}) {
+        def cw = new ClassWriter(0)
+        int access = name.endsWith("package-info") ? Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT | Opcodes.ACC_SYNTHETIC : Opcodes.ACC_PUBLIC
+        cw.visit(Opcodes.V17, access, name, null, "java/lang/Object", null)
+        if (internal) {
+            cw.visitAnnotation(INTERNAL, true)
+        }
+        members(cw)
+        cw.visitEnd()
+        zos.putNextEntry(new ZipEntry(name + ".class"))
+        zos.write(cw.toByteArray())
+        zos.closeEntry()
+    }
+}
@@ -0,0 +1,67 @@
+package io.micronaut.build.compat
+
+import japicmp.model.JApiMethod
+import japicmp.model.JApiParameter
+import me.champeau.gradle.japicmp.report.Severity
+import me.champeau.gradle.japicmp.report.Violation
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class InternalMicronautTypeRuleTest extends Specification {
+    private static final String INTERNAL = "Lio/micronaut/core/annotation/Internal;"
+
+    @TempDir
+    Path tempDir
+
+    def "violations on members of the index are warnings"() {
+        given:
+        def jar = tempDir.resolve("test.jar")
+        new ZipOutputStream(Files.newOutputStream(jar)).withCloseable { zos ->
+            def cw = new ClassWriter(0)
+            cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "io/micronaut/a/Foo", null, "java/lang/Object", null)
+            cw.visitMethod(Opcodes.ACC_PUBLIC, "internal", "([Ljava/lang/String;Lio/micronaut/a/Foo\$Bar;I)V", null, null)
+                    .visitAnnotation(INTERNAL, true)
+            cw.visitEnd()
+            zos.putNextEntry(new ZipEntry("io/micronaut/a/Foo.class"))
+            zos.write(cw.toByteArray())
+            zos.closeEntry()
+        }
+        def index = tempDir.resolve("index.txt")
+        InternalApiIndex.scan([jar]).write(index)
+        def rule = new InternalMicronautTypeRule([(InternalApiIndex.INDEX_FILE): index.toString()])
+
+        when:
+        def violation = new Violation(method(name, parameterTypes), Severity.error, "Method was removed")
+        def transformed = rule.transform("io.micronaut.a.Foo", violation).get()
+
+        then:
+        transformed.severity == severity
+
+        where:
+        name       | parameterTypes                                                  | severity
+        "internal" | ["java.lang.String[]", "io.micronaut.a.Foo\$Bar", "int"]         | Severity.warning
+        "internal" | ["java.lang.String...", "io.micronaut.a.Foo.Bar", "int"]         | Severity.warning
+        "internal" | ["[Ljava.lang.String;", "Lio/micronaut/a/Foo\$Bar;", "int"]       | Severity.warning
+        "internal" | ["java.lang.String", "io.micronaut.a.Foo\$Bar", "int"]           | Severity.error
+        "other"    | ["java.lang.String[]", "io.micronaut.a.Foo\$Bar", "int"]         | Severity.error
+    }
+
+    private JApiMethod method(String name, List<String> parameterTypes) {
+        def parameters = parameterTypes.collect { type ->
+            Stub(JApiParameter) {
+                getType() >> type
+            }
+        }
+        Stub(JApiMethod) {
+            getName() >> name
+            getParameters() >> parameters
+        }
+    }
+}
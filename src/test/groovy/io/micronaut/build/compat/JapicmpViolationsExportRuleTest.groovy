@@ -0,0 +1,49 @@
+package io.micronaut.build.compat
+
+import groovy.json.JsonSlurper
+import japicmp.model.JApiCompatibility
+import me.champeau.gradle.japicmp.report.Severity
+import me.champeau.gradle.japicmp.report.Violation
+import me.champeau.gradle.japicmp.report.ViolationCheckContextWithViolations
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class JapicmpViolationsExportRuleTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "exports the violations found by japicmp in the format of the fingerprint comparison"() {
+        given:
+        def changes = tempDir.resolve("accepted-api-changes.json").toFile()
+        changes.text = '[{ "type": "io.micronaut.B", "member": "*", "reason": "Not used" }]'
+        def member = Stub(JApiCompatibility)
+        def context = Stub(ViolationCheckContextWithViolations) {
+            getViolations() >> [
+                    "io.micronaut.B": [new Violation(member, Severity.accepted, "Is not binary compatible")],
+                    "io.micronaut.A": [
+                            new Violation(member, Severity.error, "Is not binary compatible" + AcceptanceHelper.formatAcceptance("io.micronaut.A", "Class io.micronaut.A")),
+                            new Violation(member, Severity.info, "Class was added")
+                    ]
+            ]
+        }
+        def violationsFile = tempDir.resolve("japicmp/violations.json")
+        def rule = new JapicmpViolationsExportRule([
+                (JapicmpViolationsExportRule.VIOLATIONS_FILE): violationsFile.toString(),
+                (JapicmpViolationsExportRule.MODULE_NAME): "core",
+                (AcceptedApiChangesRule.CHANGES_FILE): changes.absolutePath
+        ])
+
+        when:
+        rule.execute(context)
+        def result = new JsonSlurper().parse(violationsFile.toFile())
+
+        then:
+        result.module == "core"
+        result.changes*.type == ["io.micronaut.A", "io.micronaut.B"]
+        result.changes*.explanation == ["Is not binary compatible", "Is not binary compatible"]
+        result.changes*.severity == ["error", "accepted"]
+        result.changes*.acceptance == [null, "Not used"]
+    }
+}
@@ -0,0 +1,76 @@
+package io.micronaut.build.compat
+
+import io.micronaut.build.MicronautPublishingPlugin
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.plugins.JavaLibraryPlugin
+import org.gradle.api.tasks.WriteProperties
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class MicronautBinaryCompatibilityPluginTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    @Unroll("registers the API fingerprint task for #description")
+    def "registers the API fingerprint task of modules which don't publish one"() {
+        given:
+        def project = ProjectBuilder.builder().withName(name).build()
+        properties.each { k, v -> project.extensions.extraProperties.set(k, v) }
+        plugins.each { project.pluginManager.apply(it) }
+        project.pluginManager.apply(JavaLibraryPlugin)
+        project.pluginManager.apply(MicronautPublishingPlugin)
+        project.pluginManager.apply(MicronautBinaryCompatibilityPlugin)
+        project.micronautBuild.binaryCompatibility.enabled = false
+        ((ProjectInternal) project).evaluate()
+
+        when:
+        def check = project.tasks.getByName("check")
+        def dependencies = check.taskDependencies.getDependencies(check)*.name
+        def compare = project.tasks.getByName("compareApiFingerprint") as ApiFingerprintCompatibilityCheck
+        def japiCmp = project.tasks.getByName("japiCmp")
+
+        then:
+        dependencies.contains("japiCmp")
+        japiCmp.taskDependencies.getDependencies(japiCmp)*.name.contains("compareApiFingerprint")
+        compare.current.get().asFile == project.file("build/api-fingerprint/micronaut-${name}-api-fingerprint.txt")
+        compare.taskDependencies.getDependencies(compare)*.name.contains(MicronautPublishingPlugin.API_FINGERPRINT_TASK_NAME)
+
+        where:
+        description                    | name        | properties                  | plugins
+        'a published module'           | 'core'      | [:]                         | []
+        'a module with publishing off' | 'core'      | [micronautPublish: 'false'] | []
+        'a docs module'                | 'docs-test' | [:]                         | []
+        'a Gradle plugin'              | 'plugin'    | [:]                         | ['java-gradle-plugin']
+    }
+
+    def "modules exchange their coordinates and baselines with the root project"() {
+        given:
+        def root = ProjectBuilder.builder().withName("root").withProjectDir(tempDir.toFile()).build()
+        def core = ProjectBuilder.builder().withName("core").withParent(root).build()
+        root.pluginManager.apply(MicronautBinaryCompatibilityReportPlugin)
+        core.group = "io.micronaut"
+        core.version = "2.5.6-SNAPSHOT"
+        core.pluginManager.apply(JavaLibraryPlugin)
+        core.pluginManager.apply(MicronautPublishingPlugin)
+        core.pluginManager.apply(MicronautBinaryCompatibilityPlugin)
+        ((ProjectInternal) core).evaluate()
+
+        when:
+        def coordinatesTask = core.tasks.getByName("binaryCompatibilityCoordinates") as WriteProperties
+        Files.createDirectories(core.file("build/binary-compatibility").toPath())
+        coordinatesTask.writeProperties()
+        def coordinates = new Properties()
+        coordinatesTask.destinationFile.get().asFile.withReader { coordinates.load(it) }
+        def findBaselines = root.tasks.getByName(MicronautBinaryCompatibilityReportPlugin.FIND_BASELINES_TASK_NAME) as FindBaselinesTask
+
+        then:
+        coordinates == [module: "core", coordinates: "io.micronaut:micronaut-core:2.5.6-SNAPSHOT", findBaseline: "true"]
+        findBaselines.moduleCoordinates.files == [coordinatesTask.destinationFile.get().asFile] as Set
+        core.configurations.getByName("binaryCompatibilityBaselines").incoming.files.files == [root.file("build/baselines.json")] as Set
+    }
+}
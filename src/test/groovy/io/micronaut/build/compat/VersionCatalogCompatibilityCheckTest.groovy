@@ -1,6 +1,7 @@
 package io.micronaut.build.compat
 
 
+import groovy.json.JsonSlurper
 import org.gradle.testfixtures.ProjectBuilder
 import spock.lang.Specification
 
@@ -25,8 +26,8 @@ class VersionCatalogCompatibilityCheckTest extends Specification {
         ex.message.startsWith("Version catalogs are not compatible:")
         def reportText = report.get().asFile.text
         reportText == '''The following versions were present in the baseline version but missing from this catalog:
-  - springboot
   - spring
+  - springboot
 The following libraries were present in the baseline version but missing from this catalog:
   - commons-dbcp
 '''
@@ -58,6 +59,33 @@ The following libraries were present in the baseline version but missing from th
     }
 
 
+    def "writes a JSON report"() {
+        def project = ProjectBuilder.builder().build()
+        def report = project.layout.buildDirectory.file("reports/report.txt")
+        def jsonReport = project.layout.buildDirectory.file("reports/report.json")
+        Files.createDirectories(report.get().asFile.parentFile.toPath())
+        def task = project.tasks.create("compat", VersionCatalogCompatibilityCheck) {
+            baseline.set(resource("/baseline.toml"))
+            current.set(resource("/current.toml"))
+            reportFile.set(report)
+            jsonReportFile.set(jsonReport)
+            acceptedVersionRegressions.addAll("spring", "springboot")
+            acceptedLibraryRegressions.add("commons-dbcp")
+        }
+
+        when:
+        task.checkCompatibility()
+
+        then:
+        noExceptionThrown()
+        report.get().asFile.text == ''
+        def json = new JsonSlurper().parse(jsonReport.get().asFile)
+        json.compatible == true
+        json.versions.find { it.alias == 'spring' } == [alias: 'spring', change: 'removed', baseline: '5.3.20']
+        json.versions.find { it.alias == 'micronaut-test-resources' } == [alias: 'micronaut-test-resources', change: 'added', current: '1.0.0']
+        json.libraries.find { it.alias == 'commons-dbcp' }.change == 'removed'
+    }
+
     static File resource(String path) {
         new File(VersionCatalogCompatibilityCheckTest.getResource(path).toURI())
     }
@@ -0,0 +1,110 @@
+package io.micronaut.build.pom
+
+import groovy.json.JsonSlurper
+import org.gradle.api.publish.PublishingExtension
+import org.gradle.api.publish.maven.MavenPublication
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class PomCheckerTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "verifies several roots which share a BOM once"() {
+        given:
+        def repository = tempDir.resolve("repo")
+        publish(repository, "org.other", "shared-bom", imports: [], managed: ["org.elsewhere:lib:1.0"])
+        publish(repository, "org.elsewhere", "lib")
+        publish(repository, "io.micronaut.test", "micronaut-bom-b", imports: ["org.other:shared-bom:1.0"])
+        def project = ProjectBuilder.builder()
+                .withName("bom-a")
+                .withProjectDir(tempDir.resolve("project").toFile())
+                .build()
+        project.group = "io.micronaut.test"
+        project.version = "1.0"
+        project.plugins.apply("java-platform")
+        project.plugins.apply("maven-publish")
+        def publishing = project.extensions.getByType(PublishingExtension)
+        publishing.publications.create("maven", MavenPublication) {
+            from(project.components.getByName("javaPlatform"))
+        }
+        project.repositories.maven { url = repository.toUri() }
+        def rootPom = tempDir.resolve("root.pom")
+        rootPom.text = pom("io.micronaut.test", "micronaut-bom-a", ["org.other:shared-bom:1.0"], [])
+        def task = PomCheckerUtils.registerMultiRootPomChecker("checkBoms", project, publishing) {
+            it.repositories.set([repository.toUri().toString()])
+            it.pomFile.set(rootPom.toFile())
+            it.additionalRootCoordinates.set(["io.micronaut.test:micronaut-bom-b:1.0", "io.micronaut.test:micronaut-bom-a:1.0"])
+            it.failOnError.set(false)
+            it.suppressions.set(project.objects.newInstance(BomSuppressions))
+        }.get()
+        Files.createDirectories(project.file("build/reports/checkBoms").toPath())
+
+        when:
+        task.verifyBom()
+        def report = new JsonSlurper().parse(project.file("build/reports/checkBoms/report-checkBoms.json"))
+        def poms = report.poms.collectEntries { [("${it.groupId}:${it.artifactId}".toString()): it] }
+
+        then: "each POM is reported once, even if it is reached from both roots"
+        report.poms*.artifactId == ["micronaut-bom-a", "micronaut-bom-b", "shared-bom"]
+        poms["org.other:shared-bom"].errors == [
+                "POM org.other:shared-bom:1.0 (via io.micronaut.test:micronaut-bom-a:1.0 -> org.other:shared-bom:1.0) declares dependency on org.elsewhere:lib:1.0 which doesn't belong to group org.other."
+        ]
+
+        and: "errors are attributed to every root which reaches the POM"
+        poms["org.other:shared-bom"].reachedFrom == [
+                "io.micronaut.test:micronaut-bom-a:1.0": "io.micronaut.test:micronaut-bom-a:1.0 -> org.other:shared-bom:1.0",
+                "io.micronaut.test:micronaut-bom-b:1.0": "io.micronaut.test:micronaut-bom-b:1.0 -> org.other:shared-bom:1.0"
+        ]
+        poms["io.micronaut.test:micronaut-bom-b"].reachedFrom == [
+                "io.micronaut.test:micronaut-bom-b:1.0": "io.micronaut.test:micronaut-bom-b:1.0"
+        ]
+        project.file("build/reports/checkBoms/report-checkBoms.txt").text.contains(
+                "    reached from io.micronaut.test:micronaut-bom-b:1.0 via io.micronaut.test:micronaut-bom-b:1.0 -> org.other:shared-bom:1.0"
+        )
+    }
+
+    def "parses the additional root coordinates"() {
+        expect:
+        PomCheckerUtils.parseRootCoordinates(" a:b:1.0, c:d:2.0 ,,") == ["a:b:1.0", "c:d:2.0"]
+    }
+
+    private static void publish(Map<String, List<String>> dependencies = [:], Path repository, String groupId, String artifactId) {
+        def dir = repository.resolve("${groupId.replace('.', '/')}/$artifactId/1.0")
+        Files.createDirectories(dir)
+        dir.resolve("$artifactId-1.0.pom").text = pom(groupId, artifactId, dependencies.imports ?: [], dependencies.managed ?: [])
+    }
+
+    private static String pom(String groupId, String artifactId, List<String> imports, List<String> managed) {
+        """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+  <modelVersion>4.0.0</modelVersion>
+  <groupId>$groupId</groupId>
+  <artifactId>$artifactId</artifactId>
+  <version>1.0</version>
+  <packaging>pom</packaging>
+  <dependencyManagement>
+    <dependencies>
+${imports.collect { dependency(it, true) }.join('\n')}
+${managed.collect { dependency(it, false) }.join('\n')}
+    </dependencies>
+  </dependencyManagement>
+</project>
+"""
+    }
+
+    private static String dependency(String coordinates, boolean imported) {
+        def (groupId, artifactId, version) = coordinates.split(':')
+        """      <dependency>
+        <groupId>$groupId</groupId>
+        <artifactId>$artifactId</artifactId>
+        <version>$version</version>${imported ? '''
+        <type>pom</type>
+        <scope>import</scope>''' : ''}
+      </dependency>"""
+    }
+}
@@ -0,0 +1,104 @@
+package io.micronaut.build.pom
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class PomDownloaderTest extends Specification {
+    @TempDir
+    private Path tmpDir
+
+    private Path repository
+    private PomDependency snapshot = new PomDependency(false, "org.test", "lib", "1.0-SNAPSHOT", "")
+
+    def setup() {
+        repository = tmpDir.resolve("repo")
+    }
+
+    def "downloads a snapshot POM again only when the metadata points at a new build"() {
+        given:
+        publishSnapshot("20240101.120000", "1", "first")
+
+        when:
+        def pom = newDownloader().tryDownloadPom(snapshot)
+
+        then:
+        pom.get().text == "first"
+
+        when: "the remote file changes but the metadata doesn't"
+        snapshotFile("20240101.120000", "1").text = "modified"
+        pom = newDownloader().tryDownloadPom(snapshot)
+
+        then:
+        pom.get().text == "first"
+
+        when: "a new build is published"
+        publishSnapshot("20240102.120000", "2", "second")
+        pom = newDownloader().tryDownloadPom(snapshot)
+
+        then:
+        pom.get().text == "second"
+    }
+
+    def "keeps the cached snapshot POM if the download fails"() {
+        given:
+        publishSnapshot("20240101.120000", "1", "first")
+        def cached = newDownloader().tryDownloadPom(snapshot).get()
+
+        when:
+        publishSnapshot("20240102.120000", "2", null)
+        def pom = newDownloader().tryDownloadPom(snapshot)
+
+        then:
+        !pom.present
+        cached.text == "first"
+    }
+
+    def "looks up release POMs in local caches before the network"() {
+        given:
+        def mavenLocal = tmpDir.resolve("m2").toFile()
+        def moduleCache = tmpDir.resolve("files-2.1").toFile()
+        def fromModuleCache = new File(moduleCache, "org.test/cached/1.0/0a1b2c/cached-1.0.pom")
+        fromModuleCache.parentFile.mkdirs()
+        fromModuleCache.text = "module cache"
+        def fromMavenLocal = new File(mavenLocal, "org/test/local/1.0/local-1.0.pom")
+        fromMavenLocal.parentFile.mkdirs()
+        fromMavenLocal.text = "maven local"
+        def downloader = new PomDownloader([repository.toUri().toString()], tmpDir.resolve("poms").toFile(), [mavenLocal], moduleCache)
+
+        expect:
+        downloader.tryDownloadPom(new PomDependency(false, "org.test", "cached", "1.0", "")).get() == fromModuleCache
+        downloader.tryDownloadPom(new PomDependency(false, "org.test", "local", "1.0", "")).get() == fromMavenLocal
+        !downloader.tryDownloadPom(new PomDependency(false, "org.test", "missing", "1.0", "")).present
+    }
+
+    private PomDownloader newDownloader() {
+        new PomDownloader([repository.toUri().toString()], tmpDir.resolve("poms").toFile())
+    }
+
+    private File snapshotFile(String timestamp, String buildNumber) {
+        repository.resolve("org/test/lib/1.0-SNAPSHOT/lib-1.0-${timestamp}-${buildNumber}.pom").toFile()
+    }
+
+    private void publishSnapshot(String timestamp, String buildNumber, String contents) {
+        def dir = repository.resolve("org/test/lib/1.0-SNAPSHOT").toFile()
+        dir.mkdirs()
+        new File(dir, "maven-metadata.xml").text = """<?xml version="1.0" encoding="UTF-8"?>
+<metadata>
+  <groupId>org.test</groupId>
+  <artifactId>lib</artifactId>
+  <version>1.0-SNAPSHOT</version>
+  <versioning>
+    <snapshot>
+      <timestamp>${timestamp}</timestamp>
+      <buildNumber>${buildNumber}</buildNumber>
+    </snapshot>
+  </versioning>
+</metadata>
+"""
+        if (contents != null) {
+            snapshotFile(timestamp, buildNumber).text = contents
+        }
+    }
+}
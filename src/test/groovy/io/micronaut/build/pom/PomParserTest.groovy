@@ -1,10 +1,12 @@
 package io.micronaut.build.pom
 
+import org.gradle.api.GradleException
 import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.TempDir
 
 import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
 
 
 class PomParserTest extends Specification {
@@ -45,6 +47,149 @@ class PomParserTest extends Specification {
         pom.dependencies.every { it.version == '2.17.134'}
     }
 
+    def "reads only the relevant parts of a POM file"() {
+        given:
+        def pomFile = tmpDir.resolve("test.pom").toFile()
+        pomFile.text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>
+    <packaging>pom</packaging>
+    <properties>
+        <lib.version>1.0</lib.version>
+        <other.version>\${lib.version}.1</other.version>
+        <flavor>fast</flavor>
+        <lib.fast.version>2.0</lib.fast.version>
+        <cycle.a>\${cycle.b}</cycle.a>
+        <cycle.b>\${cycle.a}</cycle.b>
+    </properties>
+    <dependencyManagement>
+        <dependencies>
+            <dependency>
+                <groupId>\${project.groupId}</groupId>
+                <artifactId>managed</artifactId>
+                <version>\${other.version}</version>
+                <type>pom</type>
+                <scope>import</scope>
+            </dependency>
+            <dependency>
+                <groupId>org.test</groupId>
+                <artifactId>nested</artifactId>
+                <version>\${lib.\${flavor}.version}</version>
+            </dependency>
+            <dependency>
+                <groupId>org.test</groupId>
+                <artifactId>cyclic</artifactId>
+                <version>\${cycle.a}</version>
+            </dependency>
+        </dependencies>
+    </dependencyManagement>
+    <dependencies>
+        <dependency>
+            <groupId>org.test</groupId>
+            <artifactId>direct</artifactId>
+            <version>\${unknown.version}</version>
+            <scope>test</scope>
+        </dependency>
+    </dependencies>
+    <build>
+        <plugins>
+            <plugin>
+                <dependencies>
+                    <dependency>
+                        <groupId>org.test</groupId>
+                        <artifactId>plugin-dependency</artifactId>
+                        <version>1.0</version>
+                    </dependency>
+                </dependencies>
+            </plugin>
+        </plugins>
+    </build>
+</project>
+"""
+        def parser = new PomParser(new PomDownloader([], tmpDir.toFile()))
+
+        when:
+        def pom = parser.parse(pomFile, "org.test", "test", "3.0")
+
+        then:
+        pom.bom
+        pom.properties['project.version'] == '3.0'
+        pom.properties['other.version'] == '1.0.1'
+        pom.dependencies*.toString() == [
+                'org.test:direct:${unknown.version} scope test',
+                'org.test:managed:1.0.1 scope import',
+                'org.test:nested:2.0',
+                'org.test:cyclic:${cycle.a}'
+        ]
+        pom.dependencies*.managed == [false, true, true, true]
+    }
+
+    def "fails on a cycle of parent POMs"() {
+        given:
+        def poms = [
+                a: writePom("a", "b"),
+                b: writePom("b", "a")
+        ]
+        def parser = new PomParser(localDownloader(poms))
+
+        when:
+        parser.parse(poms.a, "org.test", "a", "1.0")
+
+        then:
+        def ex = thrown(GradleException)
+        ex.message == 'Cycle detected in parent POMs: org.test:a:1.0 -> org.test:b:1.0 -> org.test:a:1.0'
+    }
+
+    def "POM files with the same coordinates but different sources are parsed separately"() {
+        given:
+        def parsedPoms = new ConcurrentHashMap<String, PomParser.ParsedPom>()
+        def published = writePom("a", null, "published")
+        def local = writePom("a", null, "local")
+        def downloader = localDownloader([:])
+
+        when:
+        def first = new PomParser(downloader, parsedPoms).parse(published, "org.test", "a", "1.0")
+        def second = new PomParser(downloader, parsedPoms).parse(local, "org.test", "a", "1.0")
+        def third = new PomParser(downloader, parsedPoms).parse(local, "org.test", "a", "1.0")
+
+        then:
+        first.properties.source == 'published'
+        second.properties.source == 'local'
+        third.is(second)
+    }
+
+    private File writePom(String artifactId, String parentArtifactId, String source = artifactId) {
+        def dir = tmpDir.resolve(source).toFile()
+        dir.mkdirs()
+        def pomFile = new File(dir, "${artifactId}-1.0.pom")
+        pomFile.text = """<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>
+${parentArtifactId ? """    <parent>
+        <groupId>org.test</groupId>
+        <artifactId>$parentArtifactId</artifactId>
+        <version>1.0</version>
+    </parent>""" : ''}
+    <groupId>org.test</groupId>
+    <artifactId>$artifactId</artifactId>
+    <version>1.0</version>
+    <packaging>pom</packaging>
+    <properties>
+        <source>$source</source>
+    </properties>
+</project>
+"""
+        pomFile
+    }
+
+    private PomDownloader localDownloader(Map<String, File> poms) {
+        new PomDownloader([], tmpDir.toFile()) {
+            @Override
+            Optional<File> tryDownloadPom(PomDependency dependency) {
+                Optional.ofNullable(poms[dependency.artifactId])
+            }
+        }
+    }
 
     private void parse(String group, String artifact, String version) {
         def maybePom = downloader.tryDownloadPom(new PomDependency(false, group, artifact, version, "compile"))
@@ -0,0 +1,31 @@
+package io.micronaut.build.pom
+
+import spock.lang.Specification
+
+class SuppressionIndexTest extends Specification {
+    private final SuppressionIndex index = new SuppressionIndex(
+            ['org.foo:bar:1.0', 'org.foo:baz:2.0'] as Set,
+            [
+                    'org.bom:bom'    : ['org.a'] as Set,
+                    'org.bom:bom:1.0': ['org.b'] as Set,
+                    'org.other:bom:2': ['org.c'] as Set
+            ]
+    )
+
+    def "finds silenced dependencies"() {
+        expect:
+        index.isSilenced('org.foo', 'bar', '1.0')
+        index.isSilenced('org.foo:baz:2.0')
+        !index.isSilenced('org.foo', 'bar', '2.0')
+        !index.isSilenced('org.foo', 'qux', '1.0')
+        !index.isSilenced('org.foo:bar:2.0')
+    }
+
+    def "groups authorized for all versions of a BOM take precedence"() {
+        expect:
+        index.authorizedGroups('org.bom', 'bom', '1.0') == ['org.a'] as Set
+        index.authorizedGroups('org.other', 'bom', '2') == ['org.c'] as Set
+        index.authorizedGroups('org.other', 'bom', '3').isEmpty()
+        index.authorizedGroups('org.unknown', 'bom', '1.0').isEmpty()
+    }
+}
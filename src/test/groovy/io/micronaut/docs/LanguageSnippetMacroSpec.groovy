@@ -0,0 +1,127 @@
+package io.micronaut.docs
+
+import org.asciidoctor.Asciidoctor
+import org.asciidoctor.Attributes
+import org.asciidoctor.Options
+import org.asciidoctor.SafeMode
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class LanguageSnippetMacroSpec extends Specification {
+    @TempDir
+    File tempDir
+
+    void "extracts tagged regions like an include directive"() {
+        given:
+        def file = new File(tempDir, "HelloController.java")
+        file.text = '''package example;
+// tag::imports[]
+import io.micronaut.http.annotation.Controller;
+// end::imports[]
+@Controller("/hello")
+public class HelloController {
+    // tag::method[]
+    public String index() {
+        // tag::body[]
+        return "Hello"; // <1>
+        // end::body[]
+    }
+    // end::method[]
+}
+'''
+
+        expect:
+        LanguageSnippetMacro.snippetLines(file, ['imports', 'method'] as String[], '0') == [
+                'import io.micronaut.http.annotation.Controller;',
+                '',
+                'public String index() {',
+                '    return "Hello"; // <1>',
+                '}'
+        ]
+        LanguageSnippetMacro.snippetLines(file, ['body'] as String[], '2') == ['  return "Hello"; // <1>']
+        LanguageSnippetMacro.snippetLines(file, ['missing'] as String[], null) == []
+        LanguageSnippetMacro.snippetLines(file, null, null) == file.readLines()
+    }
+
+    void "locates snippet files with a directory index"() {
+        given:
+        def file = new File(tempDir, "Hello.java")
+        file.text = "class Hello {}"
+        LanguageSnippetMacro.clearSnippetIndex()
+
+        expect:
+        LanguageSnippetMacro.snippetExists(file)
+        !LanguageSnippetMacro.snippetExists(new File(tempDir, "Other.java"))
+
+        when:
+        new File(tempDir, "Other.java").text = "class Other {}"
+
+        then: "the index is only refreshed when cleared"
+        !LanguageSnippetMacro.snippetExists(new File(tempDir, "Other.java"))
+
+        when:
+        LanguageSnippetMacro.clearSnippetIndex()
+
+        then:
+        LanguageSnippetMacro.snippetExists(new File(tempDir, "Other.java"))
+    }
+
+    void "renders snippets for highlight.js whatever the highlighter of the document"() {
+        given:
+        String userDir = System.getProperty("user.dir")
+        System.setProperty("user.dir", tempDir.absolutePath)
+        write("test-suite/src/test/java/example/Hello.java", '''class Hello {
+    // tag::body[]
+    List<String> names = List.of("Hello"); // <1>
+    // end::body[]
+}
+''')
+        write("test-suite-kotlin/src/test/kotlin/example/Hello.kt", '''class Hello {
+    // tag::body[]
+    val names = listOf("Hello")
+    // end::body[]
+}
+''')
+        LanguageSnippetMacro.clearSnippetIndex()
+        Asciidoctor asciidoctor = Asciidoctor.Factory.create()
+        asciidoctor.javaExtensionRegistry().blockMacro(new LanguageSnippetMacro("snippet", [:], asciidoctor))
+
+        when:
+        String converted = asciidoctor.convert('snippet::example.Hello[tags="body",indent="0",title="Hello"]', Options.builder()
+                .safe(SafeMode.SAFE)
+                .attributes(Attributes.builder().attribute('source-highlighter', highlighter).build())
+                .backend("html5")
+                .build())
+
+        then:
+        !converted.contains('CodeRay')
+        converted.startsWith('''<div class="openblock">
+<div class="content">
+<div class="listingblock multi-language-sample">
+<div class="title">Hello</div>
+<div class="content">
+<pre class="highlightjs highlight"><code class="language-java hljs" data-lang="java">List&lt;String&gt; names = List.of("Hello");''')
+        converted.contains('<b class="conum">(1)</b></code></pre>')
+        converted.endsWith('''<div class="listingblock multi-language-sample">
+<div class="title">Hello</div>
+<div class="content">
+<pre class="highlightjs highlight"><code class="language-kotlin hljs" data-lang="kotlin">val names = listOf("Hello")</code></pre>
+</div>
+</div>
+</div>
+</div>''')
+
+        cleanup:
+        System.setProperty("user.dir", userDir)
+        asciidoctor?.shutdown()
+
+        where:
+        highlighter << ['coderay', 'highlightjs']
+    }
+
+    private void write(String path, String text) {
+        def file = new File(tempDir, path)
+        file.parentFile.mkdirs()
+        file.text = text
+    }
+}
@@ -0,0 +1,62 @@
+package io.micronaut.docs.internal
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class RenderCacheSpec extends Specification {
+    @TempDir
+    File tempDir
+
+    void "reuses fragments until the source or the included files change"() {
+        given:
+        def guideDir = new File(tempDir, "guide")
+        new File(guideDir, "snippets").mkdirs()
+        def source = new File(guideDir, "intro.adoc")
+        def included = new File(guideDir, "snippets/hello.txt")
+        included.text = "hello"
+        def text = "= Intro\n\ninclude::{snippetsDir}/hello.txt[]\n"
+        source.text = text
+        def cacheDir = new File(tempDir, "cache")
+        def cache = new RenderCache(cacheDir, "asciidoc", [snippetsDir: "snippets"])
+
+        when:
+        def key = cache.keyOf(source, text, ["..", null])
+
+        then:
+        cache.get(key) == null
+
+        when:
+        cache.put(key, "<h1>Intro</h1>")
+
+        then:
+        cache.get(key) == "<h1>Intro</h1>"
+        cache.hits == 1
+        cache.misses == 1
+        cache.keyOf(source, text, ["..", null]) == key
+        cache.keyOf(source, text + "\nmore", ["..", null]) != key
+        cache.keyOf(source, text, ["../..", null]) != key
+        new RenderCache(cacheDir, "asciidoc", [snippetsDir: "snippets", version: "2.0"]).keyOf(source, text, ["..", null]) != key
+
+        when:
+        included.text = "hello, world"
+
+        then:
+        cache.keyOf(source, text, ["..", null]) != key
+    }
+
+    void "evicts the fragments which were not used"() {
+        given:
+        def cacheDir = new File(tempDir, "cache")
+        def cache = new RenderCache(cacheDir, "asciidoc", [:])
+        cache.put("a", "A")
+        cache.put("b", "B")
+
+        when:
+        def next = new RenderCache(cacheDir, "asciidoc", [:])
+        next.get("a")
+        next.evictUnused()
+
+        then:
+        cacheDir.list() as Set == ["a.html"] as Set
+    }
+}